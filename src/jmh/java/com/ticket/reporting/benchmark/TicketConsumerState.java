@@ -0,0 +1,87 @@
+package com.ticket.reporting.benchmark;
+
+import com.ticket.reporting.consumer.TicketConsumer;
+import com.ticket.reporting.store.ColumnarTicketStore;
+import com.ticket.reporting.store.MapTicketStore;
+import com.ticket.reporting.store.TicketStoreType;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * TicketConsumer holding storeSize synthetic placed tickets with ULID ticket ids, plus a pool of PLACED updates of
+ * stored tickets so that ingest is measured at a steady store size.
+ */
+@State(Scope.Benchmark)
+public class TicketConsumerState {
+    private static final int FILL_BATCH = 10_000;
+    private static final int UPDATES = 1 << 16;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int storeSize;
+
+    @Param({"MAP", "COLUMNAR"})
+    public TicketStoreType storeType;
+
+    TicketConsumer ticketConsumer;
+    final List<Integer> bookmakerIds = IntStream.range(BenchmarkTickets.FIRST_BOOKMAKER,
+            BenchmarkTickets.FIRST_BOOKMAKER + BenchmarkTickets.BOOKMAKERS).boxed().toList();
+    private List<String> updates;
+    private List<String> ticketIds;
+    private int nextUpdate;
+    private int nextTicketId;
+    private int nextBookmaker;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        ticketConsumer = new TicketConsumer(storeType == TicketStoreType.MAP
+                ? new MapTicketStore() : new ColumnarTicketStore());
+        Random random = new Random(42);
+        long time = 1_700_000_000_000L;
+        ticketIds = new ArrayList<>(UPDATES);
+        int sampleEvery = Math.max(1, storeSize / UPDATES);
+        for (int from = 0; from < storeSize; from += FILL_BATCH) {
+            List<String> batch = new ArrayList<>(FILL_BATCH);
+            for (int i = from; i < Math.min(storeSize, from + FILL_BATCH); i++) {
+                String ticketId = BenchmarkTickets.ulid(time + i, random);
+                if (i % sampleEvery == 0 && ticketIds.size() < UPDATES) {
+                    ticketIds.add(ticketId);
+                }
+                batch.add(BenchmarkTickets.message(ticketId, random));
+            }
+            ticketConsumer.consumeBatch(batch);
+        }
+        updates = new ArrayList<>(UPDATES);
+        for (int i = 0; i < UPDATES; i++) {
+            updates.add(BenchmarkTickets.message(ticketIds.get(random.nextInt(ticketIds.size())), random));
+        }
+    }
+
+    String nextUpdate() {
+        nextUpdate = (nextUpdate + 1) & (UPDATES - 1);
+        return updates.get(nextUpdate);
+    }
+
+    List<String> nextUpdates(int count) {
+        int from = nextUpdate;
+        nextUpdate = (nextUpdate + count) & (UPDATES - 1);
+        return from + count <= UPDATES ? updates.subList(from, from + count) : updates.subList(0, count);
+    }
+
+    String nextTicketId() {
+        nextTicketId = (nextTicketId + 1) % ticketIds.size();
+        return ticketIds.get(nextTicketId);
+    }
+
+    int nextBookmaker() {
+        nextBookmaker = (nextBookmaker + 1) % BenchmarkTickets.BOOKMAKERS;
+        return BenchmarkTickets.FIRST_BOOKMAKER + nextBookmaker;
+    }
+}
@@ -0,0 +1,87 @@
+package com.ticket.reporting.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticket.reporting.consumer.TicketDeserializer;
+import com.ticket.reporting.consumer.TicketParser;
+import com.ticket.reporting.model.Ticket;
+import io.restassured.module.jsv.JsonSchemaValidator;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records/sec of deserializing Kafka record values into tickets, decoding them into a String for TicketParser as
+ * with the StringDeserializer, or parsing their bytes with TicketDeserializer, against the original path that
+ * reloaded the schema, validated the String and deserialized it again with an ObjectMapper. Run with -prof gc for
+ * the bytes allocated per record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketDeserializerBenchmark {
+    private static final int RECORDS = 1 << 12;
+    private static final String TOPIC = "tickets";
+    private static final String SCHEMA = "ticket.v1.json";
+
+    private final StringDeserializer stringDeserializer = new StringDeserializer();
+    private final TicketParser ticketParser = new TicketParser(SCHEMA);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TicketDeserializer ticketDeserializer = new TicketDeserializer();
+    private final RecordHeaders headers = new RecordHeaders();
+    private byte[][] values;
+    private int next;
+
+    @Setup
+    public void generate() {
+        Random random = new Random(42);
+        values = new byte[RECORDS][];
+        for (int i = 0; i < RECORDS; i++) {
+            values[i] = BenchmarkTickets.message(BenchmarkTickets.ulid(1_700_000_000_000L + i, random), random)
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public Ticket schemaReloadPath() throws IOException {
+        String message = stringDeserializer.deserialize(TOPIC, headers, nextValue());
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(SCHEMA)) {
+            if (inputStream == null || !JsonSchemaValidator.matchesJsonSchema(inputStream).matches(message)) {
+                throw new IllegalStateException("Benchmark message rejected");
+            }
+            return objectMapper.readValue(message, Ticket.class);
+        }
+    }
+
+    @Benchmark
+    public Ticket stringPath() throws IOException {
+        return ticketParser.parse(stringDeserializer.deserialize(TOPIC, headers, nextValue()));
+    }
+
+    @Benchmark
+    public Ticket bytePath() {
+        return ticketDeserializer.deserialize(TOPIC, headers, nextValue());
+    }
+
+    private byte[] nextValue() {
+        next = (next + 1) & (RECORDS - 1);
+        return values[next];
+    }
+}
@@ -0,0 +1,63 @@
+package com.ticket.reporting.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tickets/sec of TicketConsumer ingest, one message at a time and in polls of max.poll.records, updating tickets
+ * of a store of storeSize tickets, one message at a time from WRITERS threads like partition workers, and
+ * BATCHED_RECORDS messages per invocation in batches of batchSize.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TicketIngestBenchmark {
+    private static final int POLL_SIZE = 500;
+    private static final int WRITERS = 4;
+    private static final int BATCHED_RECORDS = 1000;
+
+    @Benchmark
+    public void consume(TicketConsumerState state) {
+        state.ticketConsumer.consume(state.nextUpdate());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POLL_SIZE)
+    public void consumeBatch(TicketConsumerState state) {
+        state.ticketConsumer.consumeBatch(state.nextUpdates(POLL_SIZE));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCHED_RECORDS)
+    public void consumeInBatches(TicketConsumerState state, BatchSize batch) {
+        for (int consumed = 0; consumed < BATCHED_RECORDS; consumed += batch.batchSize) {
+            state.ticketConsumer.consumeBatch(state.nextUpdates(batch.batchSize));
+        }
+    }
+
+    @Benchmark
+    @Threads(WRITERS)
+    public void consumeConcurrently(TicketConsumerState state) {
+        state.ticketConsumer.consume(state.nextUpdate());
+    }
+
+    @State(Scope.Benchmark)
+    public static class BatchSize {
+        @Param({"1", "100", "1000"})
+        public int batchSize;
+    }
+}
@@ -0,0 +1,75 @@
+package com.ticket.reporting.benchmark;
+
+import com.ticket.reporting.metrics.GameOrder;
+import com.ticket.reporting.model.BookmakerRanking;
+import com.ticket.reporting.model.CostMetrics;
+import com.ticket.reporting.model.GameRanking;
+import com.ticket.reporting.model.StakeDistribution;
+import com.ticket.reporting.model.TicketData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the per-bookmaker CostMetrics queries over a store of storeSize tickets spread over 50 bookmakers,
+ * from the running totals and by scanning the tickets of the bookmaker, of the batch query of all 50 bookmakers,
+ * of the leaderboards, and of a page of the ticket stream after a cursor spread over the store.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TicketMetricsBenchmark {
+    private static final int TICKETS_PAGE = 1000;
+
+    @Benchmark
+    public CostMetrics costMetricsByBookmaker(TicketConsumerState state) {
+        return state.ticketConsumer.getCostMetricsByBookmaker(state.nextBookmaker());
+    }
+
+    @Benchmark
+    public Map<String, CostMetrics> costMetricsGroupedByGame(TicketConsumerState state) {
+        return state.ticketConsumer.getTicketsByBookmakerIdGroupedByGame(state.nextBookmaker());
+    }
+
+    @Benchmark
+    public Map<Integer, Map<String, CostMetrics>> costMetricsOfAllBookmakersGroupedByGame(
+            TicketConsumerState state) {
+        return state.ticketConsumer.getTicketsByBookmakerIdsGroupedByGame(state.bookmakerIds, null);
+    }
+
+    @Benchmark
+    public Map<String, StakeDistribution> distributionsGroupedByGame(TicketConsumerState state) {
+        return state.ticketConsumer.getDistributionsByBookmakerIdGroupedByGame(state.nextBookmaker());
+    }
+
+    @Benchmark
+    public List<GameRanking> topGamesByTurnover(TicketConsumerState state) {
+        return state.ticketConsumer.getTopGames(state.nextBookmaker(), GameOrder.TURNOVER, 10);
+    }
+
+    @Benchmark
+    public List<BookmakerRanking> topBookmakersByMargin(TicketConsumerState state) {
+        return state.ticketConsumer.getTopBookmakersByMargin(10);
+    }
+
+    @Benchmark
+    public List<TicketData> ticketsPage(TicketConsumerState state) {
+        return state.ticketConsumer.getTicketsPage(state.nextTicketId(), TICKETS_PAGE);
+    }
+
+    @Benchmark
+    public CostMetrics calculateCostMetricsFromTickets(TicketConsumerState state) {
+        return state.ticketConsumer.calculateCostMetrics(
+                state.ticketConsumer.getTicketsByBookmaker(state.nextBookmaker()));
+    }
+}
@@ -0,0 +1,97 @@
+package com.ticket.reporting.benchmark;
+
+import com.ticket.reporting.consumer.TicketConsumer;
+import com.ticket.reporting.consumer.TicketDeserializer;
+import com.ticket.reporting.consumer.TicketSnapshots;
+import com.ticket.reporting.model.Ticket;
+import com.ticket.reporting.store.ColumnarTicketStore;
+import com.ticket.reporting.store.StripedTicketStore;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records/sec of TicketConsumer.consumeRecords for polls of POLL_SIZE records spread over a number of partitions,
+ * with one ingest worker per partition and a columnar store with one stripe per partition. The polls update the
+ * tickets of a store of STORE_SIZE tickets and are deserialized up front, as by the Kafka consumer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TicketPartitionIngestBenchmark {
+    private static final int POLL_SIZE = 4000;
+    private static final int POLLS = 64;
+    private static final int STORE_SIZE = 1_000_000;
+    private static final int FILL_BATCH = 10_000;
+    private static final String TOPIC = "tickets";
+
+    @Param({"1", "2", "4", "8"})
+    public int partitions;
+
+    private TicketConsumer ticketConsumer;
+    private List<ConsumerRecords<String, Ticket>> polls;
+    private int nextPoll;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        ticketConsumer = new TicketConsumer(new StripedTicketStore(partitions, ColumnarTicketStore::new),
+                TicketSnapshots.disabled(), partitions);
+        Random random = new Random(42);
+        long time = 1_700_000_000_000L;
+        List<String> ticketIds = new ArrayList<>(STORE_SIZE);
+        for (int from = 0; from < STORE_SIZE; from += FILL_BATCH) {
+            List<String> batch = new ArrayList<>(FILL_BATCH);
+            for (int i = from; i < from + FILL_BATCH; i++) {
+                String ticketId = BenchmarkTickets.ulid(time + i, random);
+                ticketIds.add(ticketId);
+                batch.add(BenchmarkTickets.message(ticketId, random));
+            }
+            ticketConsumer.consumeBatch(batch);
+        }
+        TicketDeserializer deserializer = new TicketDeserializer();
+        polls = new ArrayList<>(POLLS);
+        long offset = 0;
+        for (int poll = 0; poll < POLLS; poll++) {
+            Map<TopicPartition, List<ConsumerRecord<String, Ticket>>> records = new HashMap<>();
+            for (int i = 0; i < POLL_SIZE; i++, offset++) {
+                TopicPartition partition = new TopicPartition(TOPIC, i % partitions);
+                String message = BenchmarkTickets.message(ticketIds.get(random.nextInt(STORE_SIZE)), random);
+                records.computeIfAbsent(partition, key -> new ArrayList<>())
+                        .add(new ConsumerRecord<>(TOPIC, partition.partition(), offset, null,
+                                deserializer.deserialize(TOPIC, message.getBytes(StandardCharsets.UTF_8))));
+            }
+            polls.add(new ConsumerRecords<>(records));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POLL_SIZE)
+    public void consumeRecords() {
+        nextPoll = (nextPoll + 1) % POLLS;
+        ticketConsumer.consumeRecords(polls.get(nextPoll));
+    }
+}
@@ -0,0 +1,101 @@
+package com.ticket.reporting.benchmark;
+
+import com.ticket.reporting.consumer.TicketConsumer;
+import com.ticket.reporting.consumer.TicketSnapshots;
+import com.ticket.reporting.store.ColumnarTicketStore;
+import com.ticket.reporting.store.MapTicketStore;
+import com.ticket.reporting.store.TicketStore;
+import com.ticket.reporting.store.TicketStoreType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time of one snapshot of a store of storeSize synthetic tickets: the copy that pauses ingest, the whole write
+ * including the copy, and the restore on startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class TicketSnapshotBenchmark {
+    private static final int FILL_BATCH = 10_000;
+
+    @Param({"1000000", "10000000"})
+    public int storeSize;
+
+    @Param({"MAP", "COLUMNAR"})
+    public TicketStoreType storeType;
+
+    private Path directory;
+    private TicketSnapshots ticketSnapshots;
+    private TicketConsumer ticketConsumer;
+
+    @Setup(Level.Trial)
+    public void fill() throws IOException {
+        directory = Files.createTempDirectory("ticket-snapshots");
+        ticketSnapshots = new TicketSnapshots(true, directory.toString(), Duration.ofDays(1));
+        ticketConsumer = new TicketConsumer(store(), ticketSnapshots);
+        Random random = new Random(42);
+        for (int loaded = 0; loaded < storeSize; loaded += FILL_BATCH) {
+            ticketConsumer.consumeBatch(BenchmarkTickets.messages(Math.min(FILL_BATCH, storeSize - loaded), random));
+        }
+        ticketConsumer.writeSnapshot().join();
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void awaitSnapshot() {
+        ticketConsumer.awaitSnapshot();
+    }
+
+    @Benchmark
+    public void copyForSnapshot() {
+        ticketConsumer.writeSnapshot();
+    }
+
+    @Benchmark
+    public void writeSnapshot() {
+        ticketConsumer.writeSnapshot().join();
+    }
+
+    @Benchmark
+    public TicketConsumer restoreSnapshot() {
+        TicketConsumer restarted = new TicketConsumer(store(), ticketSnapshots);
+        restarted.restoreSnapshot();
+        return restarted;
+    }
+
+    private TicketStore store() {
+        return storeType == TicketStoreType.MAP ? new MapTicketStore() : new ColumnarTicketStore();
+    }
+}
@@ -0,0 +1,84 @@
+package com.ticket.reporting.benchmark;
+
+import com.ticket.reporting.model.Ticket;
+import com.ticket.reporting.store.ColumnarTicketStore;
+import com.ticket.reporting.store.MapTicketStore;
+import com.ticket.reporting.store.TicketIndex;
+import com.ticket.reporting.store.TicketStore;
+import com.ticket.reporting.store.TicketStoreType;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retained heap of the map and columnar ticket stores, together with the bookmaker and game index the consumer
+ * keeps beside them, after loading storeSize synthetic tickets. The retained bytes per ticket are reported as the
+ * storeBytesPerTicket and indexBytesPerTicket counters, the score is the time of the load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TicketStoreFootprintBenchmark {
+
+    @Param({"1000000"})
+    public int storeSize;
+
+    @Param({"MAP", "COLUMNAR"})
+    public TicketStoreType storeType;
+
+    private long usedBefore;
+
+    @Setup(Level.Invocation)
+    public void collect() {
+        usedBefore = usedHeap();
+    }
+
+    @Benchmark
+    public TicketIndex load(Footprint footprint) {
+        TicketStore ticketStore = storeType == TicketStoreType.MAP ? new MapTicketStore() : new ColumnarTicketStore();
+        TicketIndex ticketIndex = new TicketIndex();
+        Random random = new Random(42);
+        long time = 1_700_000_000_000L;
+        for (int i = 0; i < storeSize; i++) {
+            Ticket ticket = BenchmarkTickets.ticket(time + i, random);
+            ticketIndex.update(ticketStore.put(ticket), ticket);
+        }
+        long stored = usedHeap() - usedBefore;
+        ticketStore = null;
+        long indexed = usedHeap() - usedBefore;
+        footprint.storeBytesPerTicket = (stored - indexed) / storeSize;
+        footprint.indexBytesPerTicket = indexed / storeSize;
+        return ticketIndex;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long storeBytesPerTicket;
+        public long indexBytesPerTicket;
+    }
+}
@@ -1,5 +1,26 @@
 package com.ticket.reporting;
 
+/**
+ * Lifecycle of a ticket: a PLACED ticket is settled once into one of the end states MONETISED, CANCELLED or
+ * REJECTED. Cancelled and rejected tickets carry no turnover and are left out of the CostMetrics. A placed ticket
+ * may be updated any number of times before it settles, tickets carry no version, so the order of the updates of a
+ * ticket is only guaranteed by keying its records by ticket id, which keeps them in one Kafka partition.
+ */
 public enum TicketStatus {
-    PLACED, MONETISED, CANCELLED, REJECTED
+    PLACED, MONETISED, CANCELLED, REJECTED;
+
+    /**
+     * @return boolean - true for the end states, which no later update may change, false while updates of the
+     * ticket, including replays of the same PLACED version, are accepted
+     */
+    public boolean isTerminal() {
+        return this != PLACED;
+    }
+
+    /**
+     * @return boolean - true if tickets in this status count towards turnover and profit or loss
+     */
+    public boolean countsTowardMetrics() {
+        return this == PLACED || this == MONETISED;
+    }
 }
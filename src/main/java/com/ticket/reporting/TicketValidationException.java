@@ -0,0 +1,7 @@
+package com.ticket.reporting;
+
+public class TicketValidationException extends RuntimeException {
+    public TicketValidationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,68 @@
+package com.ticket.reporting.consumer;
+
+/**
+ * Bounded dictionary of repeated string values such as games and currencies, looked up by the characters of the
+ * parser buffer so that a value already seen is returned without allocating a String.
+ * Values are kept in an open addressing table that is never resized: once the probed slots of a value are taken it
+ * is returned as a new String without being interned, so distinct values cannot grow the table.
+ * Safe for concurrent use without locking: a slot is written without synchronization, and a reader either sees the
+ * String, which is immutable and safely published through its final fields, or misses it and creates its own.
+ */
+class StringInterner {
+    private static final int MAX_PROBES = 8;
+
+    private final String[] table;
+    private final int mask;
+
+    /**
+     * @param maxEntries - Upper bound of interned values, rounded up to a power of two
+     */
+    StringInterner(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Invalid number of interned values: " + maxEntries);
+        }
+        table = new String[Integer.highestOneBit(Math.max(1, maxEntries - 1)) << 1];
+        mask = table.length - 1;
+    }
+
+    /**
+     * Returns the interned String of the characters, adding it if there is a free slot
+     *
+     * @param chars - Buffer holding the value
+     * @param offset - Offset of the value in the buffer
+     * @param length - Length of the value
+     * @return String
+     */
+    String intern(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int slot = (hash ^ hash >>> 16) & mask;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            String value = table[slot];
+            if (value == null) {
+                value = new String(chars, offset, length);
+                table[slot] = value;
+                return value;
+            }
+            if (matches(value, chars, offset, length)) {
+                return value;
+            }
+            slot = slot + 1 & mask;
+        }
+        return new String(chars, offset, length);
+    }
+
+    private static boolean matches(String value, char[] chars, int offset, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
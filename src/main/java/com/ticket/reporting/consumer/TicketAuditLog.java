@@ -0,0 +1,147 @@
+package com.ticket.reporting.consumer;
+
+import com.ticket.reporting.TicketStatus;
+import com.ticket.reporting.model.Ticket;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Audit log of stored tickets, written as ticket_id, bookmaker and status lines. Tickets are sampled by ticket id,
+ * so every version of a sampled ticket is audited. Ingest only offers entries to a bounded queue and never waits:
+ * a background thread writes them in batches, and entries that do not fit the queue are dropped and counted.
+ * With a sample rate of 0 no thread is started and recording is a single comparison.
+ */
+@Singleton
+public class TicketAuditLog {
+    private static final int SAMPLE_SPACE = 1 << 16;
+    private static final int MAX_BATCH = 1000;
+    private static final long JOIN_TIMEOUT_MILLIS = 5_000;
+
+    private final int sampleThreshold;
+    private final Consumer<String> sink;
+    private final BlockingQueue<AuditEntry> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    @Inject
+    public TicketAuditLog(@ConfigProperty(name = "ticket.audit.sample-rate", defaultValue = "0") double sampleRate,
+                          @ConfigProperty(name = "ticket.audit.queue-size", defaultValue = "65536") int queueSize) {
+        this(sampleRate, queueSize, Log::info);
+    }
+
+    TicketAuditLog(double sampleRate, int queueSize, Consumer<String> sink) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Audit sample rate must be between 0 and 1: " + sampleRate);
+        }
+        this.sampleThreshold = (int) Math.round(sampleRate * SAMPLE_SPACE);
+        this.sink = sink;
+        if (sampleThreshold == 0) {
+            queue = null;
+            writer = null;
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueSize);
+        writer = new Thread(this::drain, "ticket-audit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static TicketAuditLog disabled() {
+        return new TicketAuditLog(0, 0, line -> {
+        });
+    }
+
+    public boolean isEnabled() {
+        return sampleThreshold > 0;
+    }
+
+    /**
+     * Queues an audit entry for the ticket if its ticket id is sampled
+     *
+     * @param ticket - Ticket that was stored
+     */
+    public void record(Ticket ticket) {
+        if (sampleThreshold == 0 || sample(ticket.getTicketId()) >= sampleThreshold) {
+            return;
+        }
+        if (!queue.offer(new AuditEntry(ticket.getTicketId(), ticket.getBookmaker(), ticket.getStatus()))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stops the writer after it has written the queued entries
+     */
+    @PreDestroy
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(JOIN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        List<AuditEntry> batch = new ArrayList<>(MAX_BATCH);
+        while (running) {
+            try {
+                AuditEntry first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    write(batch);
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        while (queue.drainTo(batch, MAX_BATCH) > 0) {
+            write(batch);
+        }
+        write(batch);
+    }
+
+    private void write(List<AuditEntry> batch) {
+        long droppedEntries = dropped.getAndSet(0);
+        if (batch.isEmpty() && droppedEntries == 0) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder(batch.size() * 64);
+        lines.append("ticket audit entries=").append(batch.size());
+        if (droppedEntries > 0) {
+            lines.append(" dropped=").append(droppedEntries);
+        }
+        for (AuditEntry entry : batch) {
+            lines.append("\nticket_id=").append(entry.ticketId())
+                    .append(" bookmaker=").append(entry.bookmaker())
+                    .append(" status=").append(entry.status());
+        }
+        batch.clear();
+        sink.accept(lines.toString());
+    }
+
+    private static int sample(String ticketId) {
+        int hash = ticketId.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (SAMPLE_SPACE - 1);
+    }
+
+    private record AuditEntry(String ticketId, int bookmaker, TicketStatus status) {
+    }
+}
@@ -1,23 +1,62 @@
 package com.ticket.reporting.consumer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ticket.reporting.TicketProcessingException;
+import com.ticket.reporting.TicketValidationException;
+import com.ticket.reporting.metrics.BookmakerVersions;
+import com.ticket.reporting.metrics.CostAggregates;
+import com.ticket.reporting.metrics.DistributionSketches;
+import com.ticket.reporting.metrics.GameOrder;
+import com.ticket.reporting.metrics.GameTotals;
+import com.ticket.reporting.metrics.IngestMetrics;
+import com.ticket.reporting.metrics.IngestMetrics.Rejection;
+import com.ticket.reporting.metrics.Leaderboards;
+import com.ticket.reporting.metrics.TimeWindow;
+import com.ticket.reporting.metrics.WindowedCostAggregates;
+import com.ticket.reporting.model.BookmakerRanking;
 import com.ticket.reporting.model.CostMetrics;
+import com.ticket.reporting.model.GameRanking;
+import com.ticket.reporting.model.Money;
+import com.ticket.reporting.model.PartialSums;
+import com.ticket.reporting.model.StakeDistribution;
 import com.ticket.reporting.model.Ticket;
 import com.ticket.reporting.model.TicketData;
+import com.ticket.reporting.shard.ShardRouting;
+import com.ticket.reporting.snapshot.SnapshotVisitor;
+import com.ticket.reporting.store.TicketIndex;
+import com.ticket.reporting.store.TicketStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.quarkus.logging.Log;
 import io.quarkus.runtime.Startup;
-import io.restassured.module.jsv.JsonSchemaValidator;
+import io.smallrye.reactive.messaging.annotations.Blocking;
+import io.smallrye.reactive.messaging.kafka.DeserializationFailureHandler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -27,42 +66,587 @@ import java.util.stream.Stream;
 @ApplicationScoped
 @Startup
 public class TicketConsumer {
-    private static final int PLACES_TO_ROUND = 2;
-    private static final String JSON_SCHEMA_NAME = "ticket.v1.json";
-    private final Map<String, Ticket> ticketStore = new ConcurrentHashMap<>();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    static final String JSON_SCHEMA_NAME = "ticket.v1.json";
+    private static final int WRITE_LOCK_STRIPES = 64;
+    // Fewer bookmakers are answered on the calling thread, splitting them costs more than reading their totals
+    private static final int PARALLEL_BOOKMAKERS = 64;
+    private final TicketStore ticketStore;
+    private final TicketIndex ticketIndex = new TicketIndex();
+    private final CostAggregates costAggregates = new CostAggregates();
+    // Totals of the settled tickets evicted from the store per partition, which the running totals still include
+    private final Map<Integer, CostAggregates> compactedAggregates = new ConcurrentHashMap<>();
+    private final WindowedCostAggregates windowedAggregates = new WindowedCostAggregates();
+    private final Leaderboards leaderboards = new Leaderboards();
+    private final DistributionSketches distributionSketches = new DistributionSketches();
+    private final BookmakerVersions bookmakerVersions = new BookmakerVersions();
+    private final TicketParser ticketParser = new TicketParser(JSON_SCHEMA_NAME);
+    private final TicketSnapshots ticketSnapshots;
+    private final Map<TopicPartition, Long> nextOffsets = new ConcurrentHashMap<>();
+    // Partitions revoked from this node, whose records still queued from earlier polls are skipped
+    private final Set<TopicPartition> revokedPartitions = ConcurrentHashMap.newKeySet();
+    // Serialises the batches with the revocation of partitions, which the rebalance listener runs on the poll thread
+    private final Object ingestLock = new Object();
+    // Serialises the versions of one ticket id that reach the store from different workers
+    private final Object[] writeLocks = new Object[WRITE_LOCK_STRIPES];
+    private final ExecutorService ingestWorkers;
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(TicketConsumer::snapshotThread);
+    private volatile CompletableFuture<Void> pendingSnapshot = CompletableFuture.completedFuture(null);
+    private final IngestMetrics ingestMetrics;
+    private final TicketDeadLetters deadLetters;
+    private final TicketAuditLog auditLog;
+    private final TicketRetention retention;
+    private final ShardRouting shardRouting;
+
+    public TicketConsumer(TicketStore ticketStore) {
+        this(ticketStore, TicketSnapshots.disabled());
+    }
+
+    public TicketConsumer(TicketStore ticketStore, TicketSnapshots ticketSnapshots) {
+        this(ticketStore, ticketSnapshots, 1);
+    }
+
+    public TicketConsumer(TicketStore ticketStore, TicketSnapshots ticketSnapshots, int workers) {
+        this(ticketStore, ticketSnapshots, workers, new IngestMetrics(new SimpleMeterRegistry()),
+                TicketDeadLetters.disabled(), TicketAuditLog.disabled());
+    }
+
+    public TicketConsumer(TicketStore ticketStore, TicketSnapshots ticketSnapshots, int workers,
+                          IngestMetrics ingestMetrics, TicketDeadLetters deadLetters, TicketAuditLog auditLog) {
+        this(ticketStore, ticketSnapshots, workers, ingestMetrics, deadLetters, auditLog, TicketRetention.disabled());
+    }
+
+    public TicketConsumer(TicketStore ticketStore, TicketSnapshots ticketSnapshots, int workers,
+                          IngestMetrics ingestMetrics, TicketDeadLetters deadLetters, TicketAuditLog auditLog,
+                          TicketRetention retention) {
+        this(ticketStore, ticketSnapshots, workers, ingestMetrics, deadLetters, auditLog, retention,
+                ShardRouting.single());
+    }
+
+    @Inject
+    public TicketConsumer(TicketStore ticketStore, TicketSnapshots ticketSnapshots,
+                          @ConfigProperty(name = "ticket.ingest.workers", defaultValue = "1") int workers,
+                          IngestMetrics ingestMetrics, TicketDeadLetters deadLetters, TicketAuditLog auditLog,
+                          TicketRetention retention, ShardRouting shardRouting) {
+        this.ticketStore = ticketStore;
+        this.ticketSnapshots = ticketSnapshots;
+        this.ingestMetrics = ingestMetrics;
+        this.deadLetters = deadLetters;
+        this.auditLog = auditLog;
+        this.retention = retention;
+        this.shardRouting = shardRouting;
+        ingestMetrics.gauge("tickets.store.size", "Tickets held by the ticket store", ticketStore::size);
+        ingestMetrics.gauge("tickets.index.size", "Ticket ids held by the bookmaker and game index",
+                ticketIndex::size);
+        this.ingestWorkers = workers > 1 ? Executors.newFixedThreadPool(workers, TicketConsumer::ingestThread) : null;
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new Object();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (ingestWorkers != null) {
+            ingestWorkers.shutdown();
+        }
+        // Lets a snapshot being written finish, so the latest copy is not lost
+        snapshotWriter.shutdown();
+        awaitSnapshot();
+    }
+
+    /**
+     * Loads the latest snapshot on startup, so that only the tail of the topic after its offsets is replayed.
+     */
+    @PostConstruct
+    public void restoreSnapshot() {
+        long start = System.nanoTime();
+        try {
+            if (ticketSnapshots.load(new SnapshotRestore())) {
+                Log.infof("Restored %d tickets from snapshot in %d ms, resuming at %s", ticketStore.size(),
+                        (System.nanoTime() - start) / 1_000_000, nextOffsets);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load ticket snapshot", e);
+        }
+    }
 
     /**
-     * Consumes messages from the Kafka topic and updates the ticket store.
+     * Consumes messages from the Kafka topic and updates the ticket store. Messages that are not valid tickets are
+     * sent to the dead letter channel.
      *
      * @param message - message received from the Kafka topic
      */
-    @Incoming("tickets")
     public void consume(String message) {
-        try {
-            Log.info("ticketJson: " + message);
-            if (incomingMessageValid(message)) {
-                Ticket ticket = objectMapper.readValue(message, Ticket.class);
-                Log.info("ticketJson: " + message);
-                if (ticket != null) {
-                    ticket.setProcessed(true);
-                    ticketStore.put(ticket.getTicketId(), ticket);
-                    Log.info("ticketsData: " + ticketStore);
+        Ticket ticket = parse(message, null);
+        if (ticket != null) {
+            store(ticket, TicketRetention.NO_PARTITION, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Consumes a batch of messages and applies them to the ticket store in one step.
+     *
+     * @param messages - messages received from the Kafka topic
+     */
+    public void consumeBatch(List<String> messages) {
+        List<Ticket> tickets = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            Ticket ticket = parse(message, null);
+            if (ticket != null) {
+                tickets.add(ticket);
+            }
+        }
+        long now = System.currentTimeMillis();
+        int stored = 0;
+        for (Ticket ticket : tickets) {
+            if (store(ticket, TicketRetention.NO_PARTITION, now)) {
+                stored++;
+            }
+        }
+        Log.debugf("Stored %d of %d tickets received", stored, messages.size());
+    }
+
+    /**
+     * Consumes a batch of records like consumeBatch, sending records that could not be deserialized to the dead
+     * letter channel together with their topic, partition and offset. Tombstones, the deletes of a ticket id on the
+     * compacted topic, are counted and skipped, as the running totals keep the tickets compaction removes. Tickets
+     * are placed in the time windows by their record timestamp.
+     *
+     * @param records - records received from the Kafka topic, deserialized by TicketDeserializer
+     */
+    private void consumeRecordBatch(List<ConsumerRecord<String, Ticket>> records) {
+        List<Ticket> tickets = new ArrayList<>(records.size());
+        long[] timestamps = new long[records.size()];
+        int[] partitions = new int[records.size()];
+        long now = System.currentTimeMillis();
+        for (ConsumerRecord<String, Ticket> record : records) {
+            Ticket ticket = record.value();
+            if (ticket == null && isTombstone(record)) {
+                ingestMetrics.tombstone();
+            } else if (ticket == null) {
+                rejectUndeserialized(record);
+            } else {
+                timestamps[tickets.size()] = record.timestamp() >= 0 ? record.timestamp() : now;
+                partitions[tickets.size()] = record.partition();
+                tickets.add(ticket);
+            }
+        }
+        int stored = 0;
+        for (int i = 0; i < tickets.size(); i++) {
+            if (store(tickets.get(i), partitions[i], timestamps[i])) {
+                stored++;
+            }
+        }
+        Log.debugf("Stored %d of %d tickets received", stored, records.size());
+    }
+
+    /**
+     * Consumes all records of one poll from the Kafka topic and applies them to the ticket store in one step.
+     * With more than one ingest worker each partition of the poll is applied on its own worker, in offset order.
+     * The batch is acknowledged, and its offsets committed, once all of its tickets are stored. A snapshot is
+     * copied between batches when one is due, so that it matches the offsets it records, and written while the
+     * following batches are consumed. Records of partitions revoked since they were polled are skipped.
+     *
+     * @param records - records received from the Kafka topic in one poll
+     */
+    @Incoming("tickets")
+    @Blocking
+    public void consumeRecords(ConsumerRecords<String, Ticket> records) {
+        synchronized (ingestLock) {
+            long start = System.nanoTime();
+            if (!revokedPartitions.isEmpty()) {
+                records = withoutRevoked(records);
+            }
+            if (ingestWorkers != null && records.partitions().size() > 1) {
+                consumePartitions(records);
+            } else {
+                List<ConsumerRecord<String, Ticket>> all = new ArrayList<>(records.count());
+                records.forEach(all::add);
+                consumeRecordBatch(all);
+            }
+            for (TopicPartition partition : records.partitions()) {
+                List<ConsumerRecord<String, Ticket>> partitionRecords = records.records(partition);
+                nextOffsets.put(partition, partitionRecords.get(partitionRecords.size() - 1).offset() + 1);
+            }
+            ingestMetrics.polled(System.nanoTime() - start);
+            if (retention.isDue()) {
+                evictSettled();
+            }
+            if (ticketSnapshots.isDue() && pendingSnapshot.isDone()) {
+                writeSnapshot();
+            }
+        }
+    }
+
+    private ConsumerRecords<String, Ticket> withoutRevoked(ConsumerRecords<String, Ticket> records) {
+        Map<TopicPartition, List<ConsumerRecord<String, Ticket>>> assigned = new HashMap<>();
+        for (TopicPartition partition : records.partitions()) {
+            if (!revokedPartitions.contains(partition)) {
+                assigned.put(partition, records.records(partition));
+            }
+        }
+        return new ConsumerRecords<>(assigned);
+    }
+
+    /**
+     * Stops storing the records of partitions revoked from this node, waiting for the batch being stored. Records
+     * of the partitions polled before are skipped until they are assigned again.
+     *
+     * @param partitions - Partitions revoked from this node
+     */
+    public void revoke(Collection<TopicPartition> partitions) {
+        synchronized (ingestLock) {
+            revokedPartitions.addAll(partitions);
+        }
+    }
+
+    /**
+     * Resumes the partitions assigned to this node and drops the revoked partitions that were not assigned again,
+     * which the node they moved to replays. A rebalance revokes all partitions before assigning them anew unless
+     * partitions are assigned cooperatively, so a partition that stays on this node keeps its tickets.
+     *
+     * @param partitions - Partitions assigned to this node, only the newly assigned ones when assigned cooperatively
+     */
+    public void assign(Collection<TopicPartition> partitions) {
+        synchronized (ingestLock) {
+            revokedPartitions.removeAll(partitions);
+            revokedPartitions.forEach(this::drop);
+        }
+    }
+
+    /**
+     * Drops everything this node holds of a partition, so that the node it moved to replays it without its tickets
+     * being counted twice: its tickets, their contribution to the running totals and leaderboards, the totals of its
+     * evicted tickets, its window buckets, its retention state and its offset
+     *
+     * @param topicPartition - Partition no longer consumed by this node
+     */
+    private void drop(TopicPartition topicPartition) {
+        if (nextOffsets.remove(topicPartition) == null) {
+            return;
+        }
+        int partition = topicPartition.partition();
+        List<Ticket> tickets = ticketStore.tickets().filter(ticket -> ticket.getPartition() == partition).toList();
+        for (Ticket ticket : tickets) {
+            synchronized (writeLocks[Math.floorMod(ticket.getTicketId().hashCode(), writeLocks.length)]) {
+                if (ticketStore.remove(ticket.getTicketId()) != null) {
+                    drop(ticket);
+                }
+            }
+        }
+        CostAggregates compacted = compactedAggregates.remove(partition);
+        if (compacted != null) {
+            costAggregates.subtract(compacted);
+            leaderboards.subtract(compacted);
+            compacted.forEach((bookmakerId, game, count, stakeSum, returnSum) -> bookmakerVersions.bump(bookmakerId));
+        }
+        windowedAggregates.removePartition(partition);
+        retention.revoke(partition);
+        Log.infof("Dropped %d tickets of partition %s", tickets.size(), topicPartition);
+    }
+
+    /**
+     * Applies the records of each partition on an ingest worker and waits until all partitions are stored
+     *
+     * @param records - records received from the Kafka topic in one poll
+     */
+    private void consumePartitions(ConsumerRecords<String, Ticket> records) {
+        List<Future<?>> partitions = new ArrayList<>(records.partitions().size());
+        for (TopicPartition partition : records.partitions()) {
+            List<ConsumerRecord<String, Ticket>> partitionRecords = records.records(partition);
+            partitions.add(ingestWorkers.submit(() -> consumeRecordBatch(partitionRecords)));
+        }
+        RuntimeException failure = null;
+        for (Future<?> partition : partitions) {
+            try {
+                partition.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause
+                            ? cause : new TicketProcessingException(e.getCause().getMessage());
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TicketProcessingException("Interrupted while storing tickets");
             }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static Thread ingestThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "ticket-ingest");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static Thread snapshotThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "ticket-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Retrieves the offset after the last record of the partition held by the ticket store
+     *
+     * @param partition - Partition of the tickets topic
+     * @return Long - null if the ticket store holds no records of the partition
+     */
+    public Long getNextOffset(TopicPartition partition) {
+        return nextOffsets.get(partition);
+    }
+
+    /**
+     * Copies the ticket store and running totals with the offsets they cover, and writes the copy as a snapshot on
+     * the snapshot thread. Called between batches, while no ticket is being stored, so the copy matches the offsets.
+     *
+     * @return CompletableFuture<Void> - Completes once the snapshot is written or could not be written
+     */
+    public CompletableFuture<Void> writeSnapshot() {
+        long start = System.nanoTime();
+        Map<TopicPartition, Long> offsets = Map.copyOf(nextOffsets);
+        Stream<Ticket> tickets = ticketStore.copyTickets();
+        CostAggregates totals = costAggregates.copy();
+        Map<Integer, CostAggregates> compacted = new HashMap<>();
+        compactedAggregates.forEach((partition, aggregates) -> compacted.put(partition, aggregates.copy()));
+        WindowedCostAggregates windows = windowedAggregates.copy();
+        Map<Integer, String> watermarks = retention.watermarks();
+        Map<Integer, List<String>> evicted = retention.evicted();
+        int size = ticketStore.size();
+        long copied = System.nanoTime();
+        Log.debugf("Copied %d tickets for snapshot in %d ms", size, (copied - start) / 1_000_000);
+        pendingSnapshot = CompletableFuture.runAsync(() -> {
+            try {
+                ticketSnapshots.write(offsets, watermarks, evicted, tickets, totals, compacted, windows);
+                Log.infof("Wrote snapshot of %d tickets in %d ms, ingest paused %d ms for the copy", size,
+                        (System.nanoTime() - start) / 1_000_000, (copied - start) / 1_000_000);
+            } catch (IOException e) {
+                Log.warn("Could not write ticket snapshot: " + e.getMessage());
+            }
+        }, snapshotWriter);
+        return pendingSnapshot;
+    }
+
+    /**
+     * Waits until the snapshot being written, if any, is written
+     */
+    public void awaitSnapshot() {
+        pendingSnapshot.join();
+    }
+
+    /**
+     * Evicts the settled tickets retention no longer keeps from the ticket store and its index. Their contribution
+     * stays in the running totals and is kept apart as compacted totals for calculateCostMetrics.
+     *
+     * @return long - Number of tickets evicted
+     */
+    public long evictSettled() {
+        long start = System.nanoTime();
+        long evicted = retention.evict(System.currentTimeMillis(), this::evict);
+        if (evicted > 0) {
+            Log.infof("Evicted %d settled tickets in %d ms, %d tickets stored", evicted,
+                    (System.nanoTime() - start) / 1_000_000, ticketStore.size());
+        }
+        return evicted;
+    }
+
+    private boolean evict(String ticketId) {
+        synchronized (writeLocks[Math.floorMod(ticketId.hashCode(), writeLocks.length)]) {
+            Ticket ticket = ticketStore.remove(ticketId);
+            if (ticket == null) {
+                return false;
+            }
+            ticketIndex.remove(ticket);
+            compactedAggregates.computeIfAbsent(ticket.getPartition(), partition -> new CostAggregates())
+                    .update(null, ticket);
+            ingestMetrics.evicted();
+            return true;
+        }
+    }
+
+    /**
+     * Method to parse and validate an incoming message against the JSON Schema. Messages that cannot be parsed or
+     * do not match the JSON Schema are counted and sent to the dead letter channel.
+     *
+     * @param message - Incoming message
+     * @param record - Record the message was received in, null if it was not received from Kafka
+     * @return Ticket - null if the message is not a valid ticket
+     */
+    private Ticket parse(String message, ConsumerRecord<String, ?> record) {
+        long start = System.nanoTime();
+        try {
+            return ticketParser.parse(message);
+        } catch (TicketValidationException e) {
+            reject(message, Rejection.SCHEMA, e.getMessage(), record);
+            return null;
         } catch (RuntimeException | IOException e) {
-            Log.info("Exception occurred while processing: " + e.getMessage());
-            throw new TicketProcessingException(e.getMessage());
+            reject(message, Rejection.MALFORMED, e.getMessage(), record);
+            return null;
+        } finally {
+            ingestMetrics.parsed(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Rejects a record TicketDeserializer could not deserialize, recovering the message, the rejection reason and
+     * its cause from the headers the deserializer and the connector added to the record
+     *
+     * @param record - Record without a value
+     */
+    private void rejectUndeserialized(ConsumerRecord<String, Ticket> record) {
+        Rejection reason = Rejection.of(header(record, TicketDeadLetters.REASON));
+        String cause = header(record, DeserializationFailureHandler.DESERIALIZATION_FAILURE_REASON);
+        reject(header(record, DeserializationFailureHandler.DESERIALIZATION_FAILURE_DATA),
+                reason == null ? Rejection.MALFORMED : reason, cause == null ? "Record has no value" : cause, record);
+    }
+
+    /**
+     * @param record - Record without a value
+     * @return boolean - true if the record was sent without a value, rather than failing to deserialize, which
+     * leaves the headers of TicketDeserializer or of the connector
+     */
+    private static boolean isTombstone(ConsumerRecord<String, Ticket> record) {
+        return record.headers().lastHeader(TicketDeadLetters.REASON) == null
+                && record.headers().lastHeader(DeserializationFailureHandler.DESERIALIZATION_FAILURE_REASON) == null;
+    }
+
+    private static String header(ConsumerRecord<String, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    private void reject(String message, Rejection reason, String cause, ConsumerRecord<String, ?> record) {
+        ingestMetrics.rejected(reason);
+        Log.debugf("Dead lettering %s message: %s", reason.tag(), cause);
+        deadLetters.send(message, reason, cause, record);
+    }
+
+    /**
+     * Method to upsert a ticket into the ticket store, its index and the running totals. Updates of a settled
+     * ticket are stale or illegal transitions and are dropped, so that only the delta of each legal transition
+     * reaches the running totals, as are tickets in the range retention already evicted of their partition. Updates
+     * of a placed ticket are applied in the order they arrive; per-key ordering of the tickets topic is the only
+     * guard against a stale one. Tickets of bookmakers owned by another shard are skipped, and a stored version of a
+     * ticket an update moved to such a bookmaker is dropped, as that shard counts it from now on. Stored tickets are
+     * passed to the audit log.
+     *
+     * @param ticket - Ticket to be stored
+     * @param partition - Partition the ticket was received from, NO_PARTITION if it was not received from Kafka
+     * @param timestamp - Epoch millis of the record the ticket was received in
+     * @return boolean - false if the update was dropped
+     */
+    private boolean store(Ticket ticket, int partition, long timestamp) {
+        if (!shardRouting.owns(ticket.getBookmaker())) {
+            ingestMetrics.skipped();
+            dropMoved(ticket, timestamp);
+            return false;
+        }
+        synchronized (writeLocks[Math.floorMod(ticket.getTicketId().hashCode(), writeLocks.length)]) {
+            Ticket previous = ticketStore.get(ticket.getTicketId());
+            if (previous != null && previous.getStatus().isTerminal()) {
+                ingestMetrics.rejected(Rejection.TRANSITION);
+                Log.debugf("Dropped %s update of %s ticket %s", ticket.getStatus(), previous.getStatus(),
+                        ticket.getTicketId());
+                return false;
+            }
+            if (previous == null && retention.isExpired(ticket.getTicketId(), partition)) {
+                ingestMetrics.rejected(Rejection.EXPIRED);
+                Log.debugf("Dropped %s update of expired ticket %s", ticket.getStatus(), ticket.getTicketId());
+                return false;
+            }
+            ticket.setProcessed(true);
+            ticket.setPartition(partition);
+            ticketStore.put(ticket);
+            ticketIndex.update(previous, ticket);
+            costAggregates.update(previous, ticket);
+            windowedAggregates.update(previous, ticket, timestamp);
+            leaderboards.update(previous, ticket);
+            distributionSketches.update(previous, ticket);
+            bumpVersions(previous, ticket);
+            retention.stored(ticket, partition);
+            ingestMetrics.stored();
+        }
+        auditLog.record(ticket);
+        return true;
+    }
+
+    /**
+     * Drops the stored version of a ticket whose update moved it to a bookmaker owned by another shard. A settled
+     * version is kept, as the update is an illegal transition.
+     *
+     * @param ticket - Update of the ticket
+     * @param timestamp - Epoch millis of the record the update was received in
+     */
+    private void dropMoved(Ticket ticket, long timestamp) {
+        synchronized (writeLocks[Math.floorMod(ticket.getTicketId().hashCode(), writeLocks.length)]) {
+            Ticket previous = ticketStore.get(ticket.getTicketId());
+            if (previous == null || previous.getStatus().isTerminal()) {
+                return;
+            }
+            ticketStore.remove(previous.getTicketId());
+            windowedAggregates.remove(previous, timestamp);
+            drop(previous);
+            Log.debugf("Dropped ticket %s moved to bookmaker %d of another shard", ticket.getTicketId(),
+                    ticket.getBookmaker());
         }
     }
 
+    /**
+     * Removes a ticket just removed from the ticket store from its index, the running totals, the leaderboards and
+     * the distribution sketches, called under the write lock of the ticket
+     *
+     * @param ticket - Removed ticket
+     */
+    private void drop(Ticket ticket) {
+        ticketIndex.remove(ticket);
+        costAggregates.remove(ticket);
+        leaderboards.remove(ticket);
+        distributionSketches.remove(ticket);
+        bookmakerVersions.bump(ticket.getBookmaker());
+    }
+
+    private void bumpVersions(Ticket previous, Ticket current) {
+        bookmakerVersions.bump(current.getBookmaker());
+        if (previous != null && !previous.getBookmaker().equals(current.getBookmaker())) {
+            bookmakerVersions.bump(previous.getBookmaker());
+        }
+    }
+
+    /**
+     * Method to put a ticket restored from a snapshot into the ticket store and its index, the running totals are
+     * restored separately. The distribution sketches are not part of the snapshot and are rebuilt from the restored
+     * tickets, so they leave out the tickets evicted before it was written. Retention tracks the ticket under the
+     * partition it was received from.
+     *
+     * @param ticket - Ticket to be restored
+     */
+    private void restore(Ticket ticket) {
+        Ticket previous = ticketStore.put(ticket);
+        ticketIndex.update(previous, ticket);
+        distributionSketches.update(previous, ticket);
+        bumpVersions(previous, ticket);
+        retention.stored(ticket, ticket.getPartition());
+    }
+
     /**
      * Retrieves all tickets from the ticketStore
      *
      * @return List<TicketData> - List of all tickets in the store
      */
     public List<TicketData> getTickets() {
-        return ticketStore.values().stream()
+        return ticketStore.tickets()
+                .map(TicketConsumer::createTicketData).toList();
+    }
+
+    /**
+     * Retrieves one page of tickets from the ticketStore ordered by ticket id
+     *
+     * @param afterTicketId - Cursor, only tickets with a greater ticket id are returned, null for the first page
+     * @param limit - Maximum number of tickets returned
+     * @return List<TicketData> - Page of tickets
+     */
+    public List<TicketData> getTicketsPage(String afterTicketId, int limit) {
+        return ticketStore.page(afterTicketId, limit).stream()
                 .map(TicketConsumer::createTicketData).toList();
     }
 
@@ -73,37 +657,213 @@ public class TicketConsumer {
      * @return List<TicketData> - List of all tickets filtered by bookmakerId
      */
     public List<TicketData> getTicketsByBookmaker(int bookmakerId) {
-        return ticketStore.values().stream()
-                .filter(ticket -> bookmakerId == ticket.getBookmaker())
+        return ticketIndex.getTicketIds(bookmakerId)
+                .map(ticketStore::get)
+                .filter(ticket -> ticket != null && bookmakerId == ticket.getBookmaker())
                 .map(TicketConsumer::createTicketData)
                 .toList();
     }
 
     /**
-     * Retrieves the CostMetrics for a specific bookmakerId grouped by Product
+     * Retrieves the CostMetrics for a specific bookmakerId from the running totals
+     *
+     * @param bookmakerId - Bookmaker Id based on which the CostMetrics have to be retrieved
+     * @return CostMetrics
+     */
+    public CostMetrics getCostMetricsByBookmaker(int bookmakerId) {
+        return costAggregates.getCostMetrics(bookmakerId);
+    }
+
+    /**
+     * Retrieves the CostMetrics for a specific bookmakerId grouped by Product from the running totals
      *
      * @param bookmakerId - Bookmaker Id based on which ticket data has to be retrieved
      * @return Map<String, CostMetrics> - List of all tickets filtered by bookmakerId and grouped by Product
      */
     public Map<String, CostMetrics> getTicketsByBookmakerIdGroupedByGame(int bookmakerId) {
-        return getTicketsByBookmaker(bookmakerId).stream()
-                .collect(Collectors.groupingBy(ticketData -> ticketData.ticket().getGame(),
-                        Collectors.collectingAndThen(Collectors.toList(), this::calculateCostMetrics)));
+        return costAggregates.getCostMetricsByGame(bookmakerId);
+    }
+
+    /**
+     * Retrieves the CostMetrics grouped by Product of several bookmakers from the running totals. Large sets of
+     * bookmakers are split across the cores of the common fork-join pool.
+     *
+     * @param bookmakerIds - Bookmaker Ids for which the CostMetrics are calculated
+     * @param game - Game the CostMetrics are limited to, null for all games
+     * @return Map<Integer, Map<String, CostMetrics>> - CostMetrics by game of each bookmaker, sorted by bookmaker
+     */
+    public Map<Integer, Map<String, CostMetrics>> getTicketsByBookmakerIdsGroupedByGame(
+            Collection<Integer> bookmakerIds, String game) {
+        Stream<Integer> ids = bookmakerIds.stream();
+        if (bookmakerIds.size() >= PARALLEL_BOOKMAKERS) {
+            ids = ids.parallel();
+        }
+        return ids.collect(Collectors.toMap(Function.identity(),
+                bookmakerId -> costAggregates.getCostMetricsByGame(bookmakerId, game), (first, second) -> first,
+                TreeMap::new));
+    }
+
+    /**
+     * Retrieves the CostMetrics of a bookmaker from the running totals alongside the distribution of its stakes and
+     * returns over all games, from the sketches kept up to date on ingest
+     *
+     * @param bookmakerId - Bookmaker Id for which the distribution is retrieved
+     * @return StakeDistribution
+     */
+    public StakeDistribution getDistributionByBookmaker(int bookmakerId) {
+        return distributionSketches.getDistribution(bookmakerId, costAggregates.getCostMetrics(bookmakerId));
+    }
+
+    /**
+     * Retrieves the CostMetrics of a bookmaker grouped by Product from the running totals alongside the
+     * distribution of the stakes and returns of each game
+     *
+     * @param bookmakerId - Bookmaker Id for which the distributions are retrieved
+     * @return Map<String, StakeDistribution> - Distribution by game, sorted by game
+     */
+    public Map<String, StakeDistribution> getDistributionsByBookmakerIdGroupedByGame(int bookmakerId) {
+        Map<String, StakeDistribution> distributionsByGame = new TreeMap<>();
+        costAggregates.getCostMetricsByGame(bookmakerId).forEach((game, costMetrics) ->
+                distributionsByGame.put(game, distributionSketches.getDistribution(bookmakerId, game, costMetrics)));
+        return distributionsByGame;
+    }
+
+    /**
+     * Retrieves the exact sums of the tickets of a bookmaker held by this node from the running totals
+     *
+     * @param bookmakerId - Bookmaker Id based on which the sums have to be retrieved
+     * @return PartialSums
+     */
+    public PartialSums getPartialSums(int bookmakerId) {
+        return costAggregates.getPartialSums(bookmakerId);
     }
 
     /**
-     * Calculates the Cost Metrics like turnover, profit Or Loss and Margin for the tickets
+     * Retrieves the exact sums of the tickets of a bookmaker held by this node by game from the running totals
+     *
+     * @param bookmakerId - Bookmaker Id based on which the sums have to be retrieved
+     * @return Map<String, PartialSums> - Sums by game
+     */
+    public Map<String, PartialSums> getPartialSumsByGame(int bookmakerId) {
+        return costAggregates.getPartialSumsByGame(bookmakerId);
+    }
+
+    /**
+     * Retrieves the exact sums by game of several bookmakers held by this node from the running totals. Bookmakers
+     * without tickets of the game are left out.
+     *
+     * @param bookmakerIds - Bookmaker Ids based on which the sums have to be retrieved
+     * @param game - Game the sums are limited to, null for all games
+     * @return Map<Integer, Map<String, PartialSums>> - Sums by game of each bookmaker, sorted by bookmaker
+     */
+    public Map<Integer, Map<String, PartialSums>> getPartialSumsByGame(Collection<Integer> bookmakerIds,
+                                                                       String game) {
+        Map<Integer, Map<String, PartialSums>> partialSums = new TreeMap<>();
+        for (int bookmakerId : bookmakerIds) {
+            Map<String, PartialSums> partialSumsByGame = costAggregates.getPartialSumsByGame(bookmakerId, game);
+            if (!partialSumsByGame.isEmpty()) {
+                partialSums.put(bookmakerId, partialSumsByGame);
+            }
+        }
+        return partialSums;
+    }
+
+    /**
+     * Retrieves the first games of a bookmaker from the leaderboards kept up to date on ingest
+     *
+     * @param bookmakerId - Bookmaker Id whose games are ranked
+     * @param order - Highest turnover or largest loss first
+     * @param limit - Maximum number of games returned
+     * @return List<GameRanking> - Games with their CostMetrics, in the order of the leaderboard
+     */
+    public List<GameRanking> getTopGames(int bookmakerId, GameOrder order, int limit) {
+        return leaderboards.getTopGames(bookmakerId, order, limit);
+    }
+
+    /**
+     * Retrieves the bookmakers with the highest margin from the leaderboard kept up to date on ingest
+     *
+     * @param limit - Maximum number of bookmakers returned
+     * @return List<BookmakerRanking> - Bookmakers with their CostMetrics, highest margin first
+     */
+    public List<BookmakerRanking> getTopBookmakersByMargin(int limit) {
+        return leaderboards.getTopBookmakersByMargin(limit);
+    }
+
+    /**
+     * Retrieves the version of the tickets of a bookmaker, which changes whenever one of its tickets is stored
+     *
+     * @param bookmakerId - Bookmaker Id
+     * @return long - Version, 0 if no ticket of the bookmaker was stored
+     */
+    public long getBookmakerVersion(int bookmakerId) {
+        return bookmakerVersions.get(bookmakerId);
+    }
+
+    /**
+     * Retrieves the CostMetrics for a specific bookmakerId within a rolling window ending now
+     *
+     * @param bookmakerId - Bookmaker Id based on which the CostMetrics have to be retrieved
+     * @param window - Rolling window
+     * @return CostMetrics - Change of turnover and profit or loss made by the records of the window
+     */
+    public CostMetrics getCostMetricsByBookmaker(int bookmakerId, TimeWindow window) {
+        return windowedAggregates.getCostMetrics(bookmakerId, window, System.currentTimeMillis());
+    }
+
+    /**
+     * Retrieves the CostMetrics for a specific bookmakerId grouped by Product within a rolling window ending now
+     *
+     * @param bookmakerId - Bookmaker Id based on which the CostMetrics have to be retrieved
+     * @param window - Rolling window
+     * @return Map<String, CostMetrics> - CostMetrics by game of the records of the window
+     */
+    public Map<String, CostMetrics> getTicketsByBookmakerIdGroupedByGame(int bookmakerId, TimeWindow window) {
+        return windowedAggregates.getCostMetricsByGame(bookmakerId, window, System.currentTimeMillis());
+    }
+
+    /**
+     * Calculates the Cost Metrics of a bookmaker from its stored tickets and the compacted totals of its evicted
+     * tickets, independently of the running totals
+     *
+     * @param bookmakerId - Bookmaker Id for which the CostMetrics are calculated
+     * @return CostMetrics
+     */
+    public CostMetrics calculateCostMetrics(int bookmakerId) {
+        GameTotals totals = new GameTotals();
+        compactedAggregates.values().forEach(compacted -> compacted.addTo(bookmakerId, totals));
+        for (TicketData ticketData : getTicketsByBookmaker(bookmakerId)) {
+            if (ticketData.ticket().getStatus().countsTowardMetrics()) {
+                totals.add(ticketData.ticket());
+            }
+        }
+        return totals.toCostMetrics();
+    }
+
+    /**
+     * Calculates the Cost Metrics like turnover, profit Or Loss and Margin for the tickets, leaving out cancelled
+     * and rejected tickets like the running totals do. Only the given tickets are covered, tickets evicted by
+     * retention are included by calculateCostMetrics(bookmakerId)
      *
      * @param ticketsData - Ticket Data for which the CostMetrics needs to be calculated
      * @return CostMetrics
      */
     public CostMetrics calculateCostMetrics(List<TicketData> ticketsData) {
-        List<Ticket> tickets = ticketsData.stream().flatMap(ticketData -> Stream.of(ticketData.ticket())).toList();
-        double turnover = roundValue(tickets.stream().mapToDouble(Ticket::getStake).sum());
-        double profitOrLoss =
-                roundValue(tickets.stream().mapToDouble(ticket -> ticket.getTotalReturn() - ticket.getStake()).sum());
-        double margin = (turnover > 0 && profitOrLoss != 0) ? roundValue(profitOrLoss / turnover * 100) : 0;
-        return new CostMetrics(ticketsData.size(), turnover, profitOrLoss, margin);
+        int count = 0;
+        long stakeSum = 0;
+        long returnSum = 0;
+        for (TicketData ticketData : ticketsData) {
+            Ticket ticket = ticketData.ticket();
+            if (!ticket.getStatus().countsTowardMetrics()) {
+                continue;
+            }
+            count++;
+            stakeSum += ticket.getStakeUnits();
+            if (ticket.getTotalReturnUnits() != Money.ABSENT) {
+                returnSum += ticket.getTotalReturnUnits();
+            }
+        }
+        return CostMetrics.of(count, stakeSum, returnSum);
     }
 
     /**
@@ -116,27 +876,45 @@ public class TicketConsumer {
         return new TicketData(ticket.getTicketId(), ticket);
     }
 
-    /**
-     * Method to validate incoming message against JSON Schema
-     *
-     * @param message - Incoming message
-     * @return boolean
-     */
-    private boolean incomingMessageValid(String message) throws IOException {
-        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(JSON_SCHEMA_NAME)) {
-            return inputStream != null && JsonSchemaValidator.matchesJsonSchema(inputStream).matches(message);
+    private class SnapshotRestore implements SnapshotVisitor {
+        @Override
+        public void offset(TopicPartition partition, long nextOffset) {
+            nextOffsets.put(partition, nextOffset);
         }
-    }
 
-    /**
-     * Method to round values to 2 decimal places
-     *
-     * @param costParam - Value to be rounded to 2 decimal places
-     * @return double
-     */
-    private static double roundValue(double costParam) {
-        BigDecimal value = new BigDecimal(Double.toString(costParam));
-        value = value.setScale(PLACES_TO_ROUND, RoundingMode.HALF_UP);
-        return value.doubleValue();
+        @Override
+        public void watermark(int partition, String ticketId) {
+            retention.restoreWatermark(partition, ticketId);
+        }
+
+        @Override
+        public void evicted(int partition, String ticketId) {
+            retention.restoreEvicted(partition, ticketId);
+        }
+
+        @Override
+        public void ticket(Ticket ticket) {
+            restore(ticket);
+        }
+
+        @Override
+        public void totals(int bookmakerId, String game, int count, long stakeSum, long returnSum) {
+            costAggregates.restore(bookmakerId, game, count, stakeSum, returnSum);
+            leaderboards.restore(bookmakerId, game, count, stakeSum, returnSum);
+        }
+
+        @Override
+        public void compactedTotals(int partition, int bookmakerId, String game, int count, long stakeSum,
+                                    long returnSum) {
+            compactedAggregates.computeIfAbsent(partition, p -> new CostAggregates())
+                    .restore(bookmakerId, game, count, stakeSum, returnSum);
+        }
+
+        @Override
+        public void windowBucket(int partition, int bookmakerId, String game, String window, long timestamp,
+                                 int count, long stakeSum, long returnSum) {
+            windowedAggregates.restore(partition, bookmakerId, game, TimeWindow.of(window), timestamp, count,
+                    stakeSum, returnSum);
+        }
     }
 }
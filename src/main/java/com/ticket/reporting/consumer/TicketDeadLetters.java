@@ -0,0 +1,119 @@
+package com.ticket.reporting.consumer;
+
+import com.ticket.reporting.metrics.IngestMetrics;
+import com.ticket.reporting.metrics.IngestMetrics.Rejection;
+import io.quarkus.logging.Log;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Emitter;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.messaging.OnOverflow;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends messages that are not valid tickets to the tickets-dlq channel instead of failing the tickets channel.
+ * The headers follow the dead letter queue of the SmallRye Kafka connector. At most the size of the emitter buffer
+ * is in flight, so the buffer never overflows, which would fail the emitter for good: a send waits for an earlier
+ * dead letter to be written. Dead letters that cannot be written, or wait too long for one to be, are counted as
+ * dropped, as the offsets of their records are committed regardless.
+ */
+@Singleton
+public class TicketDeadLetters {
+    public static final String REASON = "dead-letter-reason";
+    public static final String CAUSE = "dead-letter-cause";
+    public static final String TOPIC = "dead-letter-topic";
+    public static final String PARTITION = "dead-letter-partition";
+    public static final String OFFSET = "dead-letter-offset";
+    private static final int BUFFER_SIZE = 10_000;
+    // Well below max.poll.interval.ms, so a dead letter topic that is down does not get the consumer evicted
+    private static final long SEND_TIMEOUT_MILLIS = 10_000;
+
+    private final Emitter<String> emitter;
+    private final IngestMetrics ingestMetrics;
+    private final Semaphore inFlight = new Semaphore(BUFFER_SIZE);
+
+    @Inject
+    public TicketDeadLetters(@Channel("tickets-dlq") @OnOverflow(value = OnOverflow.Strategy.BUFFER,
+            bufferSize = BUFFER_SIZE) Emitter<String> emitter, IngestMetrics ingestMetrics) {
+        this.emitter = emitter;
+        this.ingestMetrics = ingestMetrics;
+    }
+
+    /**
+     * @return TicketDeadLetters - discarding dead letters, for use outside the application
+     */
+    public static TicketDeadLetters disabled() {
+        return new TicketDeadLetters(null, null);
+    }
+
+    /**
+     * Sends the message to the dead letter channel without waiting for it to be written, unless the buffer of the
+     * channel is full
+     *
+     * @param message - Message that is not a valid ticket
+     * @param reason - Why the message was rejected
+     * @param cause - Description of the error, null if there is none
+     * @param record - Record the message was received in, null if it was not received from Kafka
+     */
+    public void send(String message, Rejection reason, String cause, ConsumerRecord<String, ?> record) {
+        if (emitter == null) {
+            return;
+        }
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(REASON, bytes(reason.tag()));
+        if (cause != null) {
+            headers.add(CAUSE, bytes(cause));
+        }
+        if (record != null) {
+            headers.add(TOPIC, bytes(record.topic()));
+            headers.add(PARTITION, bytes(Integer.toString(record.partition())));
+            headers.add(OFFSET, bytes(Long.toString(record.offset())));
+        }
+        OutgoingKafkaRecordMetadata<String> metadata = OutgoingKafkaRecordMetadata.<String>builder()
+                .withKey(record == null ? null : record.key())
+                .withHeaders(headers)
+                .build();
+        try {
+            if (!inFlight.tryAcquire(SEND_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                dropped("the dead letter buffer stayed full for " + SEND_TIMEOUT_MILLIS + " ms");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped("interrupted while waiting for the dead letter buffer");
+            return;
+        }
+        try {
+            emitter.send(Message.of(message).addMetadata(metadata)
+                    .withAck(() -> {
+                        inFlight.release();
+                        return CompletableFuture.completedFuture(null);
+                    })
+                    .withNack(e -> {
+                        inFlight.release();
+                        dropped(e.getMessage());
+                        return CompletableFuture.completedFuture(null);
+                    }));
+        } catch (RuntimeException e) {
+            inFlight.release();
+            dropped(e.getMessage());
+        }
+    }
+
+    private void dropped(String cause) {
+        ingestMetrics.deadLetterDropped();
+        Log.warn("Could not send dead letter: " + cause);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,72 @@
+package com.ticket.reporting.consumer;
+
+import com.ticket.reporting.TicketValidationException;
+import com.ticket.reporting.metrics.IngestMetrics;
+import com.ticket.reporting.metrics.IngestMetrics.Rejection;
+import com.ticket.reporting.model.Ticket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ArcContainer;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Kafka deserializer of the tickets topic, parsing and validating the record value from its bytes without decoding
+ * it into a String. Values that are not valid tickets are rejected with a SerializationException, after adding the
+ * rejection reason as dead-letter-reason header. With fail-on-deserialization-failure disabled the connector then
+ * passes the record on with a null value and the original bytes in its deserialization failure headers. The time to
+ * parse each value is recorded in the tickets.parse timer of the application's IngestMetrics, which the deserializer
+ * looks up as Kafka and not CDI creates it.
+ */
+public class TicketDeserializer implements Deserializer<Ticket> {
+    private final TicketParser ticketParser = new TicketParser(TicketConsumer.JSON_SCHEMA_NAME);
+    private final IngestMetrics ingestMetrics;
+
+    public TicketDeserializer() {
+        this(lookupIngestMetrics());
+    }
+
+    TicketDeserializer(IngestMetrics ingestMetrics) {
+        this.ingestMetrics = ingestMetrics;
+    }
+
+    private static IngestMetrics lookupIngestMetrics() {
+        ArcContainer container = Arc.container();
+        return container != null && container.isRunning()
+                ? container.instance(IngestMetrics.class).get()
+                : new IngestMetrics(new SimpleMeterRegistry());
+    }
+
+    @Override
+    public Ticket deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public Ticket deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            return ticketParser.parse(data);
+        } catch (TicketValidationException e) {
+            throw rejected(headers, Rejection.SCHEMA, e);
+        } catch (RuntimeException | IOException e) {
+            throw rejected(headers, Rejection.MALFORMED, e);
+        } finally {
+            ingestMetrics.parsed(System.nanoTime() - start);
+        }
+    }
+
+    private static SerializationException rejected(Headers headers, Rejection reason, Exception e) {
+        if (headers != null) {
+            headers.add(TicketDeadLetters.REASON, reason.tag().getBytes(StandardCharsets.UTF_8));
+        }
+        return new SerializationException(e.getMessage(), e);
+    }
+}
@@ -0,0 +1,250 @@
+package com.ticket.reporting.consumer;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticket.reporting.TicketStatus;
+import com.ticket.reporting.TicketValidationException;
+import com.ticket.reporting.model.Money;
+import com.ticket.reporting.model.Ticket;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validates incoming ticket messages against the JSON Schema while mapping them to a Ticket in a single pass.
+ * The schema is read and compiled once when the parser is created. Messages are read from their UTF-8 bytes by a
+ * TicketScanner reused per thread, and games, currencies and enumerated values, which repeat across messages, are
+ * interned, so that a ticket only allocates itself and its ticket id.
+ */
+public class TicketParser {
+    private static final String STATUS = "status";
+    private static final String TICKET_ID = "ticket_id";
+    private static final Set<String> INTERNED = Set.of("currency", "game", STATUS);
+    private static final int MAX_INTERNED = 4096;
+
+    private final ThreadLocal<TicketScanner> scanners = ThreadLocal.withInitial(TicketScanner::new);
+    private final StringInterner interner = new StringInterner(MAX_INTERNED);
+    private final Map<String, Property> properties = new HashMap<>();
+    private final List<Property> propertyList = new ArrayList<>();
+    private long requiredMask;
+
+    /**
+     * Creates a parser for the JSON Schema found on the classpath
+     *
+     * @param schemaName - Classpath resource name of the JSON Schema
+     */
+    public TicketParser(String schemaName) {
+        try (InputStream inputStream = TicketParser.class.getClassLoader().getResourceAsStream(schemaName)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("JSON Schema not found: " + schemaName);
+            }
+            compile(new ObjectMapper().readTree(inputStream));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses the message into a Ticket, validating each token against the compiled schema as it is read
+     *
+     * @param message - Incoming message
+     * @return Ticket
+     * @throws IOException - if the message is not well-formed JSON or has content after the ticket
+     * @throws TicketValidationException - if the message does not match the schema
+     */
+    public Ticket parse(String message) throws IOException {
+        return parse(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses the UTF-8 encoded message into a Ticket like parse(String), without decoding it into a String first
+     *
+     * @param message - Incoming message, e.g. the value of a Kafka record
+     * @return Ticket
+     * @throws IOException - if the message is not well-formed JSON or has content after the ticket
+     * @throws TicketValidationException - if the message does not match the schema
+     */
+    public Ticket parse(byte[] message) throws IOException {
+        TicketScanner scanner = scanners.get();
+        scanner.reset(message);
+        return readTicket(scanner);
+    }
+
+    private Ticket readTicket(TicketScanner scanner) throws IOException {
+        if (scanner.nextToken() != JsonToken.START_OBJECT) {
+            throw new TicketValidationException("Ticket must be a JSON object");
+        }
+        Ticket ticket = new Ticket();
+        long seen = 0;
+        while (scanner.nextToken() == JsonToken.FIELD_NAME) {
+            Property property = property(scanner.textCharacters(), scanner.textLength());
+            JsonToken token = scanner.nextToken();
+            if (property == null) {
+                scanner.skipChildren();
+                continue;
+            }
+            // JSON Schema counts a number without fractional part, such as 1.0, as an integer
+            if (token == JsonToken.VALUE_NUMBER_FLOAT && property.type() == PropertyType.INTEGER
+                    && scanner.isIntegral()) {
+                token = JsonToken.VALUE_NUMBER_INT;
+            }
+            String text = property.text() ? text(property, token, scanner) : null;
+            property.check(token, text);
+            bind(ticket, property.name(), scanner, text);
+            seen |= property.bit();
+        }
+        scanner.finish();
+        if ((seen & requiredMask) != requiredMask) {
+            throw new TicketValidationException("Missing required property: " + firstMissing(seen));
+        }
+        return ticket;
+    }
+
+    private Property property(char[] name, int length) {
+        for (Property property : propertyList) {
+            if (property.matches(name, length)) {
+                return property;
+            }
+        }
+        return null;
+    }
+
+    private String text(Property property, JsonToken token, TicketScanner scanner) {
+        if (property.interned() && token == JsonToken.VALUE_STRING) {
+            return interner.intern(scanner.textCharacters(), 0, scanner.textLength());
+        }
+        return scanner.text();
+    }
+
+    private static void bind(Ticket ticket, String name, TicketScanner scanner, String text) throws IOException {
+        switch (name) {
+            case "bookmaker" -> ticket.setBookmaker(scanner.intValue());
+            case "currency" -> ticket.setCurrency(text);
+            case "game" -> ticket.setGame(text);
+            case "stake" -> ticket.setStakeUnits(readMoney(scanner));
+            case STATUS -> ticket.setStatus(TicketStatus.valueOf(text));
+            case TICKET_ID -> ticket.setTicketId(text);
+            case "total_return" -> ticket.setTotalReturnUnits(readMoney(scanner));
+            default -> {
+                // Properties without a Ticket field are validated but not mapped
+            }
+        }
+    }
+
+    private static long readMoney(TicketScanner scanner) {
+        return Money.parse(scanner.textCharacters(), 0, scanner.textLength());
+    }
+
+    private String firstMissing(long seen) {
+        return properties.values().stream()
+                .filter(property -> (requiredMask & property.bit()) != 0 && (seen & property.bit()) == 0)
+                .map(Property::name)
+                .findFirst().orElse("");
+    }
+
+    private void compile(JsonNode schema) {
+        Set<String> required = new HashSet<>();
+        schema.path("required").forEach(node -> required.add(node.asText()));
+        Iterator<Map.Entry<String, JsonNode>> fields = schema.path("properties").fields();
+        int index = 0;
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (index == Long.SIZE) {
+                throw new IllegalStateException("JSON Schema has too many properties");
+            }
+            String name = field.getKey();
+            long bit = 1L << index++;
+            Set<String> allowed = null;
+            if (field.getValue().has("enum")) {
+                allowed = new HashSet<>();
+                for (JsonNode value : field.getValue().get("enum")) {
+                    allowed.add(value.asText());
+                }
+            }
+            if (STATUS.equals(name)) {
+                checkStatusValues(allowed);
+            }
+            boolean interned = allowed != null || INTERNED.contains(name);
+            Property property = new Property(name, PropertyType.of(field.getValue().path("type").asText()),
+                    allowed, bit, interned || TICKET_ID.equals(name), interned);
+            properties.put(name, property);
+            propertyList.add(property);
+            if (required.contains(name)) {
+                requiredMask |= bit;
+            }
+        }
+    }
+
+    private static void checkStatusValues(Set<String> allowed) {
+        if (allowed == null) {
+            return;
+        }
+        for (String value : allowed) {
+            try {
+                TicketStatus.valueOf(value);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("JSON Schema status " + value + " is not a TicketStatus", e);
+            }
+        }
+    }
+
+    private enum PropertyType {
+        INTEGER, NUMBER, STRING, ANY;
+
+        static PropertyType of(String type) {
+            return switch (type) {
+                case "integer" -> INTEGER;
+                case "number" -> NUMBER;
+                case "string" -> STRING;
+                default -> ANY;
+            };
+        }
+
+        boolean accepts(JsonToken token) {
+            return switch (this) {
+                case INTEGER -> token == JsonToken.VALUE_NUMBER_INT;
+                case NUMBER -> token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT;
+                case STRING -> token == JsonToken.VALUE_STRING;
+                case ANY -> true;
+            };
+        }
+    }
+
+    /**
+     * @param text - whether the value is read as text, e.g. to be mapped to a String field
+     * @param interned - whether the text is interned, as it repeats across messages
+     */
+    private record Property(String name, PropertyType type, Set<String> allowed, long bit, boolean text,
+                            boolean interned) {
+        void check(JsonToken token, String value) {
+            if (!type.accepts(token)) {
+                throw new TicketValidationException("Property " + name + " must be " + type.name().toLowerCase());
+            }
+            if (allowed != null && !allowed.contains(value)) {
+                throw new TicketValidationException("Property " + name + " has unexpected value " + value);
+            }
+        }
+
+        boolean matches(char[] chars, int length) {
+            if (name.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (name.charAt(i) != chars[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
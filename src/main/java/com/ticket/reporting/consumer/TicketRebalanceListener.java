@@ -0,0 +1,63 @@
+package com.ticket.reporting.consumer;
+
+import io.quarkus.logging.Log;
+import io.smallrye.common.annotation.Identifier;
+import io.smallrye.reactive.messaging.kafka.KafkaConsumerRebalanceListener;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Positions the tickets consumer on assigned partitions at the offsets already held by the in-memory store,
+ * restored from a snapshot or consumed since, and at the beginning of partitions it holds nothing for. Revoked
+ * partitions that are not assigned again and lost partitions are dropped from the store, as the node they move to
+ * replays them.
+ */
+@ApplicationScoped
+@Identifier("ticket-rebalance-listener")
+public class TicketRebalanceListener implements KafkaConsumerRebalanceListener {
+    private final TicketConsumer ticketConsumer;
+
+    public TicketRebalanceListener(TicketConsumer ticketConsumer) {
+        this.ticketConsumer = ticketConsumer;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        ticketConsumer.assign(partitions);
+        List<TopicPartition> unknown = new ArrayList<>();
+        for (TopicPartition partition : partitions) {
+            Long nextOffset = ticketConsumer.getNextOffset(partition);
+            if (nextOffset == null) {
+                unknown.add(partition);
+            } else {
+                Log.infof("Resuming %s at offset %d", partition, nextOffset);
+                consumer.seek(partition, nextOffset);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            consumer.seekToBeginning(unknown);
+        }
+    }
+
+    @Override
+    public void onPartitionsRevoked(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!partitions.isEmpty()) {
+            Log.infof("Revoked %s", partitions);
+            ticketConsumer.revoke(partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Log.infof("Lost %s", partitions);
+        // Lost partitions may already be consumed by other nodes, so they are dropped without waiting for the
+        // assignment
+        ticketConsumer.revoke(partitions);
+        ticketConsumer.assign(List.of());
+    }
+}
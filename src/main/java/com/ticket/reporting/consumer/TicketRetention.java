@@ -0,0 +1,292 @@
+package com.ticket.reporting.consumer;
+
+import com.ticket.reporting.model.Ticket;
+import com.ticket.reporting.store.Ulid;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Decides which settled tickets leave the ticket store, so that its size is bounded on a long-lived topic. Settled
+ * tickets with ULID ticket ids are tracked in ticket id order, which is the order in which they were created, and
+ * the oldest are evicted while any limit is exceeded: an age, a number of settled tickets and a share of the heap
+ * still in use after the last garbage collection. Their contribution stays in the running totals.
+ * Evicted ticket ids are remembered per partition of the tickets topic: records are keyed by ticket id, so all
+ * versions of a ticket arrive on one partition, and an unknown ticket id that was evicted from its partition is an
+ * update of an evicted ticket and is dropped as expired. Recently evicted ids are kept as they are, as a ticket
+ * created slightly earlier than one already settled and evicted may still deliver its first record. Once an
+ * evicted id is older than the newest settled ticket of its partition by more than ticket.retention.watermark-lag,
+ * it is folded into the watermark of the partition, and any unknown ticket id at or below the watermark is dropped.
+ * Partitions are consumed at their own pace, so a ticket that a lagging partition has not delivered yet stays above
+ * the watermark of that partition however far the others have been evicted. Tickets restored from a snapshot are
+ * tracked under the partition they were received from, and the evicted ids and watermarks are written into the
+ * snapshot, so that updates of tickets evicted before it stay dropped after a restart. Tickets not received from
+ * Kafka share the NO_PARTITION watermark.
+ */
+@Singleton
+public class TicketRetention {
+    public static final int NO_PARTITION = Ticket.NO_PARTITION;
+    // Share of the settled tickets evicted per run while the heap limit is exceeded, the heap only shows the
+    // effect after the next collection
+    private static final double HEAP_EVICTION_SHARE = 0.1;
+
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final long maxSettled;
+    private final double maxHeapRatio;
+    private final Duration interval;
+    private final Duration watermarkLag;
+    private final DoubleSupplier heapUsage;
+    private final Map<Integer, NavigableSet<String>> settled = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableSet<String>> evicted = new ConcurrentHashMap<>();
+    private final Map<Integer, String> watermarks = new ConcurrentHashMap<>();
+    private final AtomicLong settledCount = new AtomicLong();
+    private volatile long lastRunNanos = System.nanoTime();
+
+    @Inject
+    public TicketRetention(@ConfigProperty(name = "ticket.retention.enabled", defaultValue = "false") boolean enabled,
+                           @ConfigProperty(name = "ticket.retention.max-age", defaultValue = "168H") Duration maxAge,
+                           @ConfigProperty(name = "ticket.retention.max-settled", defaultValue = "5000000")
+                           long maxSettled,
+                           @ConfigProperty(name = "ticket.retention.max-heap-ratio", defaultValue = "0.8")
+                           double maxHeapRatio,
+                           @ConfigProperty(name = "ticket.retention.interval", defaultValue = "10S") Duration interval,
+                           @ConfigProperty(name = "ticket.retention.watermark-lag", defaultValue = "1M")
+                           Duration watermarkLag) {
+        this(enabled, maxAge, maxSettled, maxHeapRatio, interval, watermarkLag,
+                TicketRetention::heapUsageAfterCollection);
+    }
+
+    TicketRetention(boolean enabled, Duration maxAge, long maxSettled, double maxHeapRatio, Duration interval,
+                    Duration watermarkLag, DoubleSupplier heapUsage) {
+        if (maxSettled < 0 || maxHeapRatio <= 0 || maxHeapRatio > 1) {
+            throw new IllegalArgumentException("Invalid retention limits: max-settled " + maxSettled
+                    + ", max-heap-ratio " + maxHeapRatio);
+        }
+        this.enabled = enabled;
+        this.maxAge = maxAge;
+        this.maxSettled = maxSettled;
+        this.maxHeapRatio = maxHeapRatio;
+        this.interval = interval;
+        this.watermarkLag = watermarkLag;
+        this.heapUsage = heapUsage;
+    }
+
+    public static TicketRetention disabled() {
+        return new TicketRetention(false, Duration.ZERO, Long.MAX_VALUE, 1, Duration.ZERO, Duration.ZERO,
+                () -> 0);
+    }
+
+    /**
+     * Checks whether retention is enabled and the retention interval has passed since the last run
+     *
+     * @return boolean
+     */
+    public boolean isDue() {
+        return enabled && System.nanoTime() - lastRunNanos >= interval.toNanos();
+    }
+
+    /**
+     * Tracks a stored ticket that is settled, tickets without a ULID ticket id are never evicted
+     *
+     * @param ticket - Stored ticket
+     * @param partition - Partition the ticket was received from, NO_PARTITION if it was not received from Kafka
+     */
+    public void stored(Ticket ticket, int partition) {
+        if (enabled && ticket.getStatus().isTerminal() && Ulid.isUlid(ticket.getTicketId())
+                && settled.computeIfAbsent(partition, p -> new ConcurrentSkipListSet<>()).add(ticket.getTicketId())) {
+            settledCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Checks whether a ticket id that is not in the store was evicted of its partition, or belongs to the range
+     * below its watermark
+     *
+     * @param ticketId - Ticket id of an update that has no stored version
+     * @param partition - Partition the update was received from, NO_PARTITION if it was not received from Kafka
+     * @return boolean - true if the update is to be dropped
+     */
+    public boolean isExpired(String ticketId, int partition) {
+        if (!Ulid.isUlid(ticketId)) {
+            return false;
+        }
+        String watermark = watermarks.get(partition);
+        if (watermark != null && ticketId.compareTo(watermark) <= 0) {
+            return true;
+        }
+        NavigableSet<String> recent = evicted.get(partition);
+        return recent != null && recent.contains(ticketId);
+    }
+
+    /**
+     * @return Map<Integer, String> - Copy of the watermark of each partition, the last evicted ticket id folded
+     */
+    public Map<Integer, String> watermarks() {
+        return Map.copyOf(watermarks);
+    }
+
+    /**
+     * @return Map<Integer, List<String>> - Copy of the ticket ids evicted of each partition that are not yet folded
+     * into its watermark, in ticket id order
+     */
+    public Map<Integer, List<String>> evicted() {
+        Map<Integer, List<String>> copy = new HashMap<>();
+        evicted.forEach((partition, ticketIds) -> {
+            if (!ticketIds.isEmpty()) {
+                copy.put(partition, List.copyOf(ticketIds));
+            }
+        });
+        return copy;
+    }
+
+    /**
+     * Restores a ticket id evicted of a partition from a snapshot
+     *
+     * @param partition - Partition of the tickets topic, NO_PARTITION for tickets not received from Kafka
+     * @param ticketId - Ticket id evicted of the partition, above its watermark
+     */
+    public void restoreEvicted(int partition, String ticketId) {
+        evicted.computeIfAbsent(partition, p -> new ConcurrentSkipListSet<>()).add(ticketId);
+    }
+
+    /**
+     * Restores the watermark of a partition from a snapshot, keeping a higher watermark already raised
+     *
+     * @param partition - Partition of the tickets topic, NO_PARTITION for tickets not received from Kafka
+     * @param ticketId - Last ticket id evicted of the partition
+     */
+    public void restoreWatermark(int partition, String ticketId) {
+        watermarks.merge(partition, ticketId, (watermark, restored) ->
+                restored.compareTo(watermark) > 0 ? restored : watermark);
+    }
+
+    /**
+     * Forgets the settled tickets, the evicted ids and the watermark of a partition that is no longer consumed by
+     * this node
+     *
+     * @param partition - Partition of the tickets topic
+     */
+    public synchronized void revoke(int partition) {
+        NavigableSet<String> revoked = settled.remove(partition);
+        if (revoked != null) {
+            settledCount.addAndGet(-revoked.size());
+        }
+        evicted.remove(partition);
+        watermarks.remove(partition);
+    }
+
+    /**
+     * Evicts the oldest settled tickets of all partitions while a limit is exceeded. Each ticket id is remembered
+     * as evicted before the ticket is handed to the evictor, so an update racing with its eviction is either dropped
+     * as an illegal transition or as expired. Evicted ids that fell behind by more than the watermark lag are then
+     * folded into the watermark of their partition.
+     *
+     * @param now - Epoch millis the age of the tickets is measured against
+     * @param evictor - Removes a ticket from the store, returns false if it was no longer stored
+     * @return long - Number of tickets evicted
+     */
+    public synchronized long evict(long now, Predicate<String> evictor) {
+        lastRunNanos = System.nanoTime();
+        long ageCutoff = maxAge.isZero() ? Long.MIN_VALUE : now - maxAge.toMillis();
+        long heapEvictions = heapUsage.getAsDouble() > maxHeapRatio
+                ? (long) Math.ceil(settledCount.get() * HEAP_EVICTION_SHARE) : 0;
+        long count = 0;
+        while (true) {
+            Map.Entry<Integer, NavigableSet<String>> oldest = null;
+            String ticketId = null;
+            for (Map.Entry<Integer, NavigableSet<String>> partition : settled.entrySet()) {
+                // Only evict removes ids, so a set that is not empty still has a first id
+                String first = partition.getValue().isEmpty() ? null : partition.getValue().first();
+                if (first != null && (ticketId == null || first.compareTo(ticketId) < 0)) {
+                    oldest = partition;
+                    ticketId = first;
+                }
+            }
+            if (ticketId == null || (settledCount.get() <= maxSettled && count >= heapEvictions
+                    && Ulid.timestamp(ticketId) >= ageCutoff)) {
+                advanceWatermarks();
+                return count;
+            }
+            oldest.getValue().remove(ticketId);
+            settledCount.decrementAndGet();
+            evicted.computeIfAbsent(oldest.getKey(), p -> new ConcurrentSkipListSet<>()).add(ticketId);
+            if (evictor.test(ticketId)) {
+                count++;
+            }
+        }
+    }
+
+    /**
+     * Folds the evicted ids of each partition that are older than its newest settled or evicted ticket by more than
+     * the watermark lag into its watermark. The newest settled ticket stands for how far the partition has been
+     * consumed, so a lagging partition keeps its recent ids however old they are.
+     */
+    private void advanceWatermarks() {
+        evicted.forEach((partition, ticketIds) -> {
+            if (ticketIds.isEmpty()) {
+                return;
+            }
+            String newest = ticketIds.last();
+            NavigableSet<String> kept = settled.get(partition);
+            if (kept != null && !kept.isEmpty() && kept.last().compareTo(newest) > 0) {
+                newest = kept.last();
+            }
+            long cutoff = Ulid.timestamp(newest) - watermarkLag.toMillis();
+            String watermark = null;
+            for (String ticketId : ticketIds) {
+                if (Ulid.timestamp(ticketId) >= cutoff) {
+                    break;
+                }
+                watermark = ticketId;
+            }
+            // The watermark is raised before the ids are removed, so they are expired throughout
+            if (watermark != null) {
+                restoreWatermark(partition, watermark);
+                ticketIds.headSet(watermark, true).clear();
+            }
+        });
+    }
+
+    /**
+     * @return long - Number of settled tickets that may be evicted
+     */
+    public long settledCount() {
+        return settledCount.get();
+    }
+
+    /**
+     * Share of the maximum heap used after the last collection of the largest heap pool, or of the heap in use now
+     * when the JVM does not report collection usage
+     */
+    private static double heapUsageAfterCollection() {
+        MemoryUsage largest = null;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()
+                    ? pool.getCollectionUsage() : null;
+            if (usage != null && usage.getMax() > 0 && (largest == null || usage.getMax() > largest.getMax())) {
+                largest = usage;
+            }
+        }
+        if (largest != null) {
+            return (double) largest.getUsed() / largest.getMax();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return (double) (runtime.totalMemory() - runtime.freeMemory()) / runtime.maxMemory();
+    }
+}
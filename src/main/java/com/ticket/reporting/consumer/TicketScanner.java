@@ -0,0 +1,446 @@
+package com.ticket.reporting.consumer;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Streaming JSON tokenizer over UTF-8 encoded bytes, reused for one message after another so that reading a ticket
+ * allocates nothing but the values it keeps. Field names, strings and numbers are decoded into a text buffer that
+ * is overwritten by the next token; callers read it before advancing. Tokens are reported as Jackson JsonTokens and
+ * syntax errors as JsonParseException, as with the Jackson parser it replaces. Not thread safe.
+ */
+class TicketScanner {
+    private static final int MAX_DEPTH = Long.SIZE;
+    private static final int INITIAL_TEXT_LENGTH = 64;
+    // A text buffer grown beyond this by an unusually long value is not kept for the next message
+    private static final int MAX_RETAINED_TEXT_LENGTH = 4096;
+    private static final int NAME = 0;
+    private static final int VALUE = 1;
+    private static final int SEPARATOR = 2;
+
+    private char[] text = new char[INITIAL_TEXT_LENGTH];
+    private int textLength;
+    private byte[] data;
+    private int position;
+    private int depth;
+    // Bit i is set if the container at depth i + 1 is an object
+    private long objects;
+    private int expected;
+    private boolean empty;
+    private JsonToken current;
+
+    /**
+     * Starts reading a new message
+     *
+     * @param message - UTF-8 encoded message
+     */
+    void reset(byte[] message) {
+        data = message;
+        position = 0;
+        depth = 0;
+        objects = 0;
+        expected = VALUE;
+        empty = false;
+        current = null;
+        textLength = 0;
+        if (text.length > MAX_RETAINED_TEXT_LENGTH) {
+            text = new char[INITIAL_TEXT_LENGTH];
+        }
+    }
+
+    /**
+     * @return JsonToken - Next token, null at the end of the top-level value
+     * @throws IOException - if the message is not well-formed JSON
+     */
+    JsonToken nextToken() throws IOException {
+        current = readToken();
+        return current;
+    }
+
+    /**
+     * Skips the contents of the object or array the current token starts, like JsonParser.skipChildren
+     *
+     * @throws IOException - if the message is not well-formed JSON
+     */
+    void skipChildren() throws IOException {
+        if (current != JsonToken.START_OBJECT && current != JsonToken.START_ARRAY) {
+            return;
+        }
+        int target = depth - 1;
+        while (depth > target) {
+            if (nextToken() == null) {
+                throw error("Unexpected end-of-input in nested value");
+            }
+        }
+    }
+
+    char[] textCharacters() {
+        return text;
+    }
+
+    int textLength() {
+        return textLength;
+    }
+
+    String text() {
+        return new String(text, 0, textLength);
+    }
+
+    /**
+     * Checks that nothing but whitespace follows the top-level value
+     *
+     * @throws IOException - if the message has trailing content
+     */
+    void finish() throws IOException {
+        // Past the top-level value the next token is either the end of input or an error
+        if (nextToken() != null) {
+            throw error("Unexpected token: expected end-of-input after the top-level value");
+        }
+    }
+
+    /**
+     * @return boolean - whether the current number token has no fractional part, such as 12 or 12.0 or 1.2e1
+     * @throws IOException - if the number cannot be read
+     */
+    boolean isIntegral() throws IOException {
+        return current == JsonToken.VALUE_NUMBER_INT || decimalValue().stripTrailingZeros().scale() <= 0;
+    }
+
+    /**
+     * @return int - Value of the current number token, which has no fractional part
+     * @throws IOException - if the number has a fractional part or does not fit an int
+     */
+    int intValue() throws IOException {
+        if (current == JsonToken.VALUE_NUMBER_FLOAT) {
+            BigDecimal value = decimalValue().stripTrailingZeros();
+            // Ten integer digits or fewer, so that an exponent such as 1e999999999 is not expanded
+            if (value.scale() <= 0 && value.precision() - value.scale() <= 10) {
+                try {
+                    return value.intValueExact();
+                } catch (ArithmeticException e) {
+                    // Reported as out of range below
+                }
+            }
+            throw error("Numeric value (" + text() + ") out of range of int");
+        }
+        boolean negative = text[0] == '-';
+        long value = 0;
+        for (int i = negative ? 1 : 0; i < textLength; i++) {
+            value = value * 10 + (text[i] - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                break;
+            }
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw error("Numeric value (" + text() + ") out of range of int");
+        }
+        return (int) value;
+    }
+
+    private BigDecimal decimalValue() throws IOException {
+        try {
+            return new BigDecimal(text, 0, textLength);
+        } catch (NumberFormatException e) {
+            throw error("Numeric value (" + text() + ") out of range");
+        }
+    }
+
+    private JsonToken readToken() throws IOException {
+        skipWhitespace();
+        if (expected == SEPARATOR) {
+            if (depth == 0) {
+                if (position < data.length) {
+                    throw error("Unexpected character ('" + (char) data[position]
+                            + "'): expected end-of-input after the top-level value");
+                }
+                return null;
+            }
+            byte separator = next("Unexpected end-of-input: expected close marker");
+            if (separator == ',') {
+                expected = inObject() ? NAME : VALUE;
+                empty = false;
+                skipWhitespace();
+            } else if (separator == (inObject() ? '}' : ']')) {
+                return close();
+            } else {
+                throw error("Unexpected character ('" + (char) separator + "'): was expecting comma to separate "
+                        + (inObject() ? "Object" : "Array") + " entries");
+            }
+        }
+        if (position == data.length) {
+            if (depth == 0 && current == null) {
+                return null;
+            }
+            throw error("Unexpected end-of-input");
+        }
+        byte b = data[position];
+        if (expected == NAME) {
+            return readName(b);
+        }
+        position++;
+        switch (b) {
+            case '{' -> {
+                open(true);
+                return JsonToken.START_OBJECT;
+            }
+            case '[' -> {
+                open(false);
+                return JsonToken.START_ARRAY;
+            }
+            case ']' -> {
+                if (empty && !inObject()) {
+                    return close();
+                }
+                throw error("Unexpected close marker ']'");
+            }
+            case '"' -> {
+                readString();
+                expected = SEPARATOR;
+                return JsonToken.VALUE_STRING;
+            }
+            case 't' -> {
+                return literal("rue", JsonToken.VALUE_TRUE);
+            }
+            case 'f' -> {
+                return literal("alse", JsonToken.VALUE_FALSE);
+            }
+            case 'n' -> {
+                return literal("ull", JsonToken.VALUE_NULL);
+            }
+            default -> {
+                if (b == '-' || (b >= '0' && b <= '9')) {
+                    position--;
+                    JsonToken token = readNumber();
+                    expected = SEPARATOR;
+                    return token;
+                }
+                throw error("Unexpected character ('" + (char) b + "'): expected a valid value");
+            }
+        }
+    }
+
+    private JsonToken readName(byte b) throws IOException {
+        if (b == '}' && empty) {
+            position++;
+            return close();
+        }
+        if (b != '"') {
+            throw error("Unexpected character ('" + (char) b + "'): was expecting double-quote to start field name");
+        }
+        position++;
+        readString();
+        skipWhitespace();
+        if (next("Unexpected end-of-input: was expecting a colon") != ':') {
+            throw error("Unexpected character: was expecting a colon to separate field name and value");
+        }
+        expected = VALUE;
+        return JsonToken.FIELD_NAME;
+    }
+
+    private void open(boolean object) throws IOException {
+        if (depth == MAX_DEPTH) {
+            throw error("Nesting depth exceeds maximum of " + MAX_DEPTH);
+        }
+        if (object) {
+            objects |= 1L << depth;
+        } else {
+            objects &= ~(1L << depth);
+        }
+        depth++;
+        expected = object ? NAME : VALUE;
+        empty = true;
+    }
+
+    private JsonToken close() {
+        boolean object = inObject();
+        depth--;
+        expected = SEPARATOR;
+        empty = false;
+        return object ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+    }
+
+    private boolean inObject() {
+        return depth > 0 && (objects & 1L << depth - 1) != 0;
+    }
+
+    private JsonToken literal(String rest, JsonToken token) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (position == data.length || data[position++] != rest.charAt(i)) {
+                throw error("Unrecognized token: was expecting (JSON String, Number, Array, Object or token "
+                        + "'null', 'true' or 'false')");
+            }
+        }
+        checkDelimiter();
+        expected = SEPARATOR;
+        return token;
+    }
+
+    /**
+     * Copies a number into the text buffer, checking it against the JSON number grammar
+     */
+    private JsonToken readNumber() throws IOException {
+        textLength = 0;
+        if (data[position] == '-') {
+            append('-');
+            position++;
+        }
+        int integerStart = position;
+        int integerDigits = digits();
+        if (integerDigits == 0) {
+            throw error("Invalid numeric value: expected digit after minus sign");
+        }
+        if (integerDigits > 1 && data[integerStart] == '0') {
+            throw error("Invalid numeric value: Leading zeroes not allowed");
+        }
+        boolean integer = true;
+        if (position < data.length && data[position] == '.') {
+            append('.');
+            position++;
+            if (digits() == 0) {
+                throw error("Invalid numeric value: Decimal point not followed by a digit");
+            }
+            integer = false;
+        }
+        if (position < data.length && (data[position] == 'e' || data[position] == 'E')) {
+            append((char) data[position++]);
+            if (position < data.length && (data[position] == '+' || data[position] == '-')) {
+                append((char) data[position++]);
+            }
+            if (digits() == 0) {
+                throw error("Invalid numeric value: Exponent indicator not followed by a digit");
+            }
+            integer = false;
+        }
+        checkDelimiter();
+        return integer ? JsonToken.VALUE_NUMBER_INT : JsonToken.VALUE_NUMBER_FLOAT;
+    }
+
+    private int digits() {
+        int start = position;
+        while (position < data.length && data[position] >= '0' && data[position] <= '9') {
+            append((char) data[position++]);
+        }
+        return position - start;
+    }
+
+    private void checkDelimiter() throws IOException {
+        if (position < data.length) {
+            byte b = data[position];
+            if (b != ',' && b != '}' && b != ']' && b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                throw error("Unexpected character ('" + (char) b + "') after value");
+            }
+        }
+    }
+
+    /**
+     * Decodes the string following an opening quote into the text buffer, resolving escapes and multi-byte UTF-8
+     * sequences
+     */
+    private void readString() throws IOException {
+        textLength = 0;
+        while (true) {
+            int b = next("Unexpected end-of-input in string") & 0xFF;
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                append(readEscape());
+            } else if (b < 0x20) {
+                throw error("Illegal unquoted character (code " + b + "): has to be escaped");
+            } else if (b < 0x80) {
+                append((char) b);
+            } else {
+                readMultiByte(b);
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        byte b = next("Unexpected end-of-input in character escape sequence");
+        return switch (b) {
+            case '"', '\\', '/' -> (char) b;
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            case 'u' -> {
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(next("Unexpected end-of-input in unicode escape"), 16);
+                    if (digit < 0) {
+                        throw error("Unexpected character: expected a hex-digit for character escape sequence");
+                    }
+                    value = value << 4 | digit;
+                }
+                yield (char) value;
+            }
+            default -> throw error("Unrecognized character escape '" + (char) b + "'");
+        };
+    }
+
+    private void readMultiByte(int lead) throws IOException {
+        int continuations;
+        int codePoint;
+        if ((lead & 0xE0) == 0xC0) {
+            continuations = 1;
+            codePoint = lead & 0x1F;
+        } else if ((lead & 0xF0) == 0xE0) {
+            continuations = 2;
+            codePoint = lead & 0x0F;
+        } else if ((lead & 0xF8) == 0xF0) {
+            continuations = 3;
+            codePoint = lead & 0x07;
+        } else {
+            throw error("Invalid UTF-8 start byte 0x" + Integer.toHexString(lead));
+        }
+        for (int i = 0; i < continuations; i++) {
+            int b = next("Unexpected end-of-input in UTF-8 sequence") & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                throw error("Invalid UTF-8 middle byte 0x" + Integer.toHexString(b));
+            }
+            codePoint = codePoint << 6 | b & 0x3F;
+        }
+        if (Character.isBmpCodePoint(codePoint)) {
+            append((char) codePoint);
+        } else if (Character.isValidCodePoint(codePoint)) {
+            append(Character.highSurrogate(codePoint));
+            append(Character.lowSurrogate(codePoint));
+        } else {
+            throw error("Invalid UTF-8 code point 0x" + Integer.toHexString(codePoint));
+        }
+    }
+
+    private void append(char c) {
+        if (textLength == text.length) {
+            text = Arrays.copyOf(text, text.length * 2);
+        }
+        text[textLength++] = c;
+    }
+
+    private byte next(String endOfInput) throws IOException {
+        if (position == data.length) {
+            throw error(endOfInput);
+        }
+        return data[position++];
+    }
+
+    private void skipWhitespace() {
+        while (position < data.length) {
+            byte b = data[position];
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private JsonParseException error(String message) {
+        return new JsonParseException(null, message + " at byte " + position);
+    }
+}
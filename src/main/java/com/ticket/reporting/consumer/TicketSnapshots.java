@@ -0,0 +1,139 @@
+package com.ticket.reporting.consumer;
+
+import com.ticket.reporting.metrics.CostAggregates;
+import com.ticket.reporting.metrics.WindowedCostAggregates;
+import com.ticket.reporting.model.Ticket;
+import com.ticket.reporting.snapshot.SnapshotReader;
+import com.ticket.reporting.snapshot.SnapshotVisitor;
+import com.ticket.reporting.snapshot.SnapshotWriter;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.apache.kafka.common.TopicPartition;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes periodic snapshots of the ticket store, running totals and window buckets to local disk, together with
+ * the Kafka offsets they cover, and loads the latest snapshot on startup. Snapshots are written from copies, on a
+ * thread of their own, while ingest goes on.
+ */
+@Singleton
+public class TicketSnapshots {
+    private static final String SNAPSHOT_FILE = "tickets.snapshot";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final Duration interval;
+    private volatile long lastSnapshotNanos = System.nanoTime();
+
+    @Inject
+    public TicketSnapshots(@ConfigProperty(name = "ticket.snapshot.enabled", defaultValue = "false") boolean enabled,
+                           @ConfigProperty(name = "ticket.snapshot.directory", defaultValue = "snapshots")
+                           String directory,
+                           @ConfigProperty(name = "ticket.snapshot.interval", defaultValue = "5M") Duration interval) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.interval = interval;
+    }
+
+    public static TicketSnapshots disabled() {
+        return new TicketSnapshots(false, "snapshots", Duration.ofMinutes(5));
+    }
+
+    /**
+     * Checks whether snapshots are enabled and the snapshot interval has passed since the last snapshot
+     *
+     * @return boolean
+     */
+    public boolean isDue() {
+        return enabled && System.nanoTime() - lastSnapshotNanos >= interval.toNanos();
+    }
+
+    /**
+     * Writes a snapshot to a temporary file and atomically replaces the latest snapshot with it
+     *
+     * @param offsets - Next offset to consume per partition, covered by the tickets and totals
+     * @param watermarks - Watermark of the ticket ids evicted by retention per partition
+     * @param evicted - Ticket ids evicted by retention per partition that are above its watermark
+     * @param tickets - Copy of all stored tickets
+     * @param costAggregates - Copy of the running totals per bookmaker and game
+     * @param compactedAggregates - Copy of the totals of the evicted tickets per partition, bookmaker and game
+     * @param windowedAggregates - Copy of the window buckets per partition, bookmaker and game
+     * @throws IOException - if the snapshot cannot be written
+     */
+    public void write(Map<TopicPartition, Long> offsets, Map<Integer, String> watermarks,
+                      Map<Integer, List<String>> evicted, Stream<Ticket> tickets, CostAggregates costAggregates,
+                      Map<Integer, CostAggregates> compactedAggregates, WindowedCostAggregates windowedAggregates)
+            throws IOException {
+        Files.createDirectories(directory);
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (SnapshotWriter writer = new SnapshotWriter(temporary, offsets)) {
+            for (Map.Entry<Integer, String> watermark : watermarks.entrySet()) {
+                writer.writeWatermark(watermark.getKey(), watermark.getValue());
+            }
+            for (Map.Entry<Integer, List<String>> partition : evicted.entrySet()) {
+                for (String ticketId : partition.getValue()) {
+                    writer.writeEvicted(partition.getKey(), ticketId);
+                }
+            }
+            for (Iterator<Ticket> iterator = tickets.iterator(); iterator.hasNext(); ) {
+                writer.writeTicket(iterator.next());
+            }
+            costAggregates.forEach((bookmakerId, game, count, stakeSum, returnSum) -> {
+                try {
+                    writer.writeTotals(bookmakerId, game, count, stakeSum, returnSum);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            compactedAggregates.forEach((partition, compacted) ->
+                    compacted.forEach((bookmakerId, game, count, stakeSum, returnSum) -> {
+                        try {
+                            writer.writeCompactedTotals(partition, bookmakerId, game, count, stakeSum, returnSum);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+            windowedAggregates.forEach((partition, bookmakerId, game, window, timestamp, count, stakeSum,
+                                        returnSum) -> {
+                try {
+                    writer.writeWindowBucket(partition, bookmakerId, game, window.label(), timestamp, count,
+                            stakeSum, returnSum);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        lastSnapshotNanos = System.nanoTime();
+    }
+
+    /**
+     * Loads the latest snapshot, if snapshots are enabled and one exists
+     *
+     * @param visitor - Visitor receiving the contents of the snapshot
+     * @return boolean - true if a snapshot was loaded
+     * @throws IOException - if the snapshot cannot be read
+     */
+    public boolean load(SnapshotVisitor visitor) throws IOException {
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        if (!enabled || !Files.exists(file)) {
+            return false;
+        }
+        SnapshotReader.read(file, visitor);
+        return true;
+    }
+}
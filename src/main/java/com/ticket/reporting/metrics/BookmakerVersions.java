@@ -0,0 +1,31 @@
+package com.ticket.reporting.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counter per bookmaker, bumped whenever a ticket of the bookmaker is stored, so that readers can tell
+ * whether the CostMetrics of a bookmaker changed without computing them.
+ */
+public class BookmakerVersions {
+    private final Map<Integer, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Marks the tickets of the bookmaker as changed
+     *
+     * @param bookmakerId - Bookmaker Id whose tickets changed
+     */
+    public void bump(int bookmakerId) {
+        versions.computeIfAbsent(bookmakerId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * @param bookmakerId - Bookmaker Id
+     * @return long - Current version, 0 if no ticket of the bookmaker was stored
+     */
+    public long get(int bookmakerId) {
+        AtomicLong version = versions.get(bookmakerId);
+        return version == null ? 0 : version.get();
+    }
+}
@@ -0,0 +1,203 @@
+package com.ticket.reporting.metrics;
+
+import com.ticket.reporting.model.CostMetrics;
+import com.ticket.reporting.model.PartialSums;
+import com.ticket.reporting.model.Ticket;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Running totals per bookmaker and game, kept up to date as tickets are stored so that the
+ * CostMetrics of a bookmaker are answered in O(games) instead of a scan of the ticket store.
+ */
+public class CostAggregates {
+    private final Map<Integer, Map<String, GameTotals>> totalsByBookmaker = new ConcurrentHashMap<>();
+
+    /**
+     * Moves the contribution of a ticket from its previous version to its current version. Only versions whose
+     * status counts towards the metrics contribute, so settling a ticket as cancelled or rejected removes it.
+     *
+     * @param previous - Previously stored version of the ticket, null if the ticket is new
+     * @param current - Version of the ticket that replaces it
+     */
+    public void update(Ticket previous, Ticket current) {
+        if (previous != null && previous.getStatus().countsTowardMetrics()) {
+            totals(previous.getBookmaker(), previous.getGame()).remove(previous);
+        }
+        if (current.getStatus().countsTowardMetrics()) {
+            totals(current.getBookmaker(), current.getGame()).add(current);
+        }
+    }
+
+    /**
+     * Removes the contribution of a ticket, if its status counts towards the metrics
+     *
+     * @param ticket - Ticket to be removed
+     */
+    public void remove(Ticket ticket) {
+        if (ticket.getStatus().countsTowardMetrics()) {
+            totals(ticket.getBookmaker(), ticket.getGame()).remove(ticket);
+        }
+    }
+
+    /**
+     * Subtracts other totals, such as those of the tickets of a partition that are dropped, from these totals
+     *
+     * @param other - Totals to be subtracted
+     */
+    public void subtract(CostAggregates other) {
+        other.forEach((bookmakerId, game, count, stakeSum, returnSum) ->
+                totals(bookmakerId, game).add(-count, -stakeSum, -returnSum));
+    }
+
+    /**
+     * Adds the totals over all games of a bookmaker to the accumulator
+     *
+     * @param bookmakerId - Bookmaker Id whose totals are added
+     * @param accumulator - Totals to which the totals of the bookmaker are added
+     */
+    public void addTo(int bookmakerId, GameTotals accumulator) {
+        totalsByBookmaker.getOrDefault(bookmakerId, Map.of()).values().forEach(totals -> totals.addTo(accumulator));
+    }
+
+    /**
+     * Retrieves the CostMetrics over all games of a bookmaker
+     *
+     * @param bookmakerId - Bookmaker Id for which the CostMetrics are calculated
+     * @return CostMetrics
+     */
+    public CostMetrics getCostMetrics(int bookmakerId) {
+        GameTotals accumulator = new GameTotals();
+        addTo(bookmakerId, accumulator);
+        return accumulator.toCostMetrics();
+    }
+
+    /**
+     * Retrieves the CostMetrics of a bookmaker grouped by game
+     *
+     * @param bookmakerId - Bookmaker Id for which the CostMetrics are calculated
+     * @return Map<String, CostMetrics> - CostMetrics by game, sorted by game
+     */
+    public Map<String, CostMetrics> getCostMetricsByGame(int bookmakerId) {
+        Map<String, CostMetrics> costMetricsByGame = new TreeMap<>();
+        totalsByBookmaker.getOrDefault(bookmakerId, Map.of()).forEach((game, totals) -> {
+            if (totals.getCount() > 0) {
+                costMetricsByGame.put(game, totals.toCostMetrics());
+            }
+        });
+        return costMetricsByGame;
+    }
+
+    /**
+     * Retrieves the CostMetrics of one game of a bookmaker, or of all its games when no game is given
+     *
+     * @param bookmakerId - Bookmaker Id for which the CostMetrics are calculated
+     * @param game - Game the CostMetrics are limited to, null for all games
+     * @return Map<String, CostMetrics> - CostMetrics by game, sorted by game
+     */
+    public Map<String, CostMetrics> getCostMetricsByGame(int bookmakerId, String game) {
+        if (game == null) {
+            return getCostMetricsByGame(bookmakerId);
+        }
+        Map<String, CostMetrics> costMetricsByGame = new TreeMap<>();
+        GameTotals totals = totalsByBookmaker.getOrDefault(bookmakerId, Map.of()).get(game);
+        if (totals != null && totals.getCount() > 0) {
+            costMetricsByGame.put(game, totals.toCostMetrics());
+        }
+        return costMetricsByGame;
+    }
+
+    /**
+     * Retrieves the exact sums over all games of a bookmaker, to be merged with those of other shards
+     *
+     * @param bookmakerId - Bookmaker Id for which the sums are retrieved
+     * @return PartialSums
+     */
+    public PartialSums getPartialSums(int bookmakerId) {
+        GameTotals accumulator = new GameTotals();
+        addTo(bookmakerId, accumulator);
+        return accumulator.toPartialSums();
+    }
+
+    /**
+     * Retrieves the exact sums of a bookmaker by game, to be merged with those of other shards
+     *
+     * @param bookmakerId - Bookmaker Id for which the sums are retrieved
+     * @return Map<String, PartialSums> - Sums by game, sorted by game
+     */
+    public Map<String, PartialSums> getPartialSumsByGame(int bookmakerId) {
+        Map<String, PartialSums> partialSumsByGame = new TreeMap<>();
+        totalsByBookmaker.getOrDefault(bookmakerId, Map.of()).forEach((game, totals) -> {
+            PartialSums partialSums = totals.toPartialSums();
+            if (partialSums.count() > 0) {
+                partialSumsByGame.put(game, partialSums);
+            }
+        });
+        return partialSumsByGame;
+    }
+
+    /**
+     * Retrieves the exact sums of one game of a bookmaker, or of all its games when no game is given
+     *
+     * @param bookmakerId - Bookmaker Id for which the sums are retrieved
+     * @param game - Game the sums are limited to, null for all games
+     * @return Map<String, PartialSums> - Sums by game, sorted by game
+     */
+    public Map<String, PartialSums> getPartialSumsByGame(int bookmakerId, String game) {
+        if (game == null) {
+            return getPartialSumsByGame(bookmakerId);
+        }
+        Map<String, PartialSums> partialSumsByGame = new TreeMap<>();
+        GameTotals totals = totalsByBookmaker.getOrDefault(bookmakerId, Map.of()).get(game);
+        if (totals != null && totals.getCount() > 0) {
+            partialSumsByGame.put(game, totals.toPartialSums());
+        }
+        return partialSumsByGame;
+    }
+
+    /**
+     * Restores the totals of a bookmaker and game from a snapshot
+     *
+     * @param bookmakerId - Bookmaker Id of the totals
+     * @param game - Game of the totals
+     * @param count - Number of tickets
+     * @param stakeSum - Sum of the stakes in Money units
+     * @param returnSum - Sum of the total returns in Money units
+     */
+    public void restore(int bookmakerId, String game, int count, long stakeSum, long returnSum) {
+        totals(bookmakerId, game).restore(count, stakeSum, returnSum);
+    }
+
+    /**
+     * Passes the totals of every bookmaker and game to the visitor
+     *
+     * @param visitor - Visitor receiving the totals
+     */
+    public void forEach(TotalsVisitor visitor) {
+        totalsByBookmaker.forEach((bookmakerId, totalsByGame) ->
+                totalsByGame.forEach((game, totals) -> totals.visit(bookmakerId, game, visitor)));
+    }
+
+    /**
+     * Copies the totals of every bookmaker and game, so that they can be read while these totals keep changing
+     *
+     * @return CostAggregates
+     */
+    public CostAggregates copy() {
+        CostAggregates copy = new CostAggregates();
+        forEach(copy::restore);
+        return copy;
+    }
+
+    private GameTotals totals(int bookmakerId, String game) {
+        return totalsByBookmaker.computeIfAbsent(bookmakerId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(game, name -> new GameTotals());
+    }
+
+    @FunctionalInterface
+    public interface TotalsVisitor {
+        void visit(int bookmakerId, String game, int count, long stakeSum, long returnSum);
+    }
+}
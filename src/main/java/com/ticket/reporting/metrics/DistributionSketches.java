@@ -0,0 +1,111 @@
+package com.ticket.reporting.metrics;
+
+import com.ticket.reporting.model.AmountQuantiles;
+import com.ticket.reporting.model.CostMetrics;
+import com.ticket.reporting.model.StakeDistribution;
+import com.ticket.reporting.model.Ticket;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sketches of the stakes and total returns per bookmaker and game, with an estimate of their distinct currencies,
+ * kept up to date as tickets are stored like the running totals. Each key holds two {@link QuantileSketch} and a
+ * {@link HyperLogLog} of bounded size, so medians and 95th percentiles are answered from a few hundred bins instead
+ * of sorting the tickets of a game, and the sketches of the games of a bookmaker are merged for its overall
+ * distribution. Currencies of removed tickets stay counted, as a HyperLogLog cannot forget a value.
+ */
+public class DistributionSketches {
+    private static final double MEDIAN = 0.5;
+    private static final double P95 = 0.95;
+
+    private final Map<Integer, Map<String, GameSketches>> sketchesByBookmaker = new ConcurrentHashMap<>();
+
+    /**
+     * Moves the contribution of a ticket from its previous version to its current version, like the running totals
+     *
+     * @param previous - Previously stored version of the ticket, null if the ticket is new
+     * @param current - Version of the ticket that replaces it
+     */
+    public void update(Ticket previous, Ticket current) {
+        if (previous != null && previous.getStatus().countsTowardMetrics()) {
+            sketches(previous.getBookmaker(), previous.getGame()).remove(previous);
+        }
+        if (current.getStatus().countsTowardMetrics()) {
+            sketches(current.getBookmaker(), current.getGame()).add(current);
+        }
+    }
+
+    /**
+     * Removes the contribution of a ticket, if its status counts towards the metrics
+     *
+     * @param ticket - Ticket to be removed
+     */
+    public void remove(Ticket ticket) {
+        if (ticket.getStatus().countsTowardMetrics()) {
+            sketches(ticket.getBookmaker(), ticket.getGame()).remove(ticket);
+        }
+    }
+
+    /**
+     * Retrieves the distribution of one game of a bookmaker
+     *
+     * @param bookmakerId - Bookmaker Id of the game
+     * @param game - Game whose distribution is retrieved
+     * @param costMetrics - Exact CostMetrics of the game, returned alongside its distribution
+     * @return StakeDistribution
+     */
+    public StakeDistribution getDistribution(int bookmakerId, String game, CostMetrics costMetrics) {
+        GameSketches sketches = sketchesByBookmaker.getOrDefault(bookmakerId, Map.of()).get(game);
+        return (sketches == null ? new GameSketches() : sketches).toDistribution(costMetrics);
+    }
+
+    /**
+     * Retrieves the distribution over all games of a bookmaker, merging the sketches of its games
+     *
+     * @param bookmakerId - Bookmaker Id whose distribution is retrieved
+     * @param costMetrics - Exact CostMetrics of the bookmaker, returned alongside its distribution
+     * @return StakeDistribution
+     */
+    public StakeDistribution getDistribution(int bookmakerId, CostMetrics costMetrics) {
+        GameSketches merged = new GameSketches();
+        sketchesByBookmaker.getOrDefault(bookmakerId, Map.of()).values().forEach(sketches -> sketches.addTo(merged));
+        return merged.toDistribution(costMetrics);
+    }
+
+    private GameSketches sketches(int bookmakerId, String game) {
+        return sketchesByBookmaker.computeIfAbsent(bookmakerId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(game, name -> new GameSketches());
+    }
+
+    private static final class GameSketches {
+        private final QuantileSketch stakes = new QuantileSketch();
+        private final QuantileSketch returns = new QuantileSketch();
+        private final HyperLogLog currencies = new HyperLogLog();
+
+        private synchronized void add(Ticket ticket) {
+            stakes.add(ticket.getStakeUnits());
+            returns.add(GameTotals.totalReturn(ticket));
+            currencies.add(ticket.getCurrency());
+        }
+
+        private synchronized void remove(Ticket ticket) {
+            stakes.remove(ticket.getStakeUnits());
+            returns.remove(GameTotals.totalReturn(ticket));
+        }
+
+        private synchronized void addTo(GameSketches accumulator) {
+            accumulator.stakes.merge(stakes);
+            accumulator.returns.merge(returns);
+            accumulator.currencies.merge(currencies);
+        }
+
+        private synchronized StakeDistribution toDistribution(CostMetrics costMetrics) {
+            return new StakeDistribution(costMetrics, quantiles(stakes), quantiles(returns), currencies.estimate());
+        }
+
+        private static AmountQuantiles quantiles(QuantileSketch sketch) {
+            return AmountQuantiles.of(sketch.quantile(MEDIAN), sketch.quantile(P95));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ticket.reporting.metrics;
+
+/**
+ * Orders of the game leaderboard of a bookmaker.
+ */
+public enum GameOrder {
+    /**
+     * Highest turnover first
+     */
+    TURNOVER("turnover"),
+    /**
+     * Largest loss first, only games whose profit or loss is negative
+     */
+    LOSS("loss");
+
+    private final String label;
+
+    GameOrder(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Finds the order by its label
+     *
+     * @param label - turnover or loss
+     * @return GameOrder
+     * @throws IllegalArgumentException - if no order has the label
+     */
+    public static GameOrder of(String label) {
+        for (GameOrder order : values()) {
+            if (order.label.equals(label)) {
+                return order;
+            }
+        }
+        throw new IllegalArgumentException("Unknown order " + label + ", expected turnover or loss");
+    }
+
+    public String label() {
+        return label;
+    }
+}
@@ -0,0 +1,101 @@
+package com.ticket.reporting.metrics;
+
+import com.ticket.reporting.model.CostMetrics;
+import com.ticket.reporting.model.Money;
+import com.ticket.reporting.model.PartialSums;
+import com.ticket.reporting.model.Ticket;
+
+/**
+ * Running count, stake sum and return sum of the tickets of one bookmaker and game, in exact Money units.
+ */
+public class GameTotals {
+    private int count;
+    private long stakeSum;
+    private long returnSum;
+
+    /**
+     * Adds the ticket to the totals
+     *
+     * @param ticket - Ticket to be added
+     */
+    public synchronized void add(Ticket ticket) {
+        count++;
+        stakeSum += ticket.getStakeUnits();
+        returnSum += totalReturn(ticket);
+    }
+
+    /**
+     * Adds partial sums to the totals
+     *
+     * @param count - Number of tickets
+     * @param stakeSum - Sum of the stakes in Money units
+     * @param returnSum - Sum of the total returns in Money units
+     */
+    public synchronized void add(int count, long stakeSum, long returnSum) {
+        this.count += count;
+        this.stakeSum += stakeSum;
+        this.returnSum += returnSum;
+    }
+
+    /**
+     * Removes a previously added ticket from the totals
+     *
+     * @param ticket - Ticket to be removed
+     */
+    public synchronized void remove(Ticket ticket) {
+        count--;
+        stakeSum -= ticket.getStakeUnits();
+        returnSum -= totalReturn(ticket);
+    }
+
+    /**
+     * Adds these totals to the given accumulator
+     *
+     * @param accumulator - Totals to which these totals are added
+     */
+    public synchronized void addTo(GameTotals accumulator) {
+        accumulator.count += count;
+        accumulator.stakeSum += stakeSum;
+        accumulator.returnSum += returnSum;
+    }
+
+    /**
+     * Replaces the totals, used when restoring them from a snapshot
+     *
+     * @param count - Number of tickets
+     * @param stakeSum - Sum of the stakes in Money units
+     * @param returnSum - Sum of the total returns in Money units
+     */
+    public synchronized void restore(int count, long stakeSum, long returnSum) {
+        this.count = count;
+        this.stakeSum = stakeSum;
+        this.returnSum = returnSum;
+    }
+
+    /**
+     * Passes a consistent view of the totals to the visitor
+     *
+     * @param bookmakerId - Bookmaker Id of the totals
+     * @param game - Game of the totals
+     * @param visitor - Visitor receiving the totals
+     */
+    public synchronized void visit(int bookmakerId, String game, CostAggregates.TotalsVisitor visitor) {
+        visitor.visit(bookmakerId, game, count, stakeSum, returnSum);
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public synchronized PartialSums toPartialSums() {
+        return new PartialSums(count, stakeSum, returnSum);
+    }
+
+    public synchronized CostMetrics toCostMetrics() {
+        return CostMetrics.of(count, stakeSum, returnSum);
+    }
+
+    static long totalReturn(Ticket ticket) {
+        return ticket.getTotalReturnUnits() == Money.ABSENT ? 0 : ticket.getTotalReturnUnits();
+    }
+}
@@ -0,0 +1,68 @@
+package com.ticket.reporting.metrics;
+
+/**
+ * HyperLogLog estimate of the number of distinct values added, in a fixed 2^PRECISION registers of one byte each.
+ * Each value is hashed, the first PRECISION bits of the hash select a register and the register keeps the longest
+ * run of leading zeros seen in the remaining bits. Small counts, such as the currencies of a game, are estimated by
+ * linear counting of the empty registers and are nearly exact; beyond that the standard error is 1.04 / 2^(P / 2),
+ * 6.5%. Values cannot be removed, two estimates are merged by keeping the larger register. Not thread safe.
+ */
+class HyperLogLog {
+    private static final int PRECISION = 8;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    void add(String value) {
+        long hash = mix(value.hashCode());
+        int register = (int) (hash >>> (Long.SIZE - PRECISION));
+        // The marker bit bounds the run of zeros when the remaining bits are all zero
+        byte rank = (byte) (Long.numberOfLeadingZeros(hash << PRECISION | 1L << (PRECISION - 1)) + 1);
+        if (rank > registers[register]) {
+            registers[register] = rank;
+        }
+    }
+
+    /**
+     * Adds the values of another estimate to this estimate
+     *
+     * @param other - Estimate to be merged
+     */
+    void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+    }
+
+    /**
+     * @return long - Estimated number of distinct values added
+     */
+    long estimate() {
+        double sum = 0;
+        int empty = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                empty++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && empty > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / empty);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Spreads the 32 bit String hash over 64 bits, the finalizer of MurmurHash3
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,132 @@
+package com.ticket.reporting.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters of the ingest path. All meters are registered up front, so recording a message only increments
+ * counters and timers that already exist and allocates nothing.
+ */
+@Singleton
+public class IngestMetrics {
+    private final MeterRegistry registry;
+    private final Counter stored;
+    private final Counter evicted;
+    private final Counter skipped;
+    private final Counter tombstones;
+    private final Counter deadLettersDropped;
+    private final Counter[] rejected = new Counter[Rejection.values().length];
+    private final Timer parse;
+    private final Timer poll;
+
+    @Inject
+    public IngestMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        stored = Counter.builder("tickets.stored")
+                .description("Tickets applied to the ticket store")
+                .register(registry);
+        evicted = Counter.builder("tickets.evicted")
+                .description("Settled tickets evicted from the ticket store by retention")
+                .register(registry);
+        skipped = Counter.builder("tickets.skipped")
+                .description("Tickets of bookmakers owned by another shard")
+                .register(registry);
+        tombstones = Counter.builder("tickets.tombstones")
+                .description("Records without a value, deletes of a ticket id on the compacted topic")
+                .register(registry);
+        deadLettersDropped = Counter.builder("tickets.dead.letters.dropped")
+                .description("Rejected messages that could not be sent to the dead letter topic")
+                .register(registry);
+        for (Rejection reason : Rejection.values()) {
+            rejected[reason.ordinal()] = Counter.builder("tickets.rejected")
+                    .description("Messages not applied to the ticket store")
+                    .tag("reason", reason.tag)
+                    .register(registry);
+        }
+        parse = Timer.builder("tickets.parse")
+                .description("Time to parse and validate one message")
+                .publishPercentileHistogram()
+                .register(registry);
+        poll = Timer.builder("tickets.poll")
+                .description("Time to apply all records of one poll")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Registers a gauge sampling a size, e.g. of the ticket store, when the registry is scraped
+     *
+     * @param name - Meter name
+     * @param description - Meter description
+     * @param size - Supplier of the current size
+     */
+    public void gauge(String name, String description, Supplier<Number> size) {
+        Gauge.builder(name, size).description(description).strongReference(true).register(registry);
+    }
+
+    public void stored() {
+        stored.increment();
+    }
+
+    public void evicted() {
+        evicted.increment();
+    }
+
+    public void skipped() {
+        skipped.increment();
+    }
+
+    public void tombstone() {
+        tombstones.increment();
+    }
+
+    public void deadLetterDropped() {
+        deadLettersDropped.increment();
+    }
+
+    public void rejected(Rejection reason) {
+        rejected[reason.ordinal()].increment();
+    }
+
+    public void parsed(long nanos) {
+        parse.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void polled(long nanos) {
+        poll.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public enum Rejection {
+        SCHEMA("schema"), MALFORMED("malformed"), TRANSITION("transition"), EXPIRED("expired");
+
+        private final String tag;
+
+        Rejection(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+
+        /**
+         * @param tag - Tag of a rejection, e.g. from a dead-letter-reason header
+         * @return Rejection - null if no rejection has the tag
+         */
+        public static Rejection of(String tag) {
+            for (Rejection reason : values()) {
+                if (reason.tag.equals(tag)) {
+                    return reason;
+                }
+            }
+            return null;
+        }
+    }
+}
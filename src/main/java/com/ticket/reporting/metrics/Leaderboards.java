@@ -0,0 +1,223 @@
+package com.ticket.reporting.metrics;
+
+import com.ticket.reporting.model.BookmakerRanking;
+import com.ticket.reporting.model.GameRanking;
+import com.ticket.reporting.model.PartialSums;
+import com.ticket.reporting.model.Ticket;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Leaderboards kept sorted as tickets are stored: the games of each bookmaker by turnover and by loss, and the
+ * bookmakers by margin. Each stored ticket moves its game to its new position in a {@link RankedList}, and its
+ * bookmaker on the next read of the bookmaker leaderboard, so the top N of a leaderboard are copied from its head
+ * instead of sorting all games or scanning the ticket store. Games and totals of a bookmaker are guarded by the
+ * bookmaker. The bookmaker leaderboard is shared by all ingest threads, so stored tickets do not rank their
+ * bookmaker: they queue it as dirty once until the next read, which re-ranks the dirty bookmakers under the lock of
+ * the leaderboard, taking the lock of each bookmaker after it.
+ */
+public class Leaderboards {
+    private static final Comparator<GameRank> BY_TURNOVER = (rank, other) -> {
+        int compared = Long.compare(other.stakeSum, rank.stakeSum);
+        return compared != 0 ? compared : rank.game.compareTo(other.game);
+    };
+    private static final Comparator<GameRank> BY_LOSS = (rank, other) -> {
+        int compared = Long.compare(rank.profitLoss(), other.profitLoss());
+        return compared != 0 ? compared : rank.game.compareTo(other.game);
+    };
+    private static final Comparator<BookmakerBoard> BY_MARGIN = (board, other) -> {
+        int compared = Double.compare(other.margin, board.margin);
+        return compared != 0 ? compared : Integer.compare(board.bookmakerId, other.bookmakerId);
+    };
+
+    private final Map<Integer, BookmakerBoard> boards = new ConcurrentHashMap<>();
+    private final RankedList<BookmakerBoard> bookmakersByMargin = new RankedList<>(BY_MARGIN,
+            board -> board.marginPosition, (board, position) -> board.marginPosition = position);
+    private final Queue<BookmakerBoard> dirtyBoards = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Moves the contribution of a ticket from its previous version to its current version, like the running totals
+     *
+     * @param previous - Previously stored version of the ticket, null if the ticket is new
+     * @param current - Version of the ticket that replaces it
+     */
+    public void update(Ticket previous, Ticket current) {
+        if (previous != null && previous.getStatus().countsTowardMetrics()) {
+            board(previous.getBookmaker()).add(previous.getGame(), -1, -previous.getStakeUnits(),
+                    -GameTotals.totalReturn(previous));
+        }
+        if (current.getStatus().countsTowardMetrics()) {
+            board(current.getBookmaker()).add(current.getGame(), 1, current.getStakeUnits(),
+                    GameTotals.totalReturn(current));
+        }
+    }
+
+    /**
+     * Removes the contribution of a ticket, if its status counts towards the metrics
+     *
+     * @param ticket - Ticket to be removed
+     */
+    public void remove(Ticket ticket) {
+        if (ticket.getStatus().countsTowardMetrics()) {
+            board(ticket.getBookmaker()).add(ticket.getGame(), -1, -ticket.getStakeUnits(),
+                    -GameTotals.totalReturn(ticket));
+        }
+    }
+
+    /**
+     * Subtracts totals, such as those of the evicted tickets of a partition that is dropped, from the leaderboards
+     *
+     * @param totals - Totals per bookmaker and game to be subtracted
+     */
+    public void subtract(CostAggregates totals) {
+        totals.forEach((bookmakerId, game, count, stakeSum, returnSum) ->
+                board(bookmakerId).add(game, -count, -stakeSum, -returnSum));
+    }
+
+    /**
+     * Restores the totals of a bookmaker and game from a snapshot
+     *
+     * @param bookmakerId - Bookmaker Id of the totals
+     * @param game - Game of the totals
+     * @param count - Number of tickets
+     * @param stakeSum - Sum of the stakes in Money units
+     * @param returnSum - Sum of the total returns in Money units
+     */
+    public void restore(int bookmakerId, String game, int count, long stakeSum, long returnSum) {
+        board(bookmakerId).add(game, count, stakeSum, returnSum);
+    }
+
+    /**
+     * Retrieves the first games of a bookmaker in the given order
+     *
+     * @param bookmakerId - Bookmaker Id whose games are ranked
+     * @param order - Order of the leaderboard
+     * @param limit - Maximum number of games returned
+     * @return List<GameRanking>
+     */
+    public List<GameRanking> getTopGames(int bookmakerId, GameOrder order, int limit) {
+        BookmakerBoard board = boards.get(bookmakerId);
+        if (board == null) {
+            return List.of();
+        }
+        synchronized (board) {
+            return (order == GameOrder.TURNOVER ? board.byTurnover : board.byLoss).top(limit,
+                    rank -> new GameRanking(rank.game, rank.toPartialSums().toCostMetrics()));
+        }
+    }
+
+    /**
+     * Retrieves the bookmakers with the highest margin over all their games, bookmakers without turnover are not
+     * ranked
+     *
+     * @param limit - Maximum number of bookmakers returned
+     * @return List<BookmakerRanking>
+     */
+    public List<BookmakerRanking> getTopBookmakersByMargin(int limit) {
+        synchronized (bookmakersByMargin) {
+            for (BookmakerBoard board = dirtyBoards.poll(); board != null; board = dirtyBoards.poll()) {
+                board.rankByMargin();
+            }
+            return bookmakersByMargin.top(limit,
+                    board -> new BookmakerRanking(board.bookmakerId,
+                            new PartialSums(board.rankedCount, board.rankedStake, board.rankedReturn)
+                                    .toCostMetrics()));
+        }
+    }
+
+    private BookmakerBoard board(int bookmakerId) {
+        return boards.computeIfAbsent(bookmakerId, BookmakerBoard::new);
+    }
+
+    private final class BookmakerBoard {
+        private final int bookmakerId;
+        private final Map<String, GameRank> games = new HashMap<>();
+        private final RankedList<GameRank> byTurnover = new RankedList<>(BY_TURNOVER,
+                rank -> rank.turnoverPosition, (rank, position) -> rank.turnoverPosition = position);
+        private final RankedList<GameRank> byLoss = new RankedList<>(BY_LOSS,
+                rank -> rank.lossPosition, (rank, position) -> rank.lossPosition = position);
+        private int totalCount;
+        private long totalStake;
+        private long totalReturn;
+        private boolean dirty;
+        // Totals as of the last ranking, read and written under the lock of bookmakersByMargin
+        private int rankedCount;
+        private long rankedStake;
+        private long rankedReturn;
+        private double margin;
+        private int marginPosition = -1;
+
+        private BookmakerBoard(int bookmakerId) {
+            this.bookmakerId = bookmakerId;
+        }
+
+        private synchronized void add(String game, int count, long stakeSum, long returnSum) {
+            GameRank rank = games.computeIfAbsent(game, GameRank::new);
+            rank.count += count;
+            rank.stakeSum += stakeSum;
+            rank.returnSum += returnSum;
+            rank(byTurnover, rank, rank.count > 0);
+            rank(byLoss, rank, rank.count > 0 && rank.profitLoss() < 0);
+            totalCount += count;
+            totalStake += stakeSum;
+            totalReturn += returnSum;
+            if (!dirty) {
+                dirty = true;
+                dirtyBoards.add(this);
+            }
+        }
+
+        /**
+         * Moves the bookmaker to the position of its current totals, called under the lock of bookmakersByMargin
+         */
+        private void rankByMargin() {
+            synchronized (this) {
+                dirty = false;
+                rankedCount = totalCount;
+                rankedStake = totalStake;
+                rankedReturn = totalReturn;
+            }
+            margin = rankedStake > 0 ? (double) (rankedReturn - rankedStake) / rankedStake : 0;
+            rank(bookmakersByMargin, this, rankedCount > 0 && rankedStake > 0);
+        }
+    }
+
+    private static <T> void rank(RankedList<T> list, T entry, boolean ranked) {
+        if (!ranked) {
+            if (list.contains(entry)) {
+                list.remove(entry);
+            }
+        } else if (list.contains(entry)) {
+            list.moved(entry);
+        } else {
+            list.add(entry);
+        }
+    }
+
+    private static final class GameRank {
+        private final String game;
+        private int count;
+        private long stakeSum;
+        private long returnSum;
+        private int turnoverPosition = -1;
+        private int lossPosition = -1;
+
+        private GameRank(String game) {
+            this.game = game;
+        }
+
+        private long profitLoss() {
+            return returnSum - stakeSum;
+        }
+
+        private PartialSums toPartialSums() {
+            return new PartialSums(count, stakeSum, returnSum);
+        }
+    }
+}
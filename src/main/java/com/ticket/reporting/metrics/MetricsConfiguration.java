@@ -0,0 +1,33 @@
+package com.ticket.reporting.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+/**
+ * Publishes latency histograms of the REST endpoints, recorded per uri template by the Quarkus http server binder.
+ */
+@ApplicationScoped
+public class MetricsConfiguration {
+    private static final String HTTP_SERVER_REQUESTS = "http.server.requests";
+
+    @Produces
+    @Singleton
+    MeterFilter endpointHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().equals(HTTP_SERVER_REQUESTS)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+}
@@ -0,0 +1,153 @@
+package com.ticket.reporting.metrics;
+
+/**
+ * Quantile sketch of non-negative amounts in Money units with a relative error of at most RELATIVE_ACCURACY, in the
+ * manner of DDSketch: each amount is counted in a logarithmic bin, whose bounds differ by a factor of GAMMA, and a
+ * quantile is answered with the middle of the bin holding its rank. As bins only hold counts, a ticket is removed
+ * exactly like it was added and two sketches are merged by adding their bins. At most MAX_BINS bins are kept; past
+ * that the lowest bins are folded together, losing accuracy only for the smallest amounts. Not thread safe.
+ */
+class QuantileSketch {
+    static final double RELATIVE_ACCURACY = 0.02;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    // At 2% this spans amounts differing by a factor of 10^8, the stakes of a game mostly need a few hundred bins
+    private static final int MAX_BINS = 512;
+    private static final int INITIAL_BINS = 32;
+    private static final int[] EMPTY = new int[0];
+
+    // counts[i] holds the amounts of bin offset + i
+    private int[] counts = EMPTY;
+    private int offset;
+    private long zeroCount;
+    private long count;
+
+    void add(long units) {
+        count++;
+        if (units <= 0) {
+            zeroCount++;
+            return;
+        }
+        int index = index(units);
+        if (counts.length == 0) {
+            counts = new int[INITIAL_BINS];
+            offset = index - INITIAL_BINS / 2;
+        }
+        if (index < offset || index >= offset + counts.length) {
+            index = cover(index);
+        }
+        counts[index - offset]++;
+    }
+
+    /**
+     * Removes a previously added amount, which lies in the bin it was counted in or in the lowest bin if its bin
+     * has been folded since
+     *
+     * @param units - Amount in Money units
+     */
+    void remove(long units) {
+        count--;
+        if (units <= 0) {
+            zeroCount--;
+        } else if (counts.length > 0) {
+            int index = Math.max(offset, Math.min(index(units), offset + counts.length - 1));
+            counts[index - offset]--;
+        }
+        if (count == 0) {
+            counts = EMPTY;
+            zeroCount = 0;
+        }
+    }
+
+    /**
+     * Adds the bins of another sketch to this sketch
+     *
+     * @param other - Sketch to be merged
+     */
+    void merge(QuantileSketch other) {
+        count += other.count;
+        zeroCount += other.zeroCount;
+        if (other.counts.length == 0) {
+            return;
+        }
+        if (counts.length == 0) {
+            counts = new int[other.counts.length];
+            offset = other.offset;
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                int index = cover(other.offset + i);
+                counts[index - offset] += other.counts[i];
+            }
+        }
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * @param quantile - Quantile between 0 and 1
+     * @return long - Amount in Money units at the quantile, within the relative accuracy, 0 if the sketch is empty
+     */
+    long quantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) (quantile * (count - 1));
+        long seen = zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return value(offset + i);
+            }
+        }
+        return value(offset + counts.length - 1);
+    }
+
+    private static int index(long units) {
+        return (int) Math.ceil(Math.log(units) / LOG_GAMMA);
+    }
+
+    /**
+     * @return long - Middle of bin index, whose amounts lie above GAMMA^(index - 1) and up to GAMMA^index
+     */
+    private static long value(int index) {
+        return Math.round(2 * Math.pow(GAMMA, index) / (GAMMA + 1));
+    }
+
+    /**
+     * Grows the bins to cover the index, folding the lowest bins into one if they would exceed MAX_BINS
+     *
+     * @param index - Bin index to be covered
+     * @return int - Bin index the amounts of index are counted in
+     */
+    private int cover(int index) {
+        int high = offset + counts.length - 1;
+        if (index >= offset && index <= high) {
+            return index;
+        }
+        int low;
+        int length;
+        if (index > high) {
+            length = Math.min(MAX_BINS, Math.max(index - offset + 1, counts.length * 2));
+            low = index - offset + 1 > MAX_BINS ? index - MAX_BINS + 1 : offset;
+        } else {
+            // Growing downwards, the spare bins go below
+            length = Math.min(MAX_BINS, Math.max(high - index + 1, counts.length * 2));
+            low = high - length + 1;
+        }
+        if (low != offset || length != counts.length) {
+            int[] grown = new int[length];
+            for (int i = 0; i < counts.length; i++) {
+                grown[Math.max(offset + i, low) - low] += counts[i];
+            }
+            counts = grown;
+            offset = low;
+        }
+        return Math.max(index, offset);
+    }
+}
@@ -0,0 +1,92 @@
+package com.ticket.reporting.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Array of entries kept sorted while their keys change. Each entry remembers its position, so an entry whose key
+ * changed is moved by swapping it with its neighbours until it is in order again. Keys of running totals change in
+ * small steps, so an update usually swaps a few entries and allocates nothing. Not thread safe.
+ *
+ * @param <T> - Type of the entries
+ */
+final class RankedList<T> {
+    private final Comparator<T> order;
+    private final ToIntFunction<T> position;
+    private final ObjIntConsumer<T> setPosition;
+    private Object[] entries = new Object[8];
+    private int size;
+
+    /**
+     * @param order - Order of the entries
+     * @param position - Reads the position of an entry, -1 if the entry is not in the list
+     * @param setPosition - Stores the position of an entry
+     */
+    RankedList(Comparator<T> order, ToIntFunction<T> position, ObjIntConsumer<T> setPosition) {
+        this.order = order;
+        this.position = position;
+        this.setPosition = setPosition;
+    }
+
+    boolean contains(T entry) {
+        return position.applyAsInt(entry) >= 0;
+    }
+
+    void add(T entry) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        place(entry, size++);
+        moved(entry);
+    }
+
+    void remove(T entry) {
+        int removed = position.applyAsInt(entry);
+        for (int i = removed; i < size - 1; i++) {
+            place(get(i + 1), i);
+        }
+        entries[--size] = null;
+        setPosition.accept(entry, -1);
+    }
+
+    /**
+     * Moves an entry whose key changed to its position in the order
+     *
+     * @param entry - Entry in the list
+     */
+    void moved(T entry) {
+        int at = position.applyAsInt(entry);
+        while (at > 0 && order.compare(get(at - 1), entry) > 0) {
+            place(get(at - 1), at);
+            place(entry, --at);
+        }
+        while (at < size - 1 && order.compare(entry, get(at + 1)) > 0) {
+            place(get(at + 1), at);
+            place(entry, ++at);
+        }
+    }
+
+    <R> List<R> top(int limit, Function<T, R> mapper) {
+        int count = Math.min(limit, size);
+        List<R> top = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            top.add(mapper.apply(get(i)));
+        }
+        return top;
+    }
+
+    private void place(T entry, int at) {
+        entries[at] = entry;
+        setPosition.accept(entry, at);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T get(int at) {
+        return (T) entries[at];
+    }
+}
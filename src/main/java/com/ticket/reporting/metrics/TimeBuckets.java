@@ -0,0 +1,86 @@
+package com.ticket.reporting.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Ring of time buckets holding the count, stake and return deltas applied in each bucket, in Money units. A bucket
+ * is reused once its slot comes round again, so memory is fixed by the window and deltas older than the window are
+ * dropped.
+ */
+class TimeBuckets {
+    private final long bucketMillis;
+    private final long[] epochs;
+    private final int[] counts;
+    private final long[] stakeSums;
+    private final long[] returnSums;
+
+    TimeBuckets(TimeWindow window) {
+        this.bucketMillis = window.bucketMillis();
+        int buckets = window.buckets();
+        epochs = new long[buckets];
+        counts = new int[buckets];
+        stakeSums = new long[buckets];
+        returnSums = new long[buckets];
+        Arrays.fill(epochs, Long.MIN_VALUE);
+    }
+
+    /**
+     * Adds a delta to the bucket of its timestamp
+     *
+     * @param timestamp - Epoch millis the delta belongs to
+     * @param count - Change of the number of tickets
+     * @param stake - Change of the stake sum in Money units
+     * @param totalReturn - Change of the return sum in Money units
+     */
+    synchronized void add(long timestamp, int count, long stake, long totalReturn) {
+        long epoch = Math.floorDiv(timestamp, bucketMillis);
+        int slot = (int) Math.floorMod(epoch, (long) epochs.length);
+        if (epochs[slot] > epoch) {
+            // The slot already holds a newer bucket, the delta is older than the window
+            return;
+        }
+        if (epochs[slot] < epoch) {
+            epochs[slot] = epoch;
+            counts[slot] = 0;
+            stakeSums[slot] = 0;
+            returnSums[slot] = 0;
+        }
+        counts[slot] += count;
+        stakeSums[slot] += stake;
+        returnSums[slot] += totalReturn;
+    }
+
+    /**
+     * Passes every bucket holding a delta to the visitor, with the epoch millis its time bucket starts at
+     *
+     * @param visitor - Receives the start, count, stake and return of each bucket
+     */
+    synchronized void forEach(Visitor visitor) {
+        for (int slot = 0; slot < epochs.length; slot++) {
+            if (epochs[slot] != Long.MIN_VALUE) {
+                visitor.visit(epochs[slot] * bucketMillis, counts[slot], stakeSums[slot], returnSums[slot]);
+            }
+        }
+    }
+
+    /**
+     * Adds the buckets within the window ending at now to the accumulator
+     *
+     * @param now - Epoch millis the window ends at
+     * @param accumulator - Totals to which the buckets are added
+     */
+    synchronized void addTo(long now, GameTotals accumulator) {
+        long newest = Math.floorDiv(now, bucketMillis);
+        long oldest = newest - epochs.length;
+        for (int slot = 0; slot < epochs.length; slot++) {
+            if (epochs[slot] > oldest && epochs[slot] <= newest) {
+                accumulator.add(counts[slot], stakeSums[slot], returnSums[slot]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Visitor {
+        void visit(long timestamp, int count, long stakeSum, long returnSum);
+    }
+}
@@ -0,0 +1,51 @@
+package com.ticket.reporting.metrics;
+
+import java.time.Duration;
+
+/**
+ * Rolling windows of the windowed CostMetrics, each kept as a ring of fixed-size time buckets. A window covers its
+ * length rounded up to whole buckets, including the bucket that is still filling.
+ */
+public enum TimeWindow {
+    FIVE_MINUTES("5m", Duration.ofMinutes(5), Duration.ofSeconds(10)),
+    ONE_HOUR("1h", Duration.ofHours(1), Duration.ofMinutes(1)),
+    ONE_DAY("1d", Duration.ofDays(1), Duration.ofMinutes(30));
+
+    private final String label;
+    private final long bucketMillis;
+    private final int buckets;
+
+    TimeWindow(String label, Duration length, Duration bucket) {
+        this.label = label;
+        this.bucketMillis = bucket.toMillis();
+        this.buckets = (int) (length.toMillis() / bucketMillis);
+    }
+
+    /**
+     * Finds the window by its label
+     *
+     * @param label - 5m, 1h or 1d
+     * @return TimeWindow
+     * @throws IllegalArgumentException - if no window has the label
+     */
+    public static TimeWindow of(String label) {
+        for (TimeWindow window : values()) {
+            if (window.label.equals(label)) {
+                return window;
+            }
+        }
+        throw new IllegalArgumentException("Unknown window " + label + ", expected 5m, 1h or 1d");
+    }
+
+    public String label() {
+        return label;
+    }
+
+    long bucketMillis() {
+        return bucketMillis;
+    }
+
+    int buckets() {
+        return buckets;
+    }
+}
@@ -0,0 +1,182 @@
+package com.ticket.reporting.metrics;
+
+import com.ticket.reporting.model.CostMetrics;
+import com.ticket.reporting.model.Ticket;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rolling totals per bookmaker and game for each TimeWindow. Every applied ticket version adds the same delta as in
+ * CostAggregates to the time bucket of its Kafka record timestamp, so a window holds the change of turnover and
+ * profit or loss made by the records of that period: a ticket placed and cancelled within the window contributes
+ * nothing, and settling an older ticket moves only its return into the window. A window in which more tickets left
+ * the metrics than entered them, such as by the cancellation of tickets placed before it, reports neither a
+ * negative number of tickets nor a negative turnover but none, while its profit or loss still holds the change.
+ * Buckets are kept apart per partition of the tickets topic, so that the windows of a revoked partition are
+ * dropped with its tickets.
+ */
+public class WindowedCostAggregates {
+    private final Map<Integer, Map<Integer, Map<String, TimeBuckets[]>>> bucketsByPartition =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Moves the contribution of a ticket from its previous version to its current version within the windows
+     *
+     * @param previous - Previously stored version of the ticket, null if the ticket is new
+     * @param current - Version of the ticket that replaces it
+     * @param timestamp - Epoch millis of the record the current version was received in
+     */
+    public void update(Ticket previous, Ticket current, long timestamp) {
+        if (previous != null && previous.getStatus().countsTowardMetrics()) {
+            add(previous, -1, timestamp);
+        }
+        if (current.getStatus().countsTowardMetrics()) {
+            add(current, 1, timestamp);
+        }
+    }
+
+    /**
+     * Removes the contribution of a ticket that is no longer held, such as one moved to another shard
+     *
+     * @param ticket - Stored version of the ticket
+     * @param timestamp - Epoch millis of the record that moved the ticket
+     */
+    public void remove(Ticket ticket, long timestamp) {
+        if (ticket.getStatus().countsTowardMetrics()) {
+            add(ticket, -1, timestamp);
+        }
+    }
+
+    /**
+     * Drops the buckets of a partition of the tickets topic
+     *
+     * @param partition - Partition whose buckets are dropped
+     */
+    public void removePartition(int partition) {
+        bucketsByPartition.remove(partition);
+    }
+
+    /**
+     * Retrieves the CostMetrics over all games of a bookmaker within the window ending at now
+     *
+     * @param bookmakerId - Bookmaker Id for which the CostMetrics are calculated
+     * @param window - Window length
+     * @param now - Epoch millis the window ends at
+     * @return CostMetrics
+     */
+    public CostMetrics getCostMetrics(int bookmakerId, TimeWindow window, long now) {
+        GameTotals accumulator = new GameTotals();
+        for (Map<Integer, Map<String, TimeBuckets[]>> bucketsByBookmaker : bucketsByPartition.values()) {
+            bucketsByBookmaker.getOrDefault(bookmakerId, Map.of()).values()
+                    .forEach(buckets -> buckets[window.ordinal()].addTo(now, accumulator));
+        }
+        return toCostMetrics(accumulator);
+    }
+
+    /**
+     * Retrieves the CostMetrics of a bookmaker grouped by game within the window ending at now
+     *
+     * @param bookmakerId - Bookmaker Id for which the CostMetrics are calculated
+     * @param window - Window length
+     * @param now - Epoch millis the window ends at
+     * @return Map<String, CostMetrics> - CostMetrics by game, sorted by game, for games whose
+     * metrics changed within the window
+     */
+    public Map<String, CostMetrics> getCostMetricsByGame(int bookmakerId, TimeWindow window, long now) {
+        Map<String, GameTotals> totalsByGame = new TreeMap<>();
+        for (Map<Integer, Map<String, TimeBuckets[]>> bucketsByBookmaker : bucketsByPartition.values()) {
+            bucketsByBookmaker.getOrDefault(bookmakerId, Map.of()).forEach((game, buckets) ->
+                    buckets[window.ordinal()].addTo(now, totalsByGame.computeIfAbsent(game, name -> new GameTotals())));
+        }
+        Map<String, CostMetrics> costMetricsByGame = new TreeMap<>();
+        totalsByGame.forEach((game, totals) -> {
+            CostMetrics costMetrics = toCostMetrics(totals);
+            if (costMetrics.numberOfTickets() != 0 || costMetrics.turnover() != 0 || costMetrics.profitLoss() != 0) {
+                costMetricsByGame.put(game, costMetrics);
+            }
+        });
+        return costMetricsByGame;
+    }
+
+    /**
+     * Restores the delta of one time bucket from a snapshot
+     *
+     * @param partition - Partition of the tickets topic the bucket belongs to
+     * @param bookmakerId - Bookmaker Id of the bucket
+     * @param game - Game of the bucket
+     * @param window - Window the bucket belongs to
+     * @param timestamp - Epoch millis the time bucket starts at
+     * @param count - Change of the number of tickets
+     * @param stakeSum - Change of the stake sum in Money units
+     * @param returnSum - Change of the return sum in Money units
+     */
+    public void restore(int partition, int bookmakerId, String game, TimeWindow window, long timestamp, int count,
+                        long stakeSum, long returnSum) {
+        buckets(partition, bookmakerId, game)[window.ordinal()].add(timestamp, count, stakeSum, returnSum);
+    }
+
+    /**
+     * Passes the buckets of every partition, bookmaker, game and window to the visitor
+     *
+     * @param visitor - Visitor receiving the buckets
+     */
+    public void forEach(BucketVisitor visitor) {
+        bucketsByPartition.forEach((partition, bucketsByBookmaker) ->
+                bucketsByBookmaker.forEach((bookmakerId, bucketsByGame) -> bucketsByGame.forEach((game, buckets) -> {
+                    for (TimeWindow window : TimeWindow.values()) {
+                        buckets[window.ordinal()].forEach((timestamp, count, stakeSum, returnSum) -> visitor.visit(
+                                partition, bookmakerId, game, window, timestamp, count, stakeSum, returnSum));
+                    }
+                })));
+    }
+
+    /**
+     * Copies the buckets of every partition, bookmaker, game and window, so that they can be read while these keep
+     * changing
+     *
+     * @return WindowedCostAggregates
+     */
+    public WindowedCostAggregates copy() {
+        WindowedCostAggregates copy = new WindowedCostAggregates();
+        forEach(copy::restore);
+        return copy;
+    }
+
+    private static CostMetrics toCostMetrics(GameTotals totals) {
+        CostMetrics costMetrics = totals.toCostMetrics();
+        if (costMetrics.numberOfTickets() >= 0 && costMetrics.turnover() >= 0) {
+            return costMetrics;
+        }
+        double turnover = Math.max(0, costMetrics.turnover());
+        return new CostMetrics(Math.max(0, costMetrics.numberOfTickets()), turnover, costMetrics.profitLoss(),
+                turnover > 0 ? costMetrics.margin() : 0);
+    }
+
+    private void add(Ticket ticket, int sign, long timestamp) {
+        long totalReturn = GameTotals.totalReturn(ticket);
+        for (TimeBuckets buckets : buckets(ticket.getPartition(), ticket.getBookmaker(), ticket.getGame())) {
+            buckets.add(timestamp, sign, sign * ticket.getStakeUnits(), sign * totalReturn);
+        }
+    }
+
+    private TimeBuckets[] buckets(int partition, int bookmakerId, String game) {
+        return bucketsByPartition.computeIfAbsent(partition, p -> new ConcurrentHashMap<>())
+                .computeIfAbsent(bookmakerId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(game, name -> {
+                    TimeWindow[] windows = TimeWindow.values();
+                    TimeBuckets[] buckets = new TimeBuckets[windows.length];
+                    for (TimeWindow window : windows) {
+                        buckets[window.ordinal()] = new TimeBuckets(window);
+                    }
+                    return buckets;
+                });
+    }
+
+    @FunctionalInterface
+    public interface BucketVisitor {
+        void visit(int partition, int bookmakerId, String game, TimeWindow window, long timestamp, int count,
+                   long stakeSum, long returnSum);
+    }
+}
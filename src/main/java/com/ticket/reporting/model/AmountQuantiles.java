@@ -0,0 +1,17 @@
+package com.ticket.reporting.model;
+
+/**
+ * Median and 95th percentile of amounts such as the stakes of a game, estimated by a quantile sketch within its
+ * relative accuracy and rounded half up to 2 decimal places.
+ */
+public record AmountQuantiles(double median, double p95) {
+
+    /**
+     * @param medianUnits - Median in Money units
+     * @param p95Units - 95th percentile in Money units
+     * @return AmountQuantiles
+     */
+    public static AmountQuantiles of(long medianUnits, long p95Units) {
+        return new AmountQuantiles(Money.toCents(medianUnits) / 100.0, Money.toCents(p95Units) / 100.0);
+    }
+}
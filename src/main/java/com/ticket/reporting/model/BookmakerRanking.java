@@ -0,0 +1,4 @@
+package com.ticket.reporting.model;
+
+public record BookmakerRanking(int bookmaker, CostMetrics costMetrics) {
+}
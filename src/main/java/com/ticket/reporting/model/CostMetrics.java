@@ -1,4 +1,31 @@
 package com.ticket.reporting.model;
 
 public record CostMetrics(int numberOfTickets, double turnover, double profitLoss, double margin) {
+
+    /**
+     * Creates the CostMetrics from the exact summed stakes and returns of a set of tickets.
+     * Amounts are rounded half up to 2 decimal places only here, when leaving the fixed-point representation.
+     *
+     * @param numberOfTickets - Number of tickets summed
+     * @param stakeUnits - Sum of the stakes in Money units
+     * @param returnUnits - Sum of the total returns in Money units
+     * @return CostMetrics
+     */
+    public static CostMetrics of(int numberOfTickets, long stakeUnits, long returnUnits) {
+        long turnoverCents = Money.toCents(stakeUnits);
+        long profitOrLossCents = Money.toCents(returnUnits - stakeUnits);
+        double margin = (turnoverCents > 0 && profitOrLossCents != 0)
+                ? roundPercent((double) profitOrLossCents / turnoverCents * 100) : 0;
+        return new CostMetrics(numberOfTickets, turnoverCents / 100.0, profitOrLossCents / 100.0, margin);
+    }
+
+    /**
+     * Method to round a percentage half up to 2 decimal places
+     *
+     * @param percent - Percentage to be rounded
+     * @return double
+     */
+    private static double roundPercent(double percent) {
+        return Math.signum(percent) * Math.round(Math.abs(percent) * 100) / 100.0;
+    }
 }
@@ -0,0 +1,4 @@
+package com.ticket.reporting.model;
+
+public record GameRanking(String game, CostMetrics costMetrics) {
+}
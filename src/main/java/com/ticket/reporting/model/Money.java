@@ -0,0 +1,118 @@
+package com.ticket.reporting.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point representation of stakes and returns as longs scaled by 10^4, so sums stay exact.
+ */
+public final class Money {
+    public static final int DECIMALS = 4;
+    public static final long SCALE = 10_000;
+    /**
+     * Marks an absent optional amount, such as a ticket without total_return
+     */
+    public static final long ABSENT = Long.MIN_VALUE;
+    private static final int MAX_INTEGER_DIGITS = 14;
+    /**
+     * Integer digits of the largest amount whose units fit a long
+     */
+    private static final int MAX_AMOUNT_DIGITS = 15;
+    /**
+     * Decimals of the smallest double, rescaling beyond would expand a huge power of ten
+     */
+    private static final int MAX_SCALE = 330;
+    private static final long UNITS_PER_CENT = SCALE / 100;
+
+    private Money() {
+    }
+
+    /**
+     * Parses a JSON number into scaled units without allocating, rounding half up beyond 4 decimals
+     *
+     * @param chars - Characters holding the number
+     * @param offset - Offset of the number in chars
+     * @param length - Length of the number
+     * @return long - Amount in scaled units
+     * @throws ArithmeticException - if the amount does not fit a long in scaled units, or has too many decimals
+     */
+    public static long parse(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int position = offset;
+        boolean negative = position < end && chars[position] == '-';
+        if (negative) {
+            position++;
+        }
+        long units = 0;
+        int integerDigits = 0;
+        while (position < end && chars[position] >= '0' && chars[position] <= '9') {
+            units = units * 10 + (chars[position++] - '0');
+            integerDigits++;
+        }
+        int decimals = 0;
+        boolean roundUp = false;
+        if (position < end && chars[position] == '.') {
+            position++;
+            while (position < end && chars[position] >= '0' && chars[position] <= '9') {
+                if (decimals < DECIMALS) {
+                    units = units * 10 + (chars[position] - '0');
+                } else if (decimals == DECIMALS) {
+                    roundUp = chars[position] >= '5';
+                }
+                decimals++;
+                position++;
+            }
+        }
+        if (position != end || integerDigits > MAX_INTEGER_DIGITS) {
+            // Exponents and very large amounts are rare, leave them to BigDecimal
+            return of(new BigDecimal(chars, offset, length));
+        }
+        for (int i = Math.min(decimals, DECIMALS); i < DECIMALS; i++) {
+            units *= 10;
+        }
+        if (roundUp) {
+            units++;
+        }
+        return negative ? -units : units;
+    }
+
+    /**
+     * Converts a decimal amount into scaled units, rounding half up beyond 4 decimals
+     *
+     * @param amount - Decimal amount
+     * @return long - Amount in scaled units
+     * @throws ArithmeticException - if the amount does not fit a long in scaled units, or has too many decimals
+     */
+    public static long of(BigDecimal amount) {
+        // Checked before setScale, which would expand an exponent such as 1e50000000 into millions of digits
+        if (amount.precision() - amount.scale() > MAX_AMOUNT_DIGITS || amount.scale() > MAX_SCALE) {
+            throw new ArithmeticException("Amount out of range: " + amount);
+        }
+        return amount.setScale(DECIMALS, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts a double amount into scaled units
+     *
+     * @param amount - Double amount
+     * @return long - Amount in scaled units
+     */
+    public static long of(double amount) {
+        return of(BigDecimal.valueOf(amount));
+    }
+
+    public static double toDouble(long units) {
+        return (double) units / SCALE;
+    }
+
+    /**
+     * Rounds scaled units half up to whole cents
+     *
+     * @param units - Amount in scaled units
+     * @return long - Amount in cents
+     */
+    public static long toCents(long units) {
+        long half = UNITS_PER_CENT / 2;
+        return units >= 0 ? (units + half) / UNITS_PER_CENT : -((-units + half) / UNITS_PER_CENT);
+    }
+}
@@ -0,0 +1,29 @@
+package com.ticket.reporting.model;
+
+/**
+ * Exact count, stake sum and return sum in Money units of a subset of the tickets, e.g. those held by one shard.
+ * Partial sums are merged by adding them, the rounded CostMetrics are only derived from the merged sums.
+ */
+public record PartialSums(int count, long stakeUnits, long returnUnits) {
+    public static final PartialSums EMPTY = new PartialSums(0, 0, 0);
+
+    /**
+     * @param other - Partial sums of other tickets
+     * @return PartialSums - Sums of both sets of tickets
+     */
+    public PartialSums plus(PartialSums other) {
+        return new PartialSums(count + other.count, stakeUnits + other.stakeUnits, returnUnits + other.returnUnits);
+    }
+
+    /**
+     * @param other - Partial sums of tickets included in these sums
+     * @return PartialSums - Sums without the other tickets
+     */
+    public PartialSums minus(PartialSums other) {
+        return new PartialSums(count - other.count, stakeUnits - other.stakeUnits, returnUnits - other.returnUnits);
+    }
+
+    public CostMetrics toCostMetrics() {
+        return CostMetrics.of(count, stakeUnits, returnUnits);
+    }
+}
@@ -0,0 +1,9 @@
+package com.ticket.reporting.model;
+
+/**
+ * Exact CostMetrics of a bookmaker or game, alongside the approximate distribution of the stakes and total returns
+ * of its tickets and the estimated number of distinct currencies they were placed in.
+ */
+public record StakeDistribution(CostMetrics costMetrics, AmountQuantiles stake, AmountQuantiles totalReturn,
+                                long distinctCurrencies) {
+}
@@ -7,17 +7,22 @@ import com.ticket.reporting.TicketStatus;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class Ticket {
+    public static final int NO_PARTITION = -1;
+
     private Integer bookmaker;
     private String currency;
     private String game;
-    private Double stake;
+    @JsonIgnore
+    private long stakeUnits;
     private TicketStatus status;
     @JsonProperty("ticket_id")
     private String ticketId;
-    @JsonProperty("total_return")
-    private Double totalReturn;
+    @JsonIgnore
+    private long totalReturnUnits = Money.ABSENT;
     @JsonIgnore
     private boolean processed;
+    @JsonIgnore
+    private int partition = NO_PARTITION;
 
     public Integer getBookmaker() {
         return bookmaker;
@@ -32,7 +37,11 @@ public class Ticket {
     }
 
     public Double getStake() {
-        return stake;
+        return Money.toDouble(stakeUnits);
+    }
+
+    public long getStakeUnits() {
+        return stakeUnits;
     }
 
     public TicketStatus getStatus() {
@@ -43,8 +52,55 @@ public class Ticket {
         return ticketId;
     }
 
+    @JsonProperty("total_return")
     public Double getTotalReturn() {
-        return totalReturn;
+        return totalReturnUnits == Money.ABSENT ? null : Money.toDouble(totalReturnUnits);
+    }
+
+    /**
+     * Total return in Money units, Money.ABSENT if the ticket has no total return
+     *
+     * @return long
+     */
+    public long getTotalReturnUnits() {
+        return totalReturnUnits;
+    }
+
+    public void setBookmaker(Integer bookmaker) {
+        this.bookmaker = bookmaker;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public void setGame(String game) {
+        this.game = game;
+    }
+
+    public void setStake(Double stake) {
+        this.stakeUnits = Money.of(stake);
+    }
+
+    public void setStakeUnits(long stakeUnits) {
+        this.stakeUnits = stakeUnits;
+    }
+
+    public void setStatus(TicketStatus status) {
+        this.status = status;
+    }
+
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    @JsonProperty("total_return")
+    public void setTotalReturn(Double totalReturn) {
+        this.totalReturnUnits = totalReturn == null ? Money.ABSENT : Money.of(totalReturn);
+    }
+
+    public void setTotalReturnUnits(long totalReturnUnits) {
+        this.totalReturnUnits = totalReturnUnits;
     }
 
     public boolean isProcessed() {
@@ -54,4 +110,17 @@ public class Ticket {
     public void setProcessed(boolean processed) {
         this.processed = processed;
     }
+
+    /**
+     * Partition of the tickets topic the ticket was received from, all versions of a ticket share one partition
+     *
+     * @return int - NO_PARTITION if the ticket was not received from Kafka
+     */
+    public int getPartition() {
+        return partition;
+    }
+
+    public void setPartition(int partition) {
+        this.partition = partition;
+    }
 }
@@ -0,0 +1,116 @@
+package com.ticket.reporting.resource;
+
+import com.ticket.reporting.consumer.TicketConsumer;
+import com.ticket.reporting.shard.ShardedCostMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Conditional GET for {@link BookmakerVersioned} endpoints. The ETag is the version of the bookmaker, prefixed by an
+ * id of this process so that tags from before a restart never match. A request whose If-None-Match holds the current
+ * tag gets a 304 and an unchanged response is served from the serialized bytes of the previous one, in both cases
+ * without computing the CostMetrics. Bodies are cached under the version read before they were computed, so a cached
+ * body is never older than its tag. Bookmakers whose tickets are also held by other shards are not tagged, as
+ * their version only covers the local tickets.
+ */
+@Provider
+@BookmakerVersioned
+public class BookmakerETagFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+    private static final String ETAG = BookmakerETagFilter.class.getName() + ".etag";
+    private static final String VERSION = BookmakerETagFilter.class.getName() + ".version";
+    private static final String PATH = BookmakerETagFilter.class.getName() + ".path";
+    private static final String CACHED = BookmakerETagFilter.class.getName() + ".cached";
+
+    private final String processId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    @Inject
+    TicketConsumer ticketConsumer;
+    @Inject
+    ShardedCostMetrics shardedCostMetrics;
+    @ConfigProperty(name = "ticket.etag.cache-size", defaultValue = "1024")
+    int cacheSize;
+    private SerializedResponseCache cache;
+
+    @PostConstruct
+    void createCache() {
+        cache = new SerializedResponseCache(cacheSize);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        int bookmakerId;
+        try {
+            bookmakerId = Integer.parseInt(request.getUriInfo().getPathParameters().getFirst("id"));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (!shardedCostMetrics.isLocal(bookmakerId)) {
+            return;
+        }
+        long version = ticketConsumer.getBookmakerVersion(bookmakerId);
+        EntityTag etag = new EntityTag(processId + "-" + version);
+        Response.ResponseBuilder notModified = request.getRequest().evaluatePreconditions(etag);
+        if (notModified != null) {
+            request.abortWith(notModified.tag(etag).build());
+            return;
+        }
+        String path = request.getUriInfo().getPath();
+        byte[] body = cache.get(path, version);
+        if (body != null) {
+            request.setProperty(CACHED, Boolean.TRUE);
+            request.abortWith(Response.ok(body, MediaType.APPLICATION_JSON_TYPE).tag(etag).build());
+            return;
+        }
+        request.setProperty(ETAG, etag);
+        request.setProperty(VERSION, version);
+        request.setProperty(PATH, path);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        Object etag = request.getProperty(ETAG);
+        if (etag != null && response.getStatus() == Response.Status.OK.getStatusCode()) {
+            response.getHeaders().putSingle(HttpHeaders.ETAG, etag);
+        }
+    }
+
+    /**
+     * Keeps a copy of the body written for a computed response
+     */
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Object version = context.getProperty(VERSION);
+        if (version == null || context.getProperty(CACHED) != null) {
+            context.proceed();
+            return;
+        }
+        OutputStream out = context.getOutputStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        context.setOutputStream(body);
+        context.proceed();
+        byte[] bytes = body.toByteArray();
+        out.write(bytes);
+        context.setOutputStream(out);
+        cache.put((String) context.getProperty(PATH), (Long) version, bytes);
+    }
+
+    int cacheSize() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,18 @@
+package com.ticket.reporting.resource;
+
+import jakarta.ws.rs.NameBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an endpoint whose response only depends on the tickets of the bookmaker in its {id} path parameter, so that
+ * it is tagged and cached by the version of the bookmaker, see {@link BookmakerETagFilter}.
+ */
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface BookmakerVersioned {
+}
@@ -0,0 +1,164 @@
+package com.ticket.reporting.resource;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticket.reporting.consumer.TicketConsumer;
+import com.ticket.reporting.model.CostMetrics;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes the CostMetrics by game of a bookmaker to Server-Sent Event subscribers. A single ticker checks the version
+ * of each subscribed bookmaker once per interval, so ingest never waits on a subscriber and each subscriber receives
+ * at most one event per interval, holding only the games that changed since its previous event. A subscriber whose
+ * previous event is still being written is skipped until it catches up, its changes are coalesced into its next
+ * event.
+ */
+@ApplicationScoped
+public class CostMetricsEvents {
+    static final String EVENT_NAME = "cost-metrics";
+
+    private final TicketConsumer ticketConsumer;
+    private final ObjectMapper objectMapper;
+    private final Duration interval;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService ticker;
+
+    @Inject
+    public CostMetricsEvents(TicketConsumer ticketConsumer, ObjectMapper objectMapper,
+                             @ConfigProperty(name = "ticket.events.interval", defaultValue = "1S") Duration interval) {
+        this.ticketConsumer = ticketConsumer;
+        this.objectMapper = objectMapper;
+        this.interval = interval;
+    }
+
+    @PostConstruct
+    void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cost-metrics-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::tick, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+        subscribers.forEach(subscriber -> subscriber.sink.close());
+    }
+
+    /**
+     * Subscribes the sink to the CostMetrics by game of the bookmaker, its first event holds all games
+     *
+     * @param bookmakerId - Bookmaker Id to subscribe to
+     * @param sink - Event sink of the subscriber
+     * @param sse - Event builder factory
+     */
+    public void subscribe(int bookmakerId, SseEventSink sink, Sse sse) {
+        subscribers.add(new Subscriber(bookmakerId, sink, sse));
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Sends one event to every subscriber that is ready and whose bookmaker changed since its previous event
+     */
+    void tick() {
+        Map<Integer, Map<String, CostMetrics>> costMetricsByBookmaker = new HashMap<>();
+        for (Subscriber subscriber : subscribers) {
+            try {
+                if (subscriber.sink.isClosed()) {
+                    subscribers.remove(subscriber);
+                } else if (subscriber.isReady()) {
+                    long version = ticketConsumer.getBookmakerVersion(subscriber.bookmakerId);
+                    if (version != subscriber.sentVersion) {
+                        subscriber.sentVersion = version;
+                        subscriber.send(costMetricsByBookmaker.computeIfAbsent(subscriber.bookmakerId,
+                                ticketConsumer::getTicketsByBookmakerIdGroupedByGame));
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.debug("Dropping cost metrics subscriber: " + e.getMessage());
+                subscribers.remove(subscriber);
+                subscriber.sink.close();
+            }
+        }
+    }
+
+    private final class Subscriber {
+        private final int bookmakerId;
+        private final SseEventSink sink;
+        private final Sse sse;
+        private Map<String, CostMetrics> sent = Map.of();
+        private long sentVersion = -1;
+        private CompletableFuture<?> pending = CompletableFuture.completedFuture(null);
+
+        private Subscriber(int bookmakerId, SseEventSink sink, Sse sse) {
+            this.bookmakerId = bookmakerId;
+            this.sink = sink;
+            this.sse = sse;
+        }
+
+        private boolean isReady() {
+            if (!pending.isDone()) {
+                return false;
+            }
+            if (pending.isCompletedExceptionally()) {
+                throw new IllegalStateException("Event could not be sent to bookmaker " + bookmakerId + " subscriber");
+            }
+            return true;
+        }
+
+        private void send(Map<String, CostMetrics> current) {
+            Map<String, CostMetrics> changed = new LinkedHashMap<>();
+            current.forEach((game, costMetrics) -> {
+                if (!costMetrics.equals(sent.get(game))) {
+                    changed.put(game, costMetrics);
+                }
+            });
+            sent.keySet().forEach(game -> {
+                if (!current.containsKey(game)) {
+                    changed.put(game, new CostMetrics(0, 0, 0, 0));
+                }
+            });
+            sent = current;
+            if (changed.isEmpty()) {
+                return;
+            }
+            String data;
+            try {
+                data = objectMapper.writeValueAsString(changed);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+            pending = sink.send(sse.newEventBuilder()
+                    .name(EVENT_NAME)
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(data)
+                    .build()).toCompletableFuture();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.ticket.reporting.resource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of serialized response bodies by request path, evicting the least recently used path. Each body is
+ * kept with the bookmaker version it was computed from and is only returned while that version is current.
+ */
+class SerializedResponseCache {
+    private final Map<String, Entry> entries;
+
+    /**
+     * @param maxEntries - Number of paths kept before the least recently used one is evicted
+     */
+    SerializedResponseCache(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + maxEntries);
+        }
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param path - Request path
+     * @param version - Current bookmaker version
+     * @return byte[] - Body computed at the version, null if there is none
+     */
+    synchronized byte[] get(String path, long version) {
+        Entry entry = entries.get(path);
+        return entry != null && entry.version == version ? entry.body : null;
+    }
+
+    /**
+     * @param path - Request path
+     * @param version - Bookmaker version read before the body was computed
+     * @param body - Serialized body
+     */
+    synchronized void put(String path, long version, byte[] body) {
+        entries.put(path, new Entry(version, body));
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private record Entry(long version, byte[] body) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.ticket.reporting.resource;
+
+import com.ticket.reporting.consumer.TicketConsumer;
+import com.ticket.reporting.model.PartialSums;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Partial sums of the tickets held by this node, requested by the other nodes of a sharded deployment.
+ */
+@Path("/internal/shard")
+public class ShardResource {
+    private final TicketConsumer ticketConsumer;
+
+    public ShardResource(TicketConsumer ticketConsumer) {
+        this.ticketConsumer = ticketConsumer;
+    }
+
+    @GET
+    @Path("/bookmaker/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Get the partial sums of this shard by Bookmaker ID",
+            description = "Returns the exact count, stake sum and return sum in Money units of the tickets of the "
+                    + "bookmaker held by this node")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Partial sums for Bookmaker ID",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PartialSums.class)))
+    })
+    public PartialSums getPartialSums(@PathParam("id") int bookmakerId) {
+        return ticketConsumer.getPartialSums(bookmakerId);
+    }
+
+    @GET
+    @Path("/bookmaker/{id}/product")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Get the partial sums of this shard by Bookmaker ID grouped by Game",
+            description = "Returns the exact count, stake sum and return sum in Money units of the tickets of the "
+                    + "bookmaker held by this node, for each game")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Partial sums for Bookmaker ID by Game",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Map.class)))
+    })
+    public Map<String, PartialSums> getPartialSumsByGame(@PathParam("id") int bookmakerId) {
+        return ticketConsumer.getPartialSumsByGame(bookmakerId);
+    }
+
+    @POST
+    @Path("/bookmakers/product")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Get the partial sums of this shard for several Bookmaker IDs grouped by Game",
+            description = "Returns the exact count, stake sum and return sum in Money units of the tickets of each "
+                    + "bookmaker in the request body held by this node, for each game or only the given one. "
+                    + "Bookmakers without such tickets are left out")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Partial sums by Game for each Bookmaker ID",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Map.class))),
+            @APIResponse(responseCode = "400", description = "No or too many bookmaker ids")
+    })
+    public Map<Integer, Map<String, PartialSums>> getPartialSumsByGame(List<Integer> bookmakerIds,
+                                                                       @QueryParam("game") String game) {
+        if (bookmakerIds == null || bookmakerIds.isEmpty()
+                || bookmakerIds.size() > TicketResource.MAX_BOOKMAKER_IDS) {
+            throw new BadRequestException("Between 1 and " + TicketResource.MAX_BOOKMAKER_IDS
+                    + " bookmaker ids are required");
+        }
+        return ticketConsumer.getPartialSumsByGame(bookmakerIds, game);
+    }
+}
@@ -1,14 +1,32 @@
 package com.ticket.reporting.resource;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ticket.reporting.model.TicketData;
 import com.ticket.reporting.model.CostMetrics;
 import com.ticket.reporting.consumer.TicketConsumer;
+import com.ticket.reporting.metrics.GameOrder;
+import com.ticket.reporting.metrics.TimeWindow;
+import com.ticket.reporting.model.BookmakerRanking;
+import com.ticket.reporting.model.GameRanking;
+import com.ticket.reporting.model.StakeDistribution;
+import com.ticket.reporting.shard.ShardUnavailableException;
+import com.ticket.reporting.shard.ShardedCostMetrics;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.headers.Header;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
@@ -16,53 +34,275 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Path("/tickets")
 public class TicketResource {
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String NEXT_CURSOR = "Next-Cursor";
+    static final int MAX_PAGE_SIZE = 10_000;
+    static final int MAX_LEADERBOARD_SIZE = 1_000;
+    static final int MAX_BOOKMAKER_IDS = 1_000;
     private final TicketConsumer ticketConsumer;
+    private final CostMetricsEvents costMetricsEvents;
+    private final ShardedCostMetrics shardedCostMetrics;
+    private final ObjectMapper objectMapper;
 
-    public TicketResource(TicketConsumer ticketConsumer) {
+    public TicketResource(TicketConsumer ticketConsumer, CostMetricsEvents costMetricsEvents,
+                          ShardedCostMetrics shardedCostMetrics, ObjectMapper objectMapper) {
         this.ticketConsumer = ticketConsumer;
+        this.costMetricsEvents = costMetricsEvents;
+        this.shardedCostMetrics = shardedCostMetrics;
+        this.objectMapper = objectMapper;
     }
 
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    @Operation(summary = "Get all tickets", description = "Returns a list of all tickets")
+    @Operation(summary = "Get all tickets",
+            description = "Returns all tickets ordered by ticket id, streamed from the store. With a limit only one "
+                    + "page is returned and the Next-Cursor header holds the value of after for the next page")
     @APIResponses(value = {
-            @APIResponse(responseCode = "200", description = "All tickets",
+            @APIResponse(responseCode = "200", description = "All tickets, or one page of tickets",
+                    headers = @Header(name = NEXT_CURSOR, description = "Cursor of the next page"),
                     content = @Content(mediaType = "application/json",
-                            schema = @Schema(implementation = TicketData.class)))
+                            schema = @Schema(implementation = TicketData.class))),
+            @APIResponse(responseCode = "400", description = "Invalid limit")
     })
-    public List<TicketData> getAllTickets() {
-        return ticketConsumer.getTickets();
+    public Response getAllTickets(@QueryParam("after") String afterTicketId, @QueryParam("limit") Integer limit) {
+        if (limit == null) {
+            return Response.ok(new TicketStream(ticketConsumer, objectMapper, afterTicketId,
+                    TicketStream.Format.JSON_ARRAY)).build();
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<TicketData> page = ticketConsumer.getTicketsPage(afterTicketId, limit);
+        Response.ResponseBuilder response = Response.ok(page);
+        if (page.size() == limit) {
+            response.header(NEXT_CURSOR, page.get(page.size() - 1).ticketId());
+        }
+        return response.build();
+    }
+
+    @GET
+    @Path("/stream")
+    @Produces(NDJSON)
+    @Operation(summary = "Stream all tickets as NDJSON",
+            description = "Writes one ticket per line, ordered by ticket id, while walking the store")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "All tickets after the cursor",
+                    content = @Content(mediaType = NDJSON, schema = @Schema(implementation = TicketData.class)))
+    })
+    public Response streamTickets(@QueryParam("after") String afterTicketId) {
+        return Response.ok(new TicketStream(ticketConsumer, objectMapper, afterTicketId,
+                TicketStream.Format.NDJSON)).build();
     }
 
     @GET
     @Path("/bookmaker/{id}")
     @Produces(MediaType.APPLICATION_JSON)
+    @BookmakerVersioned
     @Operation(summary = "Get a list of all tickets by Bookmaker ID",
             description = "Returns a list of all tickets by Bookmaker ID")
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "Cost Metrics for Bookmaker ID",
+                    headers = @Header(name = HttpHeaders.ETAG, description = "Version of the Cost Metrics"),
                     content = @Content(mediaType = "application/json",
-                            schema = @Schema(implementation = CostMetrics.class)))
+                            schema = @Schema(implementation = CostMetrics.class))),
+            @APIResponse(responseCode = "304", description = "Cost Metrics unchanged since If-None-Match"),
+            @APIResponse(responseCode = "503", description = "A shard holding tickets of the bookmaker did not answer")
     })
     public CostMetrics getTicketsByBookmaker(@PathParam("id") int bookmakerId) {
-        List<TicketData> ticketsData = ticketConsumer.getTicketsByBookmaker(bookmakerId);
-        return ticketConsumer.calculateCostMetrics(ticketsData);
+        try {
+            return shardedCostMetrics.getCostMetrics(bookmakerId);
+        } catch (ShardUnavailableException e) {
+            throw new ServiceUnavailableException(e.getMessage());
+        }
     }
 
     @GET
     @Path("/bookmaker/{id}/product")
     @Produces(MediaType.APPLICATION_JSON)
+    @BookmakerVersioned
     @Operation(summary = "Get a list of all tickets by Bookmaker ID grouped by Game",
             description = "Returns a list of all tickets by Bookmaker ID grouped by Game")
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "Cost Metrics for Bookmaker ID by Game",
+                    headers = @Header(name = HttpHeaders.ETAG, description = "Version of the Cost Metrics"),
                     content = @Content(mediaType = "application/json",
-                            schema = @Schema(implementation = Map.class)))
+                            schema = @Schema(implementation = Map.class))),
+            @APIResponse(responseCode = "304", description = "Cost Metrics unchanged since If-None-Match"),
+            @APIResponse(responseCode = "503", description = "A shard holding tickets of the bookmaker did not answer")
     })
     public Map<String, CostMetrics> getTicketsByBookmakerIdGroupedByGame(@PathParam("id") int bookmakerId) {
-        return ticketConsumer.getTicketsByBookmakerIdGroupedByGame(bookmakerId);
+        try {
+            return shardedCostMetrics.getCostMetricsByGame(bookmakerId);
+        } catch (ShardUnavailableException e) {
+            throw new ServiceUnavailableException(e.getMessage());
+        }
+    }
+
+    @GET
+    @Path("/bookmaker/{id}/distribution")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Get the stake distribution by Bookmaker ID",
+            description = "Returns the Cost Metrics of the bookmaker alongside the median and 95th percentile of the "
+                    + "stakes and total returns of its tickets, within 2%, and the estimated number of distinct "
+                    + "currencies, from sketches kept up to date on ingest")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Cost Metrics and stake distribution for Bookmaker ID",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StakeDistribution.class)))
+    })
+    public StakeDistribution getDistributionByBookmaker(@PathParam("id") int bookmakerId) {
+        return ticketConsumer.getDistributionByBookmaker(bookmakerId);
+    }
+
+    @GET
+    @Path("/bookmaker/{id}/product/distribution")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Get the stake distribution by Bookmaker ID grouped by Game",
+            description = "Returns the Cost Metrics of each game of the bookmaker alongside the median and 95th "
+                    + "percentile of the stakes and total returns of its tickets, within 2%, and the estimated number "
+                    + "of distinct currencies, from sketches kept up to date on ingest")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Cost Metrics and stake distribution for Bookmaker ID by "
+                    + "Game",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Map.class)))
+    })
+    public Map<String, StakeDistribution> getDistributionsByBookmakerIdGroupedByGame(
+            @PathParam("id") int bookmakerId) {
+        return ticketConsumer.getDistributionsByBookmakerIdGroupedByGame(bookmakerId);
+    }
+
+    @GET
+    @Path("/bookmaker/{id}/product/events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @Operation(summary = "Subscribe to the Cost Metrics by Bookmaker ID grouped by Game",
+            description = "Streams cost-metrics events holding the games whose Cost Metrics changed, at most one "
+                    + "event per interval. The first event holds all games")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Stream of Cost Metrics for Bookmaker ID by Game",
+                    content = @Content(mediaType = MediaType.SERVER_SENT_EVENTS,
+                            schema = @Schema(implementation = Map.class)))
+    })
+    public void streamTicketsByBookmakerIdGroupedByGame(@PathParam("id") int bookmakerId,
+                                                        @Context SseEventSink sink, @Context Sse sse) {
+        costMetricsEvents.subscribe(bookmakerId, sink, sse);
+    }
+
+    @GET
+    @Path("/bookmaker/{id}/product/top")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Get the top games of a Bookmaker ID",
+            description = "Returns the games with the highest turnover, or with the largest loss (most negative "
+                    + "profit or loss), with their Cost Metrics, from a leaderboard kept up to date on ingest")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Games of Bookmaker ID in leaderboard order",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = GameRanking.class))),
+            @APIResponse(responseCode = "400", description = "Unknown order or invalid limit")
+    })
+    public List<GameRanking> getTopGames(@PathParam("id") int bookmakerId,
+                                         @QueryParam("by") @DefaultValue("turnover") String by,
+                                         @QueryParam("limit") @DefaultValue("10") int limit) {
+        GameOrder order;
+        try {
+            order = GameOrder.of(by);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        return ticketConsumer.getTopGames(bookmakerId, order, leaderboardLimit(limit));
+    }
+
+    @GET
+    @Path("/bookmakers/top")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Get the top bookmakers by margin",
+            description = "Returns the bookmakers with the highest margin over all their games, with their Cost "
+                    + "Metrics, from a leaderboard kept up to date on ingest")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Bookmakers, highest margin first",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BookmakerRanking.class))),
+            @APIResponse(responseCode = "400", description = "Invalid limit")
+    })
+    public List<BookmakerRanking> getTopBookmakers(@QueryParam("limit") @DefaultValue("10") int limit) {
+        return ticketConsumer.getTopBookmakersByMargin(leaderboardLimit(limit));
+    }
+
+    @GET
+    @Path("/bookmakers/product")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Get the Cost Metrics of several bookmakers grouped by Game",
+            description = "Returns the Cost Metrics by Game of every bookmaker given as id, optionally limited to one "
+                    + "game, in a single response")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Cost Metrics by Game for each Bookmaker ID",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Map.class))),
+            @APIResponse(responseCode = "400", description = "No bookmaker ids or too many bookmaker ids"),
+            @APIResponse(responseCode = "503", description = "A shard holding tickets of a bookmaker did not answer")
+    })
+    public Map<Integer, Map<String, CostMetrics>> getTicketsByBookmakerIdsGroupedByGame(
+            @QueryParam("id") Set<Integer> bookmakerIds, @QueryParam("game") String game) {
+        if (bookmakerIds == null || bookmakerIds.isEmpty() || bookmakerIds.size() > MAX_BOOKMAKER_IDS) {
+            throw new BadRequestException("Between 1 and " + MAX_BOOKMAKER_IDS + " bookmaker ids are required");
+        }
+        try {
+            return shardedCostMetrics.getCostMetricsByGame(bookmakerIds, game);
+        } catch (ShardUnavailableException e) {
+            throw new ServiceUnavailableException(e.getMessage());
+        }
+    }
+
+    @GET
+    @Path("/bookmaker/{id}/window/{window}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Get the Cost Metrics of a rolling window by Bookmaker ID",
+            description = "Returns the change of turnover and profit or loss made by the tickets received in the "
+                    + "last 5m, 1h or 1d, by Kafka record timestamp")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Cost Metrics for Bookmaker ID within the window",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CostMetrics.class))),
+            @APIResponse(responseCode = "400", description = "Unknown window")
+    })
+    public CostMetrics getTicketsByBookmakerWithinWindow(@PathParam("id") int bookmakerId,
+                                                         @PathParam("window") String window) {
+        return ticketConsumer.getCostMetricsByBookmaker(bookmakerId, timeWindow(window));
+    }
+
+    @GET
+    @Path("/bookmaker/{id}/product/window/{window}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Get the Cost Metrics of a rolling window by Bookmaker ID grouped by Game",
+            description = "Returns the change of turnover and profit or loss made by the tickets received in the "
+                    + "last 5m, 1h or 1d, by Kafka record timestamp, for each game")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Cost Metrics for Bookmaker ID by Game within the window",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Map.class))),
+            @APIResponse(responseCode = "400", description = "Unknown window")
+    })
+    public Map<String, CostMetrics> getTicketsByBookmakerIdGroupedByGameWithinWindow(
+            @PathParam("id") int bookmakerId, @PathParam("window") String window) {
+        return ticketConsumer.getTicketsByBookmakerIdGroupedByGame(bookmakerId, timeWindow(window));
+    }
+
+    private static int leaderboardLimit(int limit) {
+        if (limit < 1 || limit > MAX_LEADERBOARD_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_LEADERBOARD_SIZE);
+        }
+        return limit;
+    }
+
+    private static TimeWindow timeWindow(String window) {
+        try {
+            return TimeWindow.of(window);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
     }
 }
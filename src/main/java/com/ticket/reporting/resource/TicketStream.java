@@ -0,0 +1,71 @@
+package com.ticket.reporting.resource;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ticket.reporting.consumer.TicketConsumer;
+import com.ticket.reporting.model.TicketData;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes tickets to the response while walking the ticket store page by page in ticket id order, so memory use
+ * stays flat regardless of the number of tickets in the store.
+ */
+class TicketStream implements StreamingOutput {
+    static final int PAGE_SIZE = 1000;
+
+    enum Format {
+        JSON_ARRAY, NDJSON
+    }
+
+    private final TicketConsumer ticketConsumer;
+    private final ObjectMapper objectMapper;
+    private final String afterTicketId;
+    private final Format format;
+
+    TicketStream(TicketConsumer ticketConsumer, ObjectMapper objectMapper, String afterTicketId, Format format) {
+        this.ticketConsumer = ticketConsumer;
+        this.objectMapper = objectMapper;
+        this.afterTicketId = afterTicketId;
+        this.format = format;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        // Tickets are flushed once per page, and the response stream is closed by the container
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.createGenerator(output)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            if (format == Format.JSON_ARRAY) {
+                generator.writeStartArray();
+            } else {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+            }
+            String cursor = afterTicketId;
+            boolean empty = true;
+            List<TicketData> page;
+            do {
+                page = ticketConsumer.getTicketsPage(cursor, PAGE_SIZE);
+                for (TicketData ticketData : page) {
+                    writer.writeValue(generator, ticketData);
+                }
+                if (!page.isEmpty()) {
+                    cursor = page.get(page.size() - 1).ticketId();
+                    empty = false;
+                }
+                generator.flush();
+            } while (page.size() == PAGE_SIZE);
+            if (format == Format.JSON_ARRAY) {
+                generator.writeEndArray();
+            } else if (!empty) {
+                generator.writeRaw('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.ticket.reporting.shard;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticket.reporting.model.PartialSums;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous HTTP client for the partial sums endpoints of the other shard nodes.
+ */
+class ShardClient {
+    private static final TypeReference<Map<String, PartialSums>> BY_GAME = new TypeReference<>() {
+    };
+    private static final TypeReference<Map<Integer, Map<String, PartialSums>>> BY_BOOKMAKER_AND_GAME =
+            new TypeReference<>() {
+            };
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+
+    ShardClient(ObjectMapper objectMapper, Duration timeout) {
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+    }
+
+    CompletableFuture<PartialSums> getPartialSums(URI node, int bookmakerId) {
+        return get(node, "/internal/shard/bookmaker/" + bookmakerId)
+                .thenApply(body -> read(body, objectMapper.constructType(PartialSums.class)));
+    }
+
+    CompletableFuture<Map<String, PartialSums>> getPartialSumsByGame(URI node, int bookmakerId) {
+        return get(node, "/internal/shard/bookmaker/" + bookmakerId + "/product")
+                .thenApply(body -> read(body, objectMapper.getTypeFactory().constructType(BY_GAME)));
+    }
+
+    CompletableFuture<Map<Integer, Map<String, PartialSums>>> getPartialSumsByGame(
+            URI node, Collection<Integer> bookmakerIds, String game) {
+        String path = "/internal/shard/bookmakers/product"
+                + (game == null ? "" : "?game=" + URLEncoder.encode(game, StandardCharsets.UTF_8));
+        HttpRequest.BodyPublisher body;
+        try {
+            body = HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(bookmakerIds));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return send(node, request(node, path).header("Content-Type", "application/json").POST(body).build())
+                .thenApply(response -> read(response, objectMapper.getTypeFactory()
+                        .constructType(BY_BOOKMAKER_AND_GAME)));
+    }
+
+    private CompletableFuture<byte[]> get(URI node, String path) {
+        return send(node, request(node, path).GET().build());
+    }
+
+    private HttpRequest.Builder request(URI node, String path) {
+        return HttpRequest.newBuilder(node.resolve(path))
+                .timeout(timeout)
+                .header("Accept", "application/json");
+    }
+
+    private CompletableFuture<byte[]> send(URI node, HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new ShardUnavailableException("Shard " + node + " answered " + response.statusCode());
+            }
+            return response.body();
+        });
+    }
+
+    private <T> T read(byte[] body, JavaType type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ticket.reporting.shard;
+
+import io.smallrye.config.ConfigSourceContext;
+import io.smallrye.config.ConfigSourceFactory;
+import io.smallrye.config.ConfigValue;
+import io.smallrye.config.PropertiesConfigSource;
+import org.eclipse.microprofile.config.spi.ConfigSource;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Derives the consumer group of the tickets channel when sharding by bookmaker. Each node then consumes every
+ * partition, which needs a consumer group of its own: sharing the default group, named after the application, would
+ * split the partitions between the nodes and each would miss the tickets of its bookmakers on the others. The group
+ * is the application name followed by the shard index, at an ordinal below application.properties, so a group.id
+ * set explicitly still wins. Sharding by partition keeps the shared default group.
+ */
+public class ShardConsumerGroup implements ConfigSourceFactory {
+    static final String GROUP_ID = "mp.messaging.incoming.tickets.group.id";
+    private static final int ORDINAL = 200;
+    private static final String DEFAULT_APPLICATION_NAME = "ticket-service";
+
+    @Override
+    public Iterable<ConfigSource> getConfigSources(ConfigSourceContext context) {
+        String nodes = value(context, "ticket.shard.nodes", "");
+        if (!ShardKey.BOOKMAKER.name().equalsIgnoreCase(value(context, "ticket.shard.by", ""))
+                || nodes.split(",").length < 2) {
+            return List.of();
+        }
+        String groupId = value(context, "quarkus.application.name", DEFAULT_APPLICATION_NAME) + "-shard-"
+                + value(context, "ticket.shard.index", "0");
+        return List.of(new PropertiesConfigSource(Map.of(GROUP_ID, groupId), "ShardConsumerGroup", ORDINAL));
+    }
+
+    private static String value(ConfigSourceContext context, String name, String defaultValue) {
+        ConfigValue value = context.getValue(name);
+        return value == null || value.getValue() == null ? defaultValue : value.getValue().trim();
+    }
+}
@@ -0,0 +1,15 @@
+package com.ticket.reporting.shard;
+
+/**
+ * What a shard owns, selected with the ticket.shard.by property.
+ */
+public enum ShardKey {
+    /**
+     * The Kafka partitions assigned to the node by the consumer group, queries are sent to every node
+     */
+    PARTITION,
+    /**
+     * The bookmakers whose id modulo the number of nodes is the index of the node, queries are sent to the owner
+     */
+    BOOKMAKER
+}
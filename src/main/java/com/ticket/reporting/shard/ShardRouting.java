@@ -0,0 +1,84 @@
+package com.ticket.reporting.shard;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * Routing of a sharded deployment. ticket.shard.nodes lists the base URLs of all nodes in shard order and
+ * ticket.shard.index is the position of this node in that list. Without nodes the service is a single node that
+ * owns every ticket.
+ */
+@Singleton
+public class ShardRouting {
+    private final List<URI> nodes;
+    private final int index;
+    private final ShardKey key;
+
+    @Inject
+    public ShardRouting(@ConfigProperty(name = "ticket.shard.nodes") Optional<List<String>> nodes,
+                        @ConfigProperty(name = "ticket.shard.index", defaultValue = "0") int index,
+                        @ConfigProperty(name = "ticket.shard.by", defaultValue = "partition") ShardKey key) {
+        this.nodes = nodes.orElse(List.of()).stream().map(URI::create).toList();
+        this.index = index;
+        this.key = key;
+        if (!this.nodes.isEmpty() && (index < 0 || index >= this.nodes.size())) {
+            throw new IllegalArgumentException("Shard index " + index + " is not one of the " + this.nodes.size()
+                    + " shard nodes");
+        }
+    }
+
+    public static ShardRouting single() {
+        return new ShardRouting(Optional.empty(), 0, ShardKey.PARTITION);
+    }
+
+    public boolean isSharded() {
+        return nodes.size() > 1;
+    }
+
+    /**
+     * Checks whether this node keeps the tickets of the bookmaker
+     *
+     * @param bookmakerId - Bookmaker Id of a ticket
+     * @return boolean - false only when sharding by bookmaker and another node owns the bookmaker
+     */
+    public boolean owns(int bookmakerId) {
+        return !isSharded() || key == ShardKey.PARTITION || owner(bookmakerId) == index;
+    }
+
+    /**
+     * Checks whether the tickets of the bookmaker are all held by this node, so that its queries are answered
+     * without asking other nodes
+     *
+     * @param bookmakerId - Bookmaker Id
+     * @return boolean
+     */
+    public boolean isLocal(int bookmakerId) {
+        return !isSharded() || (key == ShardKey.BOOKMAKER && owner(bookmakerId) == index);
+    }
+
+    /**
+     * Retrieves the other nodes that hold tickets of the bookmaker
+     *
+     * @param bookmakerId - Bookmaker Id
+     * @return List<URI> - Base URLs of the nodes to ask, empty if the bookmaker is local
+     */
+    public List<URI> remoteNodes(int bookmakerId) {
+        if (isLocal(bookmakerId)) {
+            return List.of();
+        }
+        if (key == ShardKey.BOOKMAKER) {
+            return List.of(nodes.get(owner(bookmakerId)));
+        }
+        return IntStream.range(0, nodes.size()).filter(node -> node != index).mapToObj(nodes::get).toList();
+    }
+
+    private int owner(int bookmakerId) {
+        return Math.floorMod(bookmakerId, nodes.size());
+    }
+}
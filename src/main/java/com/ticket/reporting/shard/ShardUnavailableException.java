@@ -0,0 +1,7 @@
+package com.ticket.reporting.shard;
+
+public class ShardUnavailableException extends RuntimeException {
+    public ShardUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,201 @@
+package com.ticket.reporting.shard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticket.reporting.consumer.TicketConsumer;
+import com.ticket.reporting.model.CostMetrics;
+import com.ticket.reporting.model.PartialSums;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+
+/**
+ * CostMetrics queries of a sharded deployment. The partial sums of the bookmaker are requested from the other
+ * nodes that hold its tickets, while the local partial sums are read, and the CostMetrics are derived from their
+ * sum. A node that does not answer within ticket.shard.timeout fails the query, rather than returning CostMetrics
+ * that silently leave out its tickets. Bookmakers held only by this node are answered from the running totals.
+ */
+@ApplicationScoped
+public class ShardedCostMetrics {
+    private final TicketConsumer ticketConsumer;
+    private final ShardRouting routing;
+    private final ShardClient client;
+    private final Duration timeout;
+
+    @Inject
+    public ShardedCostMetrics(TicketConsumer ticketConsumer, ShardRouting routing, ObjectMapper objectMapper,
+                              @ConfigProperty(name = "ticket.shard.timeout", defaultValue = "2S") Duration timeout) {
+        this.ticketConsumer = ticketConsumer;
+        this.routing = routing;
+        this.client = new ShardClient(objectMapper, timeout);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Retrieves the CostMetrics of a bookmaker over all nodes
+     *
+     * @param bookmakerId - Bookmaker Id for which the CostMetrics are calculated
+     * @return CostMetrics
+     * @throws ShardUnavailableException - if a node holding tickets of the bookmaker does not answer
+     */
+    public CostMetrics getCostMetrics(int bookmakerId) {
+        List<URI> nodes = routing.remoteNodes(bookmakerId);
+        if (nodes.isEmpty()) {
+            return ticketConsumer.getCostMetricsByBookmaker(bookmakerId);
+        }
+        return gather(nodes, bookmakerId, client::getPartialSums, routing.owns(bookmakerId)
+                ? ticketConsumer.getPartialSums(bookmakerId) : PartialSums.EMPTY, PartialSums::plus).toCostMetrics();
+    }
+
+    /**
+     * Retrieves the CostMetrics of a bookmaker grouped by game over all nodes
+     *
+     * @param bookmakerId - Bookmaker Id for which the CostMetrics are calculated
+     * @return Map<String, CostMetrics> - CostMetrics by game, sorted by game
+     * @throws ShardUnavailableException - if a node holding tickets of the bookmaker does not answer
+     */
+    public Map<String, CostMetrics> getCostMetricsByGame(int bookmakerId) {
+        List<URI> nodes = routing.remoteNodes(bookmakerId);
+        if (nodes.isEmpty()) {
+            return ticketConsumer.getTicketsByBookmakerIdGroupedByGame(bookmakerId);
+        }
+        Map<String, PartialSums> local = routing.owns(bookmakerId)
+                ? ticketConsumer.getPartialSumsByGame(bookmakerId) : Map.of();
+        Map<String, PartialSums> merged = gather(nodes, bookmakerId, client::getPartialSumsByGame, local,
+                (sums, other) -> {
+                    Map<String, PartialSums> sum = new TreeMap<>(sums);
+                    other.forEach((game, partialSums) -> sum.merge(game, partialSums, PartialSums::plus));
+                    return sum;
+                });
+        return toCostMetrics(merged, null);
+    }
+
+    /**
+     * Retrieves the CostMetrics grouped by game of several bookmakers over all nodes in one query. Bookmakers held
+     * only by this node are answered from the running totals. The partial sums of the others are requested with one
+     * request per node, carrying all the bookmakers that node holds tickets of and the game, and merged within one
+     * ticket.shard.timeout.
+     *
+     * @param bookmakerIds - Bookmaker Ids for which the CostMetrics are calculated
+     * @param game - Game the CostMetrics are limited to, null for all games
+     * @return Map<Integer, Map<String, CostMetrics>> - CostMetrics by game of each bookmaker, sorted by bookmaker
+     * @throws ShardUnavailableException - if a node holding tickets of one of the bookmakers does not answer
+     */
+    public Map<Integer, Map<String, CostMetrics>> getCostMetricsByGame(Collection<Integer> bookmakerIds,
+                                                                        String game) {
+        List<Integer> local = new ArrayList<>();
+        List<Integer> owned = new ArrayList<>();
+        Map<Integer, Map<String, PartialSums>> merged = new TreeMap<>();
+        Map<URI, List<Integer>> remote = new LinkedHashMap<>();
+        for (int bookmakerId : bookmakerIds) {
+            List<URI> nodes = routing.remoteNodes(bookmakerId);
+            if (nodes.isEmpty()) {
+                local.add(bookmakerId);
+                continue;
+            }
+            merged.put(bookmakerId, new TreeMap<>());
+            if (routing.owns(bookmakerId)) {
+                owned.add(bookmakerId);
+            }
+            nodes.forEach(node -> remote.computeIfAbsent(node, key -> new ArrayList<>()).add(bookmakerId));
+        }
+        Map<URI, CompletableFuture<Map<Integer, Map<String, PartialSums>>>> responses = new LinkedHashMap<>();
+        remote.forEach((node, ids) -> responses.put(node, client.getPartialSumsByGame(node, ids, game)));
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            Map<Integer, Map<String, CostMetrics>> costMetrics = new TreeMap<>(
+                    ticketConsumer.getTicketsByBookmakerIdsGroupedByGame(local, game));
+            merge(merged, ticketConsumer.getPartialSumsByGame(owned, game));
+            for (Map.Entry<URI, CompletableFuture<Map<Integer, Map<String, PartialSums>>>> entry
+                    : responses.entrySet()) {
+                merge(merged, await(entry.getKey(), entry.getValue(), deadline));
+            }
+            merged.forEach((bookmakerId, partialSums) ->
+                    costMetrics.put(bookmakerId, toCostMetrics(partialSums, game)));
+            return costMetrics;
+        } finally {
+            responses.values().forEach(response -> response.cancel(true));
+        }
+    }
+
+    /**
+     * Checks whether the CostMetrics of the bookmaker only depend on the tickets held by this node
+     *
+     * @param bookmakerId - Bookmaker Id
+     * @return boolean
+     */
+    public boolean isLocal(int bookmakerId) {
+        return routing.isLocal(bookmakerId);
+    }
+
+    private <T> T gather(List<URI> nodes, int bookmakerId, BiFunction<URI, Integer, CompletableFuture<T>> request,
+                         T local, BinaryOperator<T> merge) {
+        List<CompletableFuture<T>> responses = new ArrayList<>(nodes.size());
+        for (URI node : nodes) {
+            responses.add(request.apply(node, bookmakerId));
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        T result = local;
+        try {
+            for (int i = 0; i < nodes.size(); i++) {
+                result = merge.apply(result, await(nodes.get(i), responses.get(i), deadline));
+            }
+            return result;
+        } finally {
+            responses.forEach(response -> response.cancel(true));
+        }
+    }
+
+    private <T> T await(URI node, CompletableFuture<T> response, long deadline) {
+        try {
+            return response.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new ShardUnavailableException("Shard " + node + " did not answer within " + timeout);
+        } catch (ExecutionException e) {
+            // The request times out on its own at the same deadline
+            if (e.getCause() instanceof HttpTimeoutException) {
+                throw new ShardUnavailableException("Shard " + node + " did not answer within " + timeout);
+            }
+            throw new ShardUnavailableException("Shard " + node + " failed: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShardUnavailableException("Interrupted while waiting for shard " + node);
+        }
+    }
+
+    private static void merge(Map<Integer, Map<String, PartialSums>> merged,
+                              Map<Integer, Map<String, PartialSums>> partialSums) {
+        partialSums.forEach((bookmakerId, partialSumsByGame) -> {
+            // A node only adds to the bookmakers it was asked for
+            Map<String, PartialSums> sum = merged.get(bookmakerId);
+            if (sum != null) {
+                partialSumsByGame.forEach((name, sums) -> sum.merge(name, sums, PartialSums::plus));
+            }
+        });
+    }
+
+    private static Map<String, CostMetrics> toCostMetrics(Map<String, PartialSums> partialSumsByGame, String game) {
+        Map<String, CostMetrics> costMetricsByGame = new TreeMap<>();
+        partialSumsByGame.forEach((name, partialSums) -> {
+            if (game == null || game.equals(name)) {
+                costMetricsByGame.put(name, partialSums.toCostMetrics());
+            }
+        });
+        return costMetricsByGame;
+    }
+}
@@ -0,0 +1,22 @@
+package com.ticket.reporting.snapshot;
+
+/**
+ * Layout of a snapshot file: a header, the Kafka offsets the snapshot covers, then tagged retention watermark,
+ * evicted ticket id, ticket, totals, compacted totals and window bucket records up to an end tag.
+ */
+final class SnapshotFormat {
+    static final int MAGIC = 0x544B5331;
+    static final int VERSION = 1;
+    static final byte END = 0;
+    static final byte TICKET = 1;
+    static final byte TOTALS = 2;
+    static final byte WINDOW_BUCKET = 3;
+    static final byte WATERMARK = 4;
+    static final byte COMPACTED_TOTALS = 5;
+    static final byte EVICTED = 6;
+    // Files are mapped in chunks so snapshots are not limited to the 2 GiB of a single MappedByteBuffer
+    static final long CHUNK_SIZE = 64L << 20;
+
+    private SnapshotFormat() {
+    }
+}
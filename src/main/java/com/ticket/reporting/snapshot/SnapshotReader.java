@@ -0,0 +1,157 @@
+package com.ticket.reporting.snapshot;
+
+import com.ticket.reporting.TicketStatus;
+import com.ticket.reporting.model.Ticket;
+import org.apache.kafka.common.TopicPartition;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a snapshot written by SnapshotWriter through read-only memory-mapped chunks of the file.
+ */
+public final class SnapshotReader {
+    private static final TicketStatus[] STATUSES = TicketStatus.values();
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer buffer;
+    private long bufferStart;
+
+    private SnapshotReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        map(0);
+    }
+
+    /**
+     * Reads the snapshot file, passing its offsets, watermarks, evicted ids, tickets, totals and window buckets to the
+     * visitor
+     *
+     * @param file - Snapshot file
+     * @param visitor - Visitor receiving the contents of the snapshot
+     * @throws IOException - if the file cannot be read or is not a complete snapshot
+     */
+    public static void read(Path file, SnapshotVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            new SnapshotReader(channel).readInto(visitor);
+        }
+    }
+
+    private void readInto(SnapshotVisitor visitor) throws IOException {
+        ensure(3 * Integer.BYTES);
+        if (buffer.getInt() != SnapshotFormat.MAGIC) {
+            throw new IOException("Unsupported snapshot file");
+        }
+        int version = buffer.getInt();
+        if (version != SnapshotFormat.VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        int offsets = buffer.getInt();
+        for (int i = 0; i < offsets; i++) {
+            String topic = getString();
+            ensure(Integer.BYTES + Long.BYTES);
+            visitor.offset(new TopicPartition(topic, buffer.getInt()), buffer.getLong());
+        }
+        while (true) {
+            ensure(1);
+            byte tag = buffer.get();
+            switch (tag) {
+                case SnapshotFormat.END -> {
+                    return;
+                }
+                case SnapshotFormat.TICKET -> visitor.ticket(readTicket());
+                case SnapshotFormat.TOTALS -> readTotals(visitor);
+                case SnapshotFormat.WINDOW_BUCKET -> readWindowBucket(visitor);
+                case SnapshotFormat.WATERMARK -> readWatermark(visitor);
+                case SnapshotFormat.EVICTED -> readEvicted(visitor);
+                case SnapshotFormat.COMPACTED_TOTALS -> readCompactedTotals(visitor);
+                default -> throw new IOException("Corrupt snapshot record " + tag);
+            }
+        }
+    }
+
+    private Ticket readTicket() throws IOException {
+        Ticket ticket = new Ticket();
+        ticket.setTicketId(getString());
+        ticket.setGame(getString());
+        ticket.setCurrency(getString());
+        ensure(2 * Integer.BYTES + 2 * Long.BYTES + 1);
+        ticket.setBookmaker(buffer.getInt());
+        ticket.setStakeUnits(buffer.getLong());
+        ticket.setTotalReturnUnits(buffer.getLong());
+        ticket.setStatus(STATUSES[buffer.get()]);
+        ticket.setPartition(buffer.getInt());
+        ticket.setProcessed(true);
+        return ticket;
+    }
+
+    private void readWatermark(SnapshotVisitor visitor) throws IOException {
+        ensure(Integer.BYTES);
+        int partition = buffer.getInt();
+        visitor.watermark(partition, getString());
+    }
+
+    private void readEvicted(SnapshotVisitor visitor) throws IOException {
+        ensure(Integer.BYTES);
+        int partition = buffer.getInt();
+        visitor.evicted(partition, getString());
+    }
+
+    private void readTotals(SnapshotVisitor visitor) throws IOException {
+        ensure(Integer.BYTES);
+        int bookmakerId = buffer.getInt();
+        String game = getString();
+        ensure(Integer.BYTES + 2 * Long.BYTES);
+        visitor.totals(bookmakerId, game, buffer.getInt(), buffer.getLong(), buffer.getLong());
+    }
+
+    private void readCompactedTotals(SnapshotVisitor visitor) throws IOException {
+        ensure(2 * Integer.BYTES);
+        int partition = buffer.getInt();
+        int bookmakerId = buffer.getInt();
+        String game = getString();
+        ensure(Integer.BYTES + 2 * Long.BYTES);
+        visitor.compactedTotals(partition, bookmakerId, game, buffer.getInt(), buffer.getLong(), buffer.getLong());
+    }
+
+    private void readWindowBucket(SnapshotVisitor visitor) throws IOException {
+        ensure(2 * Integer.BYTES);
+        int partition = buffer.getInt();
+        int bookmakerId = buffer.getInt();
+        String game = getString();
+        String window = getString();
+        ensure(Long.BYTES + Integer.BYTES + 2 * Long.BYTES);
+        visitor.windowBucket(partition, bookmakerId, game, window, buffer.getLong(), buffer.getInt(),
+                buffer.getLong(), buffer.getLong());
+    }
+
+    private String getString() throws IOException {
+        ensure(Short.BYTES);
+        int length = buffer.getShort();
+        ensure(length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            long position = bufferStart + buffer.position();
+            if (size - position < bytes) {
+                throw new IOException("Truncated snapshot file");
+            }
+            map(position);
+        }
+    }
+
+    private void map(long position) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SnapshotFormat.CHUNK_SIZE,
+                size - position));
+        bufferStart = position;
+    }
+}
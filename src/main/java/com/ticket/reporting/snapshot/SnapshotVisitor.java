@@ -0,0 +1,24 @@
+package com.ticket.reporting.snapshot;
+
+import com.ticket.reporting.model.Ticket;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * Receives the contents of a snapshot while it is read.
+ */
+public interface SnapshotVisitor {
+    void offset(TopicPartition partition, long nextOffset);
+
+    void watermark(int partition, String ticketId);
+
+    void evicted(int partition, String ticketId);
+
+    void ticket(Ticket ticket);
+
+    void totals(int bookmakerId, String game, int count, long stakeSum, long returnSum);
+
+    void compactedTotals(int partition, int bookmakerId, String game, int count, long stakeSum, long returnSum);
+
+    void windowBucket(int partition, int bookmakerId, String game, String window, long timestamp, int count,
+                      long stakeSum, long returnSum);
+}
@@ -0,0 +1,137 @@
+package com.ticket.reporting.snapshot;
+
+import com.ticket.reporting.model.Ticket;
+import org.apache.kafka.common.TopicPartition;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Writes a binary snapshot of the ticket store, running totals and window buckets through memory-mapped chunks of
+ * the file.
+ */
+public class SnapshotWriter implements Closeable {
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long bufferStart;
+
+    /**
+     * Creates the snapshot file and writes the Kafka offsets it covers
+     *
+     * @param file - Snapshot file, replaced if it exists
+     * @param offsets - Next offset to consume per partition once the snapshot is loaded
+     * @throws IOException - if the file cannot be written
+     */
+    public SnapshotWriter(Path file, Map<TopicPartition, Long> offsets) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map(0);
+        buffer.putInt(SnapshotFormat.MAGIC).putInt(SnapshotFormat.VERSION).putInt(offsets.size());
+        for (Map.Entry<TopicPartition, Long> offset : offsets.entrySet()) {
+            putString(offset.getKey().topic());
+            ensure(Integer.BYTES + Long.BYTES);
+            buffer.putInt(offset.getKey().partition()).putLong(offset.getValue());
+        }
+    }
+
+    public void writeWatermark(int partition, String ticketId) throws IOException {
+        ensure(1 + Integer.BYTES);
+        buffer.put(SnapshotFormat.WATERMARK).putInt(partition);
+        putString(ticketId);
+    }
+
+    public void writeEvicted(int partition, String ticketId) throws IOException {
+        ensure(1 + Integer.BYTES);
+        buffer.put(SnapshotFormat.EVICTED).putInt(partition);
+        putString(ticketId);
+    }
+
+    public void writeTicket(Ticket ticket) throws IOException {
+        ensure(1);
+        buffer.put(SnapshotFormat.TICKET);
+        putString(ticket.getTicketId());
+        putString(ticket.getGame());
+        putString(ticket.getCurrency());
+        ensure(2 * Integer.BYTES + 2 * Long.BYTES + 1);
+        buffer.putInt(ticket.getBookmaker())
+                .putLong(ticket.getStakeUnits())
+                .putLong(ticket.getTotalReturnUnits())
+                .put((byte) ticket.getStatus().ordinal())
+                .putInt(ticket.getPartition());
+    }
+
+    public void writeTotals(int bookmakerId, String game, int count, long stakeSum, long returnSum)
+            throws IOException {
+        ensure(1 + Integer.BYTES);
+        buffer.put(SnapshotFormat.TOTALS).putInt(bookmakerId);
+        putString(game);
+        ensure(Integer.BYTES + 2 * Long.BYTES);
+        buffer.putInt(count).putLong(stakeSum).putLong(returnSum);
+    }
+
+    public void writeCompactedTotals(int partition, int bookmakerId, String game, int count, long stakeSum,
+                                     long returnSum) throws IOException {
+        ensure(1 + 2 * Integer.BYTES);
+        buffer.put(SnapshotFormat.COMPACTED_TOTALS).putInt(partition).putInt(bookmakerId);
+        putString(game);
+        ensure(Integer.BYTES + 2 * Long.BYTES);
+        buffer.putInt(count).putLong(stakeSum).putLong(returnSum);
+    }
+
+    public void writeWindowBucket(int partition, int bookmakerId, String game, String window, long timestamp,
+                                  int count, long stakeSum, long returnSum) throws IOException {
+        ensure(1 + 2 * Integer.BYTES);
+        buffer.put(SnapshotFormat.WINDOW_BUCKET).putInt(partition).putInt(bookmakerId);
+        putString(game);
+        putString(window);
+        ensure(Long.BYTES + Integer.BYTES + 2 * Long.BYTES);
+        buffer.putLong(timestamp).putInt(count).putLong(stakeSum).putLong(returnSum);
+    }
+
+    /**
+     * Writes the end tag, flushes the mapped chunk and trims the file to the written size
+     *
+     * @throws IOException - if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            ensure(1);
+            buffer.put(SnapshotFormat.END);
+            long size = bufferStart + buffer.position();
+            buffer.force();
+            buffer = null;
+            channel.truncate(size);
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void putString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IOException("Value too long for snapshot: " + value.substring(0, 64));
+        }
+        ensure(Short.BYTES + bytes.length);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            buffer.force();
+            map(bufferStart + buffer.position());
+        }
+    }
+
+    private void map(long position) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, SnapshotFormat.CHUNK_SIZE);
+        bufferStart = position;
+    }
+}
@@ -0,0 +1,332 @@
+package com.ticket.reporting.store;
+
+import com.ticket.reporting.TicketStatus;
+import com.ticket.reporting.model.Ticket;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * TicketStore keeping tickets in primitive on-heap columns instead of Ticket objects. Games and currencies are
+ * dictionary encoded, ULID ticket ids are packed into two longs, amounts are kept in Money units and Ticket
+ * objects are only created on read.
+ * Ticket ids that are not canonical ULIDs are kept as strings next to the columns.
+ * Every put and get takes one read-write lock, so concurrent writers wait on each other; TicketStoreProducer wraps
+ * the store in a {@link StripedTicketStore} when tickets are stored by more than one ingest worker.
+ */
+public class ColumnarTicketStore implements TicketStore {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final TicketStatus[] STATUSES = TicketStatus.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final StringDictionary games = new StringDictionary();
+    private final StringDictionary currencies = new StringDictionary();
+    private final Map<String, Integer> otherIdSlots = new HashMap<>();
+    private final Map<Integer, String> otherIds = new HashMap<>();
+    // Ticket ids in order for paging, as the slots are in insertion order
+    private final TicketIdSet ticketIds = new TicketIdSet();
+    private long[] idHigh = new long[INITIAL_CAPACITY];
+    private long[] idLow = new long[INITIAL_CAPACITY];
+    private int[] bookmakers = new int[INITIAL_CAPACITY];
+    private int[] gameCodes = new int[INITIAL_CAPACITY];
+    private int[] currencyCodes = new int[INITIAL_CAPACITY];
+    private long[] stakes = new long[INITIAL_CAPACITY];
+    private long[] totalReturns = new long[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    private int[] partitions = new int[INITIAL_CAPACITY];
+    private int size;
+    // Open addressing table of slot + 1 per bucket, 0 marks an empty bucket
+    private int[] ulidSlots = new int[INITIAL_CAPACITY * 2];
+
+    @Override
+    public Ticket put(Ticket ticket) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(ticket.getTicketId());
+            Ticket previous = null;
+            if (slot < 0) {
+                slot = append(ticket.getTicketId());
+                ticketIds.add(ticket.getTicketId());
+            } else {
+                previous = read(slot);
+            }
+            bookmakers[slot] = ticket.getBookmaker();
+            gameCodes[slot] = games.encode(ticket.getGame());
+            currencyCodes[slot] = currencies.encode(ticket.getCurrency());
+            stakes[slot] = ticket.getStakeUnits();
+            totalReturns[slot] = ticket.getTotalReturnUnits();
+            statuses[slot] = (byte) ticket.getStatus().ordinal();
+            partitions[slot] = ticket.getPartition();
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Ticket get(String ticketId) {
+        lock.readLock().lock();
+        try {
+            int slot = find(ticketId);
+            return slot < 0 ? null : read(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the ticket and moves the last slot into its place, so the columns stay dense
+     */
+    @Override
+    public Ticket remove(String ticketId) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(ticketId);
+            if (slot < 0) {
+                return null;
+            }
+            Ticket removed = read(slot);
+            unlink(slot);
+            ticketIds.remove(ticketId);
+            int last = size - 1;
+            if (slot != last) {
+                move(last, slot);
+            }
+            size--;
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Streams the slots one at a time under the read lock. Tickets removed while the stream is walked may move a
+     * ticket to a slot already passed, which is then not returned.
+     */
+    @Override
+    public Stream<Ticket> tickets() {
+        return IntStream.range(0, size()).mapToObj(slot -> {
+            lock.readLock().lock();
+            try {
+                return slot < size ? read(slot) : null;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }).filter(Objects::nonNull);
+    }
+
+    /**
+     * Copies the columns under the read lock, which costs a copy of the arrays rather than a Ticket per ticket, and
+     * creates the Ticket objects from the copy as the stream is read
+     */
+    @Override
+    public Stream<Ticket> copyTickets() {
+        lock.readLock().lock();
+        try {
+            ColumnarTicketStore copy = new ColumnarTicketStore();
+            copy.idHigh = Arrays.copyOf(idHigh, size);
+            copy.idLow = Arrays.copyOf(idLow, size);
+            copy.bookmakers = Arrays.copyOf(bookmakers, size);
+            copy.gameCodes = Arrays.copyOf(gameCodes, size);
+            copy.currencyCodes = Arrays.copyOf(currencyCodes, size);
+            copy.stakes = Arrays.copyOf(stakes, size);
+            copy.totalReturns = Arrays.copyOf(totalReturns, size);
+            copy.statuses = Arrays.copyOf(statuses, size);
+            copy.partitions = Arrays.copyOf(partitions, size);
+            copy.otherIds.putAll(otherIds);
+            copy.size = size;
+            String[] gameValues = games.copyValues();
+            String[] currencyValues = currencies.copyValues();
+            return IntStream.range(0, size).mapToObj(slot -> copy.read(slot, gameValues, currencyValues));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Seeks the cursor in the ordered ticket ids and reads only the tickets of the page
+     */
+    @Override
+    public List<Ticket> page(String afterTicketId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return ticketIds.after(afterTicketId, limit).stream().map(ticketId -> read(find(ticketId))).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarTicketStore[size=" + size() + ", games=" + games.size()
+                + ", currencies=" + currencies.size() + "]";
+    }
+
+    private Ticket read(int slot) {
+        return read(slot, null, null);
+    }
+
+    /**
+     * Creates the ticket of a slot, decoding games and currencies with copies of the dictionaries when given
+     */
+    private Ticket read(int slot, String[] gameValues, String[] currencyValues) {
+        Ticket ticket = new Ticket();
+        ticket.setTicketId(ticketId(slot));
+        ticket.setBookmaker(bookmakers[slot]);
+        ticket.setGame(gameValues == null ? games.decode(gameCodes[slot]) : gameValues[gameCodes[slot]]);
+        ticket.setCurrency(currencyValues == null
+                ? currencies.decode(currencyCodes[slot]) : currencyValues[currencyCodes[slot]]);
+        ticket.setStakeUnits(stakes[slot]);
+        ticket.setTotalReturnUnits(totalReturns[slot]);
+        ticket.setStatus(STATUSES[statuses[slot]]);
+        ticket.setPartition(partitions[slot]);
+        ticket.setProcessed(true);
+        return ticket;
+    }
+
+    private boolean isPacked(int slot) {
+        return otherIds.isEmpty() || !otherIds.containsKey(slot);
+    }
+
+    private String ticketId(int slot) {
+        return isPacked(slot) ? Ulid.toString(idHigh[slot], idLow[slot]) : otherIds.get(slot);
+    }
+
+    private int find(String ticketId) {
+        if (!Ulid.isUlid(ticketId)) {
+            return otherIdSlots.getOrDefault(ticketId, -1);
+        }
+        long high = Ulid.high(ticketId);
+        long low = Ulid.low(ticketId);
+        int mask = ulidSlots.length - 1;
+        for (int bucket = hash(high, low) & mask; ulidSlots[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int slot = ulidSlots[bucket] - 1;
+            if (idHigh[slot] == high && idLow[slot] == low) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int append(String ticketId) {
+        if (size == bookmakers.length) {
+            grow();
+        }
+        int slot = size++;
+        if (Ulid.isUlid(ticketId)) {
+            idHigh[slot] = Ulid.high(ticketId);
+            idLow[slot] = Ulid.low(ticketId);
+            if (size * 2 > ulidSlots.length) {
+                ulidSlots = new int[ulidSlots.length * 2];
+                for (int i = 0; i < slot; i++) {
+                    if (isPacked(i)) {
+                        insert(i);
+                    }
+                }
+            }
+            insert(slot);
+        } else {
+            otherIdSlots.put(ticketId, slot);
+            otherIds.put(slot, ticketId);
+        }
+        return slot;
+    }
+
+    /**
+     * Removes the ticket id of the slot from the lookup tables. Buckets after it in its probe run are shifted back,
+     * so that no later id becomes unreachable.
+     */
+    private void unlink(int slot) {
+        if (!isPacked(slot)) {
+            otherIdSlots.remove(otherIds.remove(slot));
+            return;
+        }
+        int mask = ulidSlots.length - 1;
+        int hole = bucketOf(slot);
+        ulidSlots[hole] = 0;
+        for (int bucket = (hole + 1) & mask; ulidSlots[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int other = ulidSlots[bucket] - 1;
+            int home = hash(idHigh[other], idLow[other]) & mask;
+            if (((bucket - home) & mask) >= ((bucket - hole) & mask)) {
+                ulidSlots[hole] = ulidSlots[bucket];
+                ulidSlots[bucket] = 0;
+                hole = bucket;
+            }
+        }
+    }
+
+    private void move(int from, int to) {
+        if (isPacked(from)) {
+            ulidSlots[bucketOf(from)] = to + 1;
+        } else {
+            String ticketId = otherIds.remove(from);
+            otherIds.put(to, ticketId);
+            otherIdSlots.put(ticketId, to);
+        }
+        idHigh[to] = idHigh[from];
+        idLow[to] = idLow[from];
+        bookmakers[to] = bookmakers[from];
+        gameCodes[to] = gameCodes[from];
+        currencyCodes[to] = currencyCodes[from];
+        stakes[to] = stakes[from];
+        totalReturns[to] = totalReturns[from];
+        statuses[to] = statuses[from];
+        partitions[to] = partitions[from];
+    }
+
+    private int bucketOf(int slot) {
+        int mask = ulidSlots.length - 1;
+        int bucket = hash(idHigh[slot], idLow[slot]) & mask;
+        while (ulidSlots[bucket] != slot + 1) {
+            bucket = (bucket + 1) & mask;
+        }
+        return bucket;
+    }
+
+    private void insert(int slot) {
+        int mask = ulidSlots.length - 1;
+        int bucket = hash(idHigh[slot], idLow[slot]) & mask;
+        while (ulidSlots[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        ulidSlots[bucket] = slot + 1;
+    }
+
+    private void grow() {
+        int capacity = bookmakers.length + (bookmakers.length >> 1);
+        idHigh = Arrays.copyOf(idHigh, capacity);
+        idLow = Arrays.copyOf(idLow, capacity);
+        bookmakers = Arrays.copyOf(bookmakers, capacity);
+        gameCodes = Arrays.copyOf(gameCodes, capacity);
+        currencyCodes = Arrays.copyOf(currencyCodes, capacity);
+        stakes = Arrays.copyOf(stakes, capacity);
+        totalReturns = Arrays.copyOf(totalReturns, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        partitions = Arrays.copyOf(partitions, capacity);
+    }
+
+    private static int hash(long high, long low) {
+        long hash = (high ^ low) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
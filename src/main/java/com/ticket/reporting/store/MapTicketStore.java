@@ -0,0 +1,95 @@
+package com.ticket.reporting.store;
+
+import com.ticket.reporting.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * TicketStore keeping each Ticket object in a ConcurrentHashMap, with the ticket ids kept in order in a
+ * {@link TicketIdSet} for paging. The id set is updated within the compute of the ticket, so it holds exactly the
+ * ids of the map once no put or remove is running.
+ */
+public class MapTicketStore implements TicketStore {
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final TicketIdSet ticketIds = new TicketIdSet();
+
+    @Override
+    public Ticket put(Ticket ticket) {
+        Ticket[] previous = new Ticket[1];
+        tickets.compute(ticket.getTicketId(), (ticketId, stored) -> {
+            if (stored == null) {
+                ticketIds.add(ticketId);
+            }
+            previous[0] = stored;
+            return ticket;
+        });
+        return previous[0];
+    }
+
+    @Override
+    public Ticket get(String ticketId) {
+        return tickets.get(ticketId);
+    }
+
+    @Override
+    public Ticket remove(String ticketId) {
+        Ticket[] removed = new Ticket[1];
+        tickets.computeIfPresent(ticketId, (id, stored) -> {
+            ticketIds.remove(id);
+            removed[0] = stored;
+            return null;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public Stream<Ticket> tickets() {
+        return tickets.values().stream();
+    }
+
+    /**
+     * Copies the references of the stored tickets, a stored Ticket is replaced on update and never changed
+     */
+    @Override
+    public Stream<Ticket> copyTickets() {
+        return List.copyOf(tickets.values()).stream();
+    }
+
+    /**
+     * Seeks the cursor in the ordered ticket ids, reading further ids for the tickets removed since they were read
+     */
+    @Override
+    public List<Ticket> page(String afterTicketId, int limit) {
+        List<Ticket> page = new ArrayList<>(Math.max(0, limit));
+        String cursor = afterTicketId;
+        while (page.size() < limit) {
+            int wanted = limit - page.size();
+            List<String> ticketIdsAfter = ticketIds.after(cursor, wanted);
+            for (String ticketId : ticketIdsAfter) {
+                Ticket ticket = tickets.get(ticketId);
+                if (ticket != null) {
+                    page.add(ticket);
+                }
+                cursor = ticketId;
+            }
+            if (ticketIdsAfter.size() < wanted) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public int size() {
+        return tickets.size();
+    }
+
+    @Override
+    public String toString() {
+        return tickets.toString();
+    }
+}
@@ -0,0 +1,37 @@
+package com.ticket.reporting.store;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding of repeated strings such as games and currencies into dense int codes.
+ * Not thread safe, callers synchronize access.
+ */
+class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    String decode(int code) {
+        return values.get(code);
+    }
+
+    String[] copyValues() {
+        return values.toArray(String[]::new);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
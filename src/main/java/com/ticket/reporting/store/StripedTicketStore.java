@@ -0,0 +1,97 @@
+package com.ticket.reporting.store;
+
+import com.ticket.reporting.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * TicketStore spreading tickets over independent stripes by ticket id, so that writers working on different
+ * partitions rarely wait on the same stripe. All versions of a ticket live in the same stripe.
+ */
+public class StripedTicketStore implements TicketStore {
+    private final TicketStore[] stripes;
+
+    /**
+     * Creates a striped store
+     *
+     * @param stripeCount - Number of stripes
+     * @param stripeFactory - Creates the store of each stripe
+     */
+    public StripedTicketStore(int stripeCount, Supplier<TicketStore> stripeFactory) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be positive: " + stripeCount);
+        }
+        stripes = new TicketStore[stripeCount];
+        Arrays.setAll(stripes, stripe -> stripeFactory.get());
+    }
+
+    @Override
+    public Ticket put(Ticket ticket) {
+        return stripe(ticket.getTicketId()).put(ticket);
+    }
+
+    @Override
+    public Ticket get(String ticketId) {
+        return stripe(ticketId).get(ticketId);
+    }
+
+    @Override
+    public Ticket remove(String ticketId) {
+        return stripe(ticketId).remove(ticketId);
+    }
+
+    @Override
+    public Stream<Ticket> tickets() {
+        return Arrays.stream(stripes).flatMap(TicketStore::tickets);
+    }
+
+    @Override
+    public Stream<Ticket> copyTickets() {
+        List<Stream<Ticket>> copies = Arrays.stream(stripes).map(TicketStore::copyTickets).toList();
+        return copies.stream().flatMap(Function.identity());
+    }
+
+    /**
+     * Takes a page from every stripe, each a seek in the ordered ids of the stripe, and keeps the smallest ticket ids
+     * of their union
+     */
+    @Override
+    public List<Ticket> page(String afterTicketId, int limit) {
+        List<Ticket> candidates = new ArrayList<>();
+        for (TicketStore stripe : stripes) {
+            candidates.addAll(stripe.page(afterTicketId, limit));
+        }
+        return candidates.stream()
+                .sorted(Comparator.comparing(Ticket::getTicketId))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (TicketStore stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    @Override
+    public String toString() {
+        return "StripedTicketStore" + Arrays.toString(stripes);
+    }
+
+    private TicketStore stripe(String ticketId) {
+        return stripes[Math.floorMod(ticketId.hashCode(), stripes.length)];
+    }
+}
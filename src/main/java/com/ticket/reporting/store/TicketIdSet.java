@@ -0,0 +1,307 @@
+package com.ticket.reporting.store;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+/**
+ * Sorted set of ticket ids that keeps canonical ULIDs packed into two longs, in sorted chunks of up to CHUNK_SIZE
+ * ids, instead of a String and a tree node per id. ULIDs are created in time order, so new ids are mostly appended
+ * to the last chunk; an id inserted into a full chunk splits it. Ids that are not canonical ULIDs are kept as
+ * strings beside the chunks. Seeking the first id after a cursor is a binary search over the chunks and within one,
+ * so a page of ids costs O(log n + limit). Thread safe: every operation holds the monitor of the set, and
+ * iterators read one page at a time, seeing the ids added or removed between two pages like a weakly consistent
+ * iterator.
+ */
+class TicketIdSet extends AbstractSet<String> {
+    private static final int CHUNK_SIZE = 256;
+    private static final int INITIAL_CHUNK_SIZE = 4;
+    private static final int ITERATOR_PAGE = 256;
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final NavigableSet<String> others = new TreeSet<>();
+    private int size;
+
+    @Override
+    public synchronized boolean add(String ticketId) {
+        if (!Ulid.isUlid(ticketId)) {
+            if (!others.add(ticketId)) {
+                return false;
+            }
+            size++;
+            return true;
+        }
+        long high = Ulid.high(ticketId);
+        long low = Ulid.low(ticketId);
+        if (chunks.isEmpty()) {
+            chunks.add(new Chunk(INITIAL_CHUNK_SIZE));
+        }
+        int index = chunkOf(high, low);
+        Chunk chunk = chunks.get(index);
+        int position = chunk.search(high, low);
+        if (position >= 0) {
+            return false;
+        }
+        position = -position - 1;
+        if (chunk.size == CHUNK_SIZE) {
+            if (index == chunks.size() - 1 && position == CHUNK_SIZE) {
+                chunk = new Chunk(CHUNK_SIZE);
+                chunks.add(chunk);
+                position = 0;
+            } else {
+                Chunk upper = chunk.split();
+                chunks.add(index + 1, upper);
+                if (position > chunk.size) {
+                    position -= chunk.size;
+                    chunk = upper;
+                }
+            }
+        }
+        chunk.insert(position, high, low);
+        size++;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean remove(Object value) {
+        if (!(value instanceof String ticketId)) {
+            return false;
+        }
+        if (!Ulid.isUlid(ticketId)) {
+            if (!others.remove(ticketId)) {
+                return false;
+            }
+            size--;
+            return true;
+        }
+        if (chunks.isEmpty()) {
+            return false;
+        }
+        long high = Ulid.high(ticketId);
+        long low = Ulid.low(ticketId);
+        int index = chunkOf(high, low);
+        Chunk chunk = chunks.get(index);
+        int position = chunk.search(high, low);
+        if (position < 0) {
+            return false;
+        }
+        chunk.delete(position);
+        if (chunk.size == 0) {
+            chunks.remove(index);
+        }
+        size--;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean contains(Object value) {
+        if (!(value instanceof String ticketId)) {
+            return false;
+        }
+        if (!Ulid.isUlid(ticketId)) {
+            return others.contains(ticketId);
+        }
+        long high = Ulid.high(ticketId);
+        long low = Ulid.low(ticketId);
+        return !chunks.isEmpty() && chunks.get(chunkOf(high, low)).search(high, low) >= 0;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the ids following the cursor in ticket id order
+     *
+     * @param afterTicketId - Cursor, only greater ticket ids are returned, null for the first ids
+     * @param limit - Maximum number of ticket ids returned
+     * @return List<String> - Ticket ids ordered by ticket id
+     */
+    synchronized List<String> after(String afterTicketId, int limit) {
+        List<String> page = new ArrayList<>(Math.min(limit, size));
+        Iterator<String> other = (afterTicketId == null ? others : others.tailSet(afterTicketId, false)).iterator();
+        String nextOther = other.hasNext() ? other.next() : null;
+        int index = 0;
+        int position = 0;
+        if (afterTicketId != null && !chunks.isEmpty()) {
+            index = seekChunk(afterTicketId);
+            position = chunks.get(index).seek(afterTicketId);
+        }
+        while (page.size() < limit) {
+            if (index < chunks.size() && position == chunks.get(index).size) {
+                index++;
+                position = 0;
+                continue;
+            }
+            String nextUlid = index < chunks.size() ? chunks.get(index).ticketId(position) : null;
+            if (nextUlid == null && nextOther == null) {
+                break;
+            }
+            if (nextOther == null || (nextUlid != null && nextUlid.compareTo(nextOther) < 0)) {
+                page.add(nextUlid);
+                position++;
+            } else {
+                page.add(nextOther);
+                nextOther = other.hasNext() ? other.next() : null;
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private List<String> page = after(null, ITERATOR_PAGE);
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == page.size() && page.size() == ITERATOR_PAGE) {
+                    page = after(page.get(page.size() - 1), ITERATOR_PAGE);
+                    next = 0;
+                }
+                return next < page.size();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(next++);
+            }
+        };
+    }
+
+    /**
+     * @return int - Index of the last chunk whose first id is not greater than the id, 0 if there is none
+     */
+    private int chunkOf(long high, long low) {
+        int lowest = 0;
+        int highest = chunks.size() - 1;
+        while (lowest < highest) {
+            int middle = (lowest + highest + 1) >>> 1;
+            Chunk chunk = chunks.get(middle);
+            if (compare(chunk.ids[0], chunk.ids[1], high, low) <= 0) {
+                lowest = middle;
+            } else {
+                highest = middle - 1;
+            }
+        }
+        return lowest;
+    }
+
+    /**
+     * @return int - Index of the chunk holding the first id greater than the cursor, or of the last chunk
+     */
+    private int seekChunk(String afterTicketId) {
+        if (Ulid.isUlid(afterTicketId)) {
+            return chunkOf(Ulid.high(afterTicketId), Ulid.low(afterTicketId));
+        }
+        int lowest = 0;
+        int highest = chunks.size() - 1;
+        while (lowest < highest) {
+            int middle = (lowest + highest + 1) >>> 1;
+            if (chunks.get(middle).ticketId(0).compareTo(afterTicketId) <= 0) {
+                lowest = middle;
+            } else {
+                highest = middle - 1;
+            }
+        }
+        return lowest;
+    }
+
+    // The Crockford base32 alphabet is in ASCII order, so packed ULIDs compare like their strings
+    private static int compare(long high, long low, long otherHigh, long otherLow) {
+        int compared = Long.compareUnsigned(high, otherHigh);
+        return compared != 0 ? compared : Long.compareUnsigned(low, otherLow);
+    }
+
+    private static final class Chunk {
+        // High and low long of each id, interleaved, grown up to CHUNK_SIZE ids as most games hold few tickets
+        private long[] ids;
+        private int size;
+
+        private Chunk(int capacity) {
+            ids = new long[2 * capacity];
+        }
+
+        /**
+         * @return int - Position of the id, or -(insertion point) - 1 if the chunk does not hold it
+         */
+        private int search(long high, long low) {
+            int lowest = 0;
+            int highest = size - 1;
+            while (lowest <= highest) {
+                int middle = (lowest + highest) >>> 1;
+                int compared = compare(ids[2 * middle], ids[2 * middle + 1], high, low);
+                if (compared < 0) {
+                    lowest = middle + 1;
+                } else if (compared > 0) {
+                    highest = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -lowest - 1;
+        }
+
+        /**
+         * @return int - Position of the first id greater than the cursor, size if there is none
+         */
+        private int seek(String afterTicketId) {
+            if (Ulid.isUlid(afterTicketId)) {
+                int position = search(Ulid.high(afterTicketId), Ulid.low(afterTicketId));
+                return position >= 0 ? position + 1 : -position - 1;
+            }
+            int lowest = 0;
+            int highest = size - 1;
+            while (lowest <= highest) {
+                int middle = (lowest + highest) >>> 1;
+                if (ticketId(middle).compareTo(afterTicketId) <= 0) {
+                    lowest = middle + 1;
+                } else {
+                    highest = middle - 1;
+                }
+            }
+            return lowest;
+        }
+
+        private String ticketId(int position) {
+            return Ulid.toString(ids[2 * position], ids[2 * position + 1]);
+        }
+
+        private void insert(int position, long high, long low) {
+            if (2 * size == ids.length) {
+                ids = Arrays.copyOf(ids, 2 * Math.min(CHUNK_SIZE, 2 * size));
+            }
+            System.arraycopy(ids, 2 * position, ids, 2 * position + 2, 2 * (size - position));
+            ids[2 * position] = high;
+            ids[2 * position + 1] = low;
+            size++;
+        }
+
+        private void delete(int position) {
+            System.arraycopy(ids, 2 * position + 2, ids, 2 * position, 2 * (size - position - 1));
+            size--;
+        }
+
+        /**
+         * Moves the upper half of the ids into a new chunk
+         */
+        private Chunk split() {
+            Chunk upper = new Chunk(CHUNK_SIZE);
+            int half = size / 2;
+            upper.size = size - half;
+            System.arraycopy(ids, 2 * half, upper.ids, 0, 2 * upper.size);
+            size = half;
+            return upper;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.ticket.reporting.store;
+
+import com.ticket.reporting.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Secondary index of the ticket store: bookmaker -> game -> ticket ids, kept consistent on every upsert. The ids of
+ * a game are kept sorted in a {@link TicketIdSet}, packed into two longs instead of a String and a skip list node per
+ * ticket, so the ids of a bookmaker are read by merging its games instead of sorting them. Sets left empty by a move
+ * or an eviction are removed, along with a bookmaker left without games; both are added and removed within a compute
+ * of the bookmaker, so that a concurrent add never lands in a set being removed.
+ */
+public class TicketIndex {
+    private final Map<Integer, Map<String, TicketIdSet>> ticketIds = new ConcurrentHashMap<>();
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Moves the ticket id from the bookmaker and game of its previous version to those of its current version
+     *
+     * @param previous - Previously stored version of the ticket, null if the ticket is new
+     * @param current - Version of the ticket that replaces it
+     */
+    public void update(Ticket previous, Ticket current) {
+        if (previous != null && (!previous.getBookmaker().equals(current.getBookmaker())
+                || !previous.getGame().equals(current.getGame()))) {
+            remove(previous);
+        }
+        ticketIds.compute(current.getBookmaker(), (bookmakerId, games) -> {
+            Map<String, TicketIdSet> idsByGame = games == null ? new ConcurrentHashMap<>() : games;
+            if (idsByGame.computeIfAbsent(current.getGame(), game -> new TicketIdSet())
+                    .add(current.getTicketId())) {
+                size.increment();
+            }
+            return idsByGame;
+        });
+    }
+
+    /**
+     * Removes the ticket id of a ticket that left the store
+     *
+     * @param ticket - Removed version of the ticket
+     */
+    public void remove(Ticket ticket) {
+        ticketIds.computeIfPresent(ticket.getBookmaker(), (bookmakerId, games) -> {
+            games.computeIfPresent(ticket.getGame(), (game, ids) -> {
+                if (ids.remove(ticket.getTicketId())) {
+                    size.decrement();
+                }
+                return ids.isEmpty() ? null : ids;
+            });
+            return games.isEmpty() ? null : games;
+        });
+    }
+
+    /**
+     * @return long - Number of indexed ticket ids, counted on update instead of summing the sets of every game
+     */
+    public long size() {
+        return size.sum();
+    }
+
+    /**
+     * Retrieves the ids of all tickets of a bookmaker, merging the sorted ids of its games
+     *
+     * @param bookmakerId - Bookmaker Id for which the ticket ids are retrieved
+     * @return Stream<String> - Ticket ids ordered by ticket id
+     */
+    public Stream<String> getTicketIds(int bookmakerId) {
+        Map<String, TicketIdSet> games = ticketIds.get(bookmakerId);
+        if (games == null) {
+            return Stream.empty();
+        }
+        List<Iterator<String>> iterators = new ArrayList<>(games.size());
+        games.values().forEach(ids -> iterators.add(ids.iterator()));
+        if (iterators.size() == 1) {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterators.get(0),
+                    Spliterator.ORDERED | Spliterator.SORTED | Spliterator.NONNULL), false);
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new MergingIterator(iterators),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Retrieves the ids of the tickets of a bookmaker for one game
+     *
+     * @param bookmakerId - Bookmaker Id for which the ticket ids are retrieved
+     * @param game - Game for which the ticket ids are retrieved
+     * @return Set<String> - Ticket ids ordered by ticket id
+     */
+    public Set<String> getTicketIds(int bookmakerId, String game) {
+        Set<String> ids = ticketIds.getOrDefault(bookmakerId, Map.of()).get(game);
+        return ids == null ? Collections.emptyNavigableSet() : ids;
+    }
+
+    /**
+     * Merges sorted iterators into one sorted iterator, holding the next id of each in a heap
+     */
+    private static final class MergingIterator implements Iterator<String> {
+        private final PriorityQueue<Head> heads;
+
+        private MergingIterator(List<Iterator<String>> iterators) {
+            heads = new PriorityQueue<>(iterators.size());
+            for (Iterator<String> iterator : iterators) {
+                if (iterator.hasNext()) {
+                    heads.add(new Head(iterator.next(), iterator));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public String next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            if (head.rest.hasNext()) {
+                heads.add(new Head(head.rest.next(), head.rest));
+            }
+            return head.ticketId;
+        }
+    }
+
+    private record Head(String ticketId, Iterator<String> rest) implements Comparable<Head> {
+        @Override
+        public int compareTo(Head other) {
+            return ticketId.compareTo(other.ticketId);
+        }
+    }
+}
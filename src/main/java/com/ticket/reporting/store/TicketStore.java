@@ -0,0 +1,60 @@
+package com.ticket.reporting.store;
+
+import com.ticket.reporting.model.Ticket;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * In-memory store of the latest version of each ticket, keyed by ticket id.
+ */
+public interface TicketStore {
+    /**
+     * Stores the ticket, replacing any ticket with the same ticket id
+     *
+     * @param ticket - Ticket to be stored
+     * @return Ticket - Previously stored version of the ticket, null if the ticket is new
+     */
+    Ticket put(Ticket ticket);
+
+    /**
+     * Retrieves a ticket by its ticket id
+     *
+     * @param ticketId - Ticket id of the ticket
+     * @return Ticket - null if no ticket is stored for the ticket id
+     */
+    Ticket get(String ticketId);
+
+    /**
+     * Removes a ticket by its ticket id
+     *
+     * @param ticketId - Ticket id of the ticket
+     * @return Ticket - Removed ticket, null if no ticket is stored for the ticket id
+     */
+    Ticket remove(String ticketId);
+
+    /**
+     * Retrieves all stored tickets
+     *
+     * @return Stream<Ticket>
+     */
+    Stream<Ticket> tickets();
+
+    /**
+     * Copies all stored tickets at once, so that they can be read on another thread while the store keeps changing
+     *
+     * @return Stream<Ticket> - Stream over the copy, not affected by later puts and removes
+     */
+    Stream<Ticket> copyTickets();
+
+    /**
+     * Retrieves a page of tickets ordered by ticket id, which for ULIDs is the order in which they were created
+     *
+     * @param afterTicketId - Cursor, only tickets with a greater ticket id are returned, null for the first page
+     * @param limit - Maximum number of tickets returned
+     * @return List<Ticket>
+     */
+    List<Ticket> page(String afterTicketId, int limit);
+
+    int size();
+}
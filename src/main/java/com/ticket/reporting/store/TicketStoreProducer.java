@@ -0,0 +1,40 @@
+package com.ticket.reporting.store;
+
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Produces the TicketStore implementation configured with ticket.store.type, split into ticket.store.stripes
+ * stripes when more than one is configured. A columnar store writes under a single lock, so with more than one
+ * ingest worker it is split into at least STRIPES_PER_WORKER stripes per worker.
+ */
+@ApplicationScoped
+public class TicketStoreProducer {
+    // Enough stripes that two workers rarely hit the same one
+    static final int STRIPES_PER_WORKER = 4;
+
+    @Produces
+    @Singleton
+    TicketStore ticketStore(@ConfigProperty(name = "ticket.store.type", defaultValue = "map") TicketStoreType type,
+                            @ConfigProperty(name = "ticket.store.stripes", defaultValue = "1") int stripes,
+                            @ConfigProperty(name = "ticket.ingest.workers", defaultValue = "1") int workers) {
+        if (type == TicketStoreType.COLUMNAR && workers > 1) {
+            stripes = Math.max(stripes, workers * STRIPES_PER_WORKER);
+        }
+        Log.info("Using " + type + " ticket store with " + stripes + " stripe(s)");
+        if (stripes > 1) {
+            return new StripedTicketStore(stripes, () -> create(type));
+        }
+        return create(type);
+    }
+
+    private static TicketStore create(TicketStoreType type) {
+        return switch (type) {
+            case MAP -> new MapTicketStore();
+            case COLUMNAR -> new ColumnarTicketStore();
+        };
+    }
+}
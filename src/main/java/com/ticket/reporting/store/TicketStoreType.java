@@ -0,0 +1,8 @@
+package com.ticket.reporting.store;
+
+/**
+ * Implementations of the TicketStore, selected with the ticket.store.type property.
+ */
+public enum TicketStoreType {
+    MAP, COLUMNAR
+}
@@ -0,0 +1,82 @@
+package com.ticket.reporting.store;
+
+import java.util.Arrays;
+
+/**
+ * Packs canonical 26 character ULIDs (Crockford base32, upper case) into two longs and back.
+ */
+public final class Ulid {
+    static final int LENGTH = 26;
+    private static final char[] ENCODING = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] DECODING = new byte[128];
+
+    static {
+        Arrays.fill(DECODING, (byte) -1);
+        for (int i = 0; i < ENCODING.length; i++) {
+            DECODING[ENCODING[i]] = (byte) i;
+        }
+    }
+
+    private Ulid() {
+    }
+
+    /**
+     * Checks whether the ticket id is a canonical ULID that can be packed without loss
+     *
+     * @param value - Ticket id
+     * @return boolean
+     */
+    public static boolean isUlid(String value) {
+        if (value.length() != LENGTH || decode(value.charAt(0)) > 7) {
+            return false;
+        }
+        for (int i = 1; i < LENGTH; i++) {
+            if (decode(value.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long high(String ulid) {
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            high = (high << 5) | (low >>> 59);
+            low = (low << 5) | decode(ulid.charAt(i));
+        }
+        return high;
+    }
+
+    /**
+     * Reads the creation time held in the first 48 bits of a ULID
+     *
+     * @param ulid - Canonical ULID
+     * @return long - Epoch millis
+     */
+    public static long timestamp(String ulid) {
+        return high(ulid) >>> 16;
+    }
+
+    static long low(String ulid) {
+        long low = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            low = (low << 5) | decode(ulid.charAt(i));
+        }
+        return low;
+    }
+
+    static String toString(long high, long low) {
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ENCODING[(int) (low & 31)];
+            low = (low >>> 5) | (high << 59);
+            high >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    private static int decode(char c) {
+        return c < DECODING.length ? DECODING[c] : -1;
+    }
+}
@@ -7,8 +7,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.both;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.lessThan;
 
 @QuarkusTest
 class TicketResourceIT {
@@ -53,6 +59,49 @@ class TicketResourceIT {
                 .body("$.size()", is(4));
     }
 
+    @Test
+    void testMetricsEndpoint() {
+        given().when().get("/tickets/bookmaker/1234/product").then().statusCode(200);
+        given()
+                .when().get("/q/metrics")
+                .then()
+                .statusCode(200)
+                .body(containsString("tickets_stored_total"))
+                .body(containsString("tickets_store_size 4.0"))
+                .body(containsString("tickets_parse_seconds_bucket"))
+                .body(containsString("http_server_requests_seconds_bucket{method=\"GET\",outcome=\"SUCCESS\","
+                        + "status=\"200\",uri=\"/tickets/bookmaker/{id}/product\""));
+    }
+
+    @Test
+    void testGetTicketsPageEndpoint() {
+        given()
+                .when().get("/tickets?limit=2")
+                .then()
+                .statusCode(200)
+                .header("Next-Cursor", is("45678"))
+                .body("$.size()", is(2))
+                .body("[1].ticketId", is("45678"));
+        given()
+                .when().get("/tickets?after=45678&limit=2")
+                .then()
+                .statusCode(200)
+                .body("$.size()", is(2))
+                .body("[0].ticketId", is("56789"))
+                .body("[1].ticketId", is("89012"));
+    }
+
+    @Test
+    void testStreamTicketsEndpoint() {
+        given()
+                .when().get("/tickets/stream?after=56789")
+                .then()
+                .statusCode(200)
+                .contentType("application/x-ndjson")
+                .body(is("{\"ticketId\":\"89012\",\"ticket\":{\"bookmaker\":2345,\"currency\":\"INR\",\"game\":\"GTA\"," +
+                        "\"status\":\"CANCELLED\",\"stake\":234.56,\"ticket_id\":\"89012\",\"total_return\":345.67}}\n"));
+    }
+
     @Test
     void testGetTicketsByBookmakerIdEndpoint() {
         given()
@@ -82,4 +131,119 @@ class TicketResourceIT {
                 .body("NFS.profitLoss", is(222.22F))
                 .body("NFS.margin", is(47.37F));
     }
+
+    @Test
+    void testConditionalGetOfBookmakerEndpoint() {
+        String etag = given().when().get("/tickets/bookmaker/1234/product")
+                .then().statusCode(200).header("ETag", notNullValue()).extract().header("ETag");
+        String body = given().when().get("/tickets/bookmaker/1234/product")
+                .then().statusCode(200).header("ETag", is(etag)).extract().asString();
+        given()
+                .header("If-None-Match", etag)
+                .when().get("/tickets/bookmaker/1234/product")
+                .then()
+                .statusCode(304);
+        ticketConsumer.consume(message1);
+        given()
+                .header("If-None-Match", etag)
+                .when().get("/tickets/bookmaker/1234/product")
+                .then()
+                .statusCode(200)
+                .header("ETag", not(etag))
+                .body(is(body));
+    }
+
+    @Test
+    void testShardPartialSumsEndpoint() {
+        given()
+                .when().get("/internal/shard/bookmaker/1234")
+                .then()
+                .statusCode(200)
+                .body("count", is(3))
+                .body("stakeUnits", is(5925700))
+                .body("returnUnits", is(9259000));
+    }
+
+    @Test
+    void testShardPartialSumsBatchEndpoint() {
+        given()
+                .contentType("application/json")
+                .body("[1234, 2345]")
+                .queryParam("game", "NFS")
+                .when().post("/internal/shard/bookmakers/product")
+                .then()
+                .statusCode(200)
+                .body("'1234'.NFS.count", is(2))
+                .body("'1234'", not(hasKey("Call of Duty")))
+                .body("$", not(hasKey("2345")));
+        given()
+                .contentType("application/json")
+                .body("[]")
+                .when().post("/internal/shard/bookmakers/product")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testDistributionEndpoints() {
+        given()
+                .when().get("/tickets/bookmaker/1234/product/distribution")
+                .then()
+                .statusCode(200)
+                .body("NFS.costMetrics.numberOfTickets", is(2))
+                .body("NFS.costMetrics.turnover", is(469.12F))
+                .body("NFS.stake.median", both(greaterThan(229.87F)).and(lessThan(239.26F)))
+                .body("NFS.totalReturn.p95", both(greaterThan(338.75F)).and(lessThan(352.59F)))
+                .body("NFS.distinctCurrencies", is(2))
+                .body("'Call of Duty'.distinctCurrencies", is(1));
+        given()
+                .when().get("/tickets/bookmaker/1234/distribution")
+                .then()
+                .statusCode(200)
+                .body("costMetrics.numberOfTickets", is(3))
+                .body("stake.median", both(greaterThan(229.87F)).and(lessThan(239.26F)))
+                .body("distinctCurrencies", is(2));
+    }
+
+    @Test
+    void testBookmakersGroupedByGameEndpoint() {
+        given()
+                .when().get("/tickets/bookmakers/product?id=1234&id=2345&id=3456")
+                .then()
+                .statusCode(200)
+                .body("'1234'.NFS.numberOfTickets", is(2))
+                .body("'1234'.'Call of Duty'.numberOfTickets", is(1))
+                .body("'2345'.size()", is(0))
+                .body("'3456'.size()", is(0));
+        given()
+                .when().get("/tickets/bookmakers/product?id=1234&game=NFS")
+                .then()
+                .statusCode(200)
+                .body("'1234'.size()", is(1))
+                .body("'1234'.NFS.turnover", is(469.12F));
+        given()
+                .when().get("/tickets/bookmakers/product")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testLeaderboardEndpoints() {
+        given()
+                .when().get("/tickets/bookmaker/1234/product/top?by=turnover&limit=1")
+                .then()
+                .statusCode(200)
+                .body("$.size()", is(1))
+                .body("[0].game", is("NFS"))
+                .body("[0].costMetrics.turnover", is(469.12F));
+        given()
+                .when().get("/tickets/bookmakers/top")
+                .then()
+                .statusCode(200)
+                .body("[0].bookmaker", is(1234));
+        given()
+                .when().get("/tickets/bookmaker/1234/product/top?by=margin")
+                .then()
+                .statusCode(400);
+    }
 }
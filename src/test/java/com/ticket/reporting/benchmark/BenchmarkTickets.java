@@ -0,0 +1,65 @@
+package com.ticket.reporting.benchmark;
+
+import com.ticket.reporting.TicketStatus;
+import com.ticket.reporting.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic tickets with ULID ticket ids for the benchmarks.
+ */
+final class BenchmarkTickets {
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final String[] GAMES = {"Call of Duty", "NFS", "GTA", "FIFA", "Tetris"};
+    private static final String[] CURRENCIES = {"EUR", "PLN", "INR", "USD"};
+    static final int FIRST_BOOKMAKER = 1000;
+    static final int BOOKMAKERS = 50;
+
+    private BenchmarkTickets() {
+    }
+
+    static List<String> messages(int count, Random random) {
+        List<String> messages = new ArrayList<>(count);
+        long time = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            messages.add(message(ulid(time + i, random), random));
+        }
+        return messages;
+    }
+
+    static String message(String ticketId, Random random) {
+        return "{\"bookmaker\": " + (FIRST_BOOKMAKER + random.nextInt(BOOKMAKERS)) + ",\"currency\": \""
+                + CURRENCIES[random.nextInt(CURRENCIES.length)] + "\",\"game\": \""
+                + GAMES[random.nextInt(GAMES.length)] + "\",\"stake\": " + (1 + random.nextInt(10_000)) / 100.0
+                + ",\"status\": \"PLACED\",\"ticket_id\":\"" + ticketId + "\",\"total_return\": "
+                + random.nextInt(20_000) / 100.0 + "}";
+    }
+
+    static Ticket ticket(long time, Random random) {
+        Ticket ticket = new Ticket();
+        ticket.setTicketId(ulid(time, random));
+        ticket.setBookmaker(FIRST_BOOKMAKER + random.nextInt(BOOKMAKERS));
+        // new String mirrors the separate instances Jackson creates for every parsed message
+        ticket.setGame(new String(GAMES[random.nextInt(GAMES.length)]));
+        ticket.setCurrency(new String(CURRENCIES[random.nextInt(CURRENCIES.length)]));
+        ticket.setStake((1 + random.nextInt(10_000)) / 100.0);
+        ticket.setTotalReturn(random.nextInt(20_000) / 100.0);
+        ticket.setStatus(TicketStatus.PLACED);
+        ticket.setProcessed(true);
+        return ticket;
+    }
+
+    static String ulid(long time, Random random) {
+        char[] ulid = new char[26];
+        for (int i = 9; i >= 0; i--) {
+            ulid[i] = CROCKFORD[(int) (time & 31)];
+            time >>>= 5;
+        }
+        for (int i = 10; i < 26; i++) {
+            ulid[i] = CROCKFORD[random.nextInt(32)];
+        }
+        return new String(ulid);
+    }
+}
@@ -0,0 +1,191 @@
+package com.ticket.reporting.benchmark;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generates ticket.v1.json messages resembling production traffic: ULID ticket ids of the current time, bookmakers
+ * and games drawn from Zipf distributions so that a few of them carry most tickets, and every ticket placed first
+ * and settled later as MONETISED, CANCELLED or REJECTED. Not thread safe.
+ * Used by TicketSoakTest, or run on its own to produce to a local Kafka broker with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.ticket.reporting.benchmark.TicketLoadGenerator -Dexec.args="localhost:9092 20000 60"
+ */
+public class TicketLoadGenerator {
+    static final int FIRST_BOOKMAKER = 1000;
+    private static final String[] CURRENCIES = {"EUR", "PLN", "INR", "USD", "GBP", "BRL"};
+    private static final double ZIPF_EXPONENT = 1.1;
+    // Share of messages settling an open ticket, while tickets are placed as fast as they are settled
+    private static final double SETTLE_SHARE = 0.5;
+    private static final int MAX_OPEN = 100_000;
+
+    private final Random random;
+    private final Zipf bookmakers;
+    private final Zipf games;
+    private final ArrayDeque<OpenTicket> open = new ArrayDeque<>();
+    private String lastTicketId;
+    private long placed;
+    private long settled;
+
+    /**
+     * @param bookmakerCount - Number of bookmakers, numbered from FIRST_BOOKMAKER
+     * @param gameCount - Number of games
+     * @param seed - Seed of the random choices
+     */
+    public TicketLoadGenerator(int bookmakerCount, int gameCount, long seed) {
+        random = new Random(seed);
+        bookmakers = new Zipf(bookmakerCount, ZIPF_EXPONENT);
+        games = new Zipf(gameCount, ZIPF_EXPONENT);
+    }
+
+    /**
+     * @return byte[] - Next message, placing a new ticket or settling one placed earlier
+     */
+    public byte[] next() {
+        if (open.size() >= MAX_OPEN || (!open.isEmpty() && random.nextDouble() < SETTLE_SHARE)) {
+            OpenTicket ticket = open.poll();
+            lastTicketId = ticket.ticketId();
+            return settle(ticket);
+        }
+        OpenTicket ticket = new OpenTicket(BenchmarkTickets.ulid(System.currentTimeMillis(), random),
+                FIRST_BOOKMAKER + bookmakers.next(random), "Game " + games.next(random),
+                (1 + random.nextInt(10_000)) / 100.0);
+        open.add(ticket);
+        lastTicketId = ticket.ticketId();
+        placed++;
+        return message(ticket, "PLACED", ticket.stake() * 2);
+    }
+
+    /**
+     * @param bookmaker - Bookmaker of the ticket
+     * @param ticketId - ULID ticket id
+     * @return byte[] - Message placing a ticket outside the generated traffic, e.g. to probe for it
+     */
+    public static byte[] placed(int bookmaker, String ticketId) {
+        return message(new OpenTicket(ticketId, bookmaker, "Probe", 1), "PLACED", 2);
+    }
+
+    /**
+     * @return String - ULID ticket id of the current time
+     */
+    public String nextTicketId() {
+        return BenchmarkTickets.ulid(System.currentTimeMillis(), random);
+    }
+
+    /**
+     * @return int - Bookmaker drawn from the same distribution as the generated tickets
+     */
+    public int nextBookmaker() {
+        return FIRST_BOOKMAKER + bookmakers.next(random);
+    }
+
+    /**
+     * @return String - Ticket id of the last message, the key that keeps the updates of a ticket in one partition
+     */
+    public String lastTicketId() {
+        return lastTicketId;
+    }
+
+    public long placed() {
+        return placed;
+    }
+
+    public long settled() {
+        return settled;
+    }
+
+    private byte[] settle(OpenTicket ticket) {
+        settled++;
+        double outcome = random.nextDouble();
+        if (outcome < 0.05) {
+            return message(ticket, "REJECTED", 0);
+        }
+        if (outcome < 0.15) {
+            return message(ticket, "CANCELLED", ticket.stake());
+        }
+        // Most tickets lose, the winners return between one and five times the stake
+        double totalReturn = outcome < 0.55 ? ticket.stake() * (1 + random.nextInt(400) / 100.0) : 0;
+        return message(ticket, "MONETISED", totalReturn);
+    }
+
+    private static byte[] message(OpenTicket ticket, String status, double totalReturn) {
+        return ("{\"bookmaker\": " + ticket.bookmaker() + ",\"currency\": \""
+                + CURRENCIES[ticket.bookmaker() % CURRENCIES.length] + "\",\"game\": \"" + ticket.game()
+                + "\",\"stake\": " + ticket.stake() + ",\"status\": \"" + status + "\",\"ticket_id\":\""
+                + ticket.ticketId() + "\",\"total_return\": " + Math.round(totalReturn * 100) / 100.0 + "}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Produces generated tickets to the tickets topic at a fixed rate
+     */
+    public static void main(String[] args) {
+        String bootstrapServers = args.length > 0 ? args[0] : "localhost:9092";
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 60;
+        TicketLoadGenerator generator = new TicketLoadGenerator(500, 40, 42);
+        Map<String, Object> config = Map.of(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                ProducerConfig.LINGER_MS_CONFIG, 5);
+        try (KafkaProducer<String, byte[]> producer = new KafkaProducer<>(config, new StringSerializer(),
+                new ByteArraySerializer())) {
+            long start = System.nanoTime();
+            long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+            long total = seconds * rate;
+            for (long i = 0; i < total; i++) {
+                LockSupport.parkNanos(start + i * intervalNanos - System.nanoTime());
+                byte[] message = generator.next();
+                producer.send(new ProducerRecord<>("tickets", generator.lastTicketId(), message));
+            }
+            producer.flush();
+            System.out.printf("Produced %,d placed and %,d settled tickets in %,d ms%n", generator.placed(),
+                    generator.settled(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private record OpenTicket(String ticketId, int bookmaker, String game, double stake) {
+    }
+
+    /**
+     * Zipf distribution over 0 .. size - 1, sampled by binary search of its cumulative probabilities
+     */
+    static final class Zipf {
+        private final double[] cumulative;
+
+        Zipf(int size, double exponent) {
+            cumulative = new double[size];
+            double sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += 1 / Math.pow(i + 1, exponent);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < size; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int next(Random random) {
+            double value = random.nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
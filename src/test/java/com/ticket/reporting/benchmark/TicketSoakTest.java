@@ -0,0 +1,257 @@
+package com.ticket.reporting.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticket.reporting.consumer.TicketDeserializer;
+import com.ticket.reporting.model.Ticket;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.smallrye.reactive.messaging.memory.InMemoryConnector;
+import io.smallrye.reactive.messaging.memory.InMemorySource;
+import jakarta.enterprise.inject.Any;
+import jakarta.inject.Inject;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Soak test of ingest and the TicketResource endpoints under load. Generated tickets are sent at a fixed rate in
+ * polls of max.poll.records, through the in-memory connector standing in for Kafka, while query threads call the
+ * REST endpoints. A probe ticket of a bookmaker outside the generated traffic is sent with every poll, and the time
+ * until the REST API counts it is the ingest-to-visible latency. Percentiles cover the whole run and are reported
+ * every report interval. Retention is enabled, so the store stays bounded on long runs.
+ * Disabled unless a duration is given, run with:
+ * mvn test -Dtest=TicketSoakTest -Dticket.soak.duration=PT10M [-Dticket.soak.rate=20000]
+ * [-Dticket.soak.query-threads=4]
+ */
+@QuarkusTest
+@TestProfile(TicketSoakTest.InMemoryTickets.class)
+@EnabledIfSystemProperty(named = TicketSoakTest.DURATION, matches = ".+")
+class TicketSoakTest {
+    static final String DURATION = "ticket.soak.duration";
+    private static final int POLL_SIZE = 500;
+    private static final int PROBE_BOOKMAKER = 1;
+    private static final Duration REPORT_INTERVAL = Duration.ofSeconds(10);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(1);
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final List<String> QUERIES = List.of("/tickets/bookmaker/%d", "/tickets/bookmaker/%d/product",
+            "/tickets/bookmaker/%d/product/top?by=loss", "/tickets/bookmaker/%d/window/1h", "/tickets/bookmakers/top");
+
+    @Inject
+    @Any
+    InMemoryConnector connector;
+
+    @TestHTTPResource("/")
+    URI baseUri;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ConcurrentLinkedQueue<Probe> probes = new ConcurrentLinkedQueue<>();
+    private final AtomicLong queryErrors = new AtomicLong();
+    private volatile boolean running = true;
+
+    @Test
+    void testIngestAndQueriesUnderLoad() throws Exception {
+        // given
+        Duration duration = Duration.parse(System.getProperty(DURATION));
+        int rate = Integer.getInteger("ticket.soak.rate", 10_000);
+        int queryThreads = Integer.getInteger("ticket.soak.query-threads", 4);
+        Timer visible = timer("soak.visible", "", duration);
+        List<Timer> queries = new ArrayList<>();
+        for (String query : QUERIES) {
+            queries.add(timer("soak.query", query, duration));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(queryThreads + 1);
+        List<Future<?>> workers = new ArrayList<>();
+        workers.add(executor.submit(() -> checkProbes(visible)));
+        for (int i = 0; i < queryThreads; i++) {
+            long seed = i;
+            workers.add(executor.submit(() -> query(queries, seed)));
+        }
+        // when
+        long sent;
+        try {
+            sent = ingest(duration, rate, visible, queries);
+            long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+            while (!probes.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            running = false;
+            executor.shutdown();
+        }
+        for (Future<?> worker : workers) {
+            worker.get(DRAIN_TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+        }
+        report("final", sent, duration.toNanos(), visible, queries);
+        // then
+        assertEquals(0, probes.size(), "probes not visible");
+        assertEquals(0, queryErrors.get(), "failed queries");
+    }
+
+    /**
+     * Sends polls of generated tickets at the rate, each with a probe ticket, reporting every report interval
+     *
+     * @return long - Number of records sent
+     */
+    private long ingest(Duration duration, int rate, Timer visible, List<Timer> queries) {
+        InMemorySource<ConsumerRecords<String, Ticket>> source = connector.source("tickets");
+        TicketLoadGenerator generator = new TicketLoadGenerator(500, 40, 42);
+        TicketDeserializer deserializer = new TicketDeserializer();
+        TopicPartition partition = new TopicPartition("tickets", 0);
+        long pollNanos = TimeUnit.SECONDS.toNanos(1) * POLL_SIZE / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long nextReport = start + REPORT_INTERVAL.toNanos();
+        long offset = 0;
+        for (long poll = 0; System.nanoTime() < end; poll++) {
+            LockSupport.parkNanos(start + poll * pollNanos - System.nanoTime());
+            List<ConsumerRecord<String, Ticket>> records = new ArrayList<>(POLL_SIZE);
+            for (int i = 0; i < POLL_SIZE - 1; i++) {
+                records.add(record(partition, offset++, deserializer.deserialize("tickets", generator.next())));
+            }
+            Ticket probe = deserializer.deserialize("tickets",
+                    TicketLoadGenerator.placed(PROBE_BOOKMAKER, generator.nextTicketId()));
+            records.add(record(partition, offset++, probe));
+            probes.add(new Probe(poll + 1, System.nanoTime()));
+            source.send(new ConsumerRecords<>(Map.of(partition, records)));
+            if (System.nanoTime() >= nextReport) {
+                report("interval", offset, System.nanoTime() - start, visible, queries);
+                nextReport += REPORT_INTERVAL.toNanos();
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Waits for each probe ticket in turn until the REST API counts it
+     */
+    private void checkProbes(Timer visible) {
+        while (running) {
+            Probe probe = probes.peek();
+            if (probe == null) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                continue;
+            }
+            try {
+                HttpResponse<String> response = get("/tickets/bookmaker/" + PROBE_BOOKMAKER);
+                if (response.statusCode() == 200
+                        && objectMapper.readTree(response.body()).path("numberOfTickets").asLong() >= probe.count()) {
+                    visible.record(System.nanoTime() - probe.sentNanos(), TimeUnit.NANOSECONDS);
+                    probes.poll();
+                    continue;
+                }
+            } catch (IOException e) {
+                queryErrors.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Calls the query endpoints in random order for bookmakers drawn like the generated tickets
+     */
+    private void query(List<Timer> queries, long seed) {
+        Random random = new Random(seed);
+        TicketLoadGenerator bookmakers = new TicketLoadGenerator(500, 40, seed);
+        while (running) {
+            int query = random.nextInt(QUERIES.size());
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = get(String.format(QUERIES.get(query), bookmakers.nextBookmaker()));
+                if (response.statusCode() != 200) {
+                    queryErrors.incrementAndGet();
+                }
+            } catch (IOException e) {
+                queryErrors.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queries.get(query).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return httpClient.send(HttpRequest.newBuilder(baseUri.resolve(path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private Timer timer(String name, String query, Duration duration) {
+        // Percentiles over the whole run rather than the default two minute window
+        return Timer.builder(name).tag("query", query).publishPercentiles(PERCENTILES)
+                .distributionStatisticExpiry(duration.plus(DRAIN_TIMEOUT).multipliedBy(2))
+                .distributionStatisticBufferLength(1)
+                .register(registry);
+    }
+
+    private void report(String label, long sent, long nanos, Timer visible, List<Timer> queries) {
+        System.out.printf("%s: %,d records in %,d s, %,.0f records/s, %d probes pending, %d query errors%n", label,
+                sent, TimeUnit.NANOSECONDS.toSeconds(nanos), sent / (nanos / 1_000_000_000.0), probes.size(),
+                queryErrors.get());
+        System.out.printf("  %-45s %s%n", "ingest to visible", percentiles(visible));
+        for (int i = 0; i < QUERIES.size(); i++) {
+            System.out.printf("  %-45s %s%n", QUERIES.get(i), percentiles(queries.get(i)));
+        }
+    }
+
+    private static String percentiles(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        StringBuilder line = new StringBuilder(String.format("n=%,d", snapshot.count()));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            line.append(String.format(" p%s=%.2f ms", percentile.percentile() * 100,
+                    percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        return line.toString();
+    }
+
+    private static ConsumerRecord<String, Ticket> record(TopicPartition partition, long offset, Ticket ticket) {
+        return new ConsumerRecord<>(partition.topic(), partition.partition(), offset, null, ticket);
+    }
+
+    private record Probe(long count, long sentNanos) {
+    }
+
+    /**
+     * Receives the tickets channel from the in-memory connector instead of Kafka and keeps the store bounded
+     */
+    public static class InMemoryTickets implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("mp.messaging.incoming.tickets.connector", "smallrye-in-memory",
+                    "ticket.retention.enabled", "true",
+                    "ticket.retention.max-settled", "1000000");
+        }
+    }
+}
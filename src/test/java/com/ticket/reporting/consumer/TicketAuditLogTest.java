@@ -0,0 +1,53 @@
+package com.ticket.reporting.consumer;
+
+import com.ticket.reporting.TicketStatus;
+import com.ticket.reporting.model.Ticket;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketAuditLogTest {
+
+    @Test
+    void testSampledTicketsAreWrittenInBatches() {
+        // given
+        List<String> written = new CopyOnWriteArrayList<>();
+        TicketAuditLog auditLog = new TicketAuditLog(1.0, 16, written::add);
+        // when
+        auditLog.record(ticket("01J9ZQ4Y7V8K3M2N1P0QRSTVWX", TicketStatus.PLACED));
+        auditLog.record(ticket("01J9ZQ4Y7V8K3M2N1P0QRSTVWX", TicketStatus.MONETISED));
+        auditLog.close();
+        // then
+        String lines = String.join("\n", written);
+        assertTrue(lines.contains("ticket_id=01J9ZQ4Y7V8K3M2N1P0QRSTVWX bookmaker=1234 status=PLACED"));
+        assertTrue(lines.contains("ticket_id=01J9ZQ4Y7V8K3M2N1P0QRSTVWX bookmaker=1234 status=MONETISED"));
+        assertFalse(lines.contains("dropped"));
+    }
+
+    @Test
+    void testNothingIsQueuedWhenDisabled() {
+        // given
+        List<String> written = new CopyOnWriteArrayList<>();
+        TicketAuditLog auditLog = new TicketAuditLog(0, 16, written::add);
+        // when
+        auditLog.record(ticket("01J9ZQ4Y7V8K3M2N1P0QRSTVWX", TicketStatus.PLACED));
+        auditLog.close();
+        // then
+        assertFalse(auditLog.isEnabled());
+        assertTrue(written.isEmpty());
+    }
+
+    private static Ticket ticket(String ticketId, TicketStatus status) {
+        Ticket ticket = new Ticket();
+        ticket.setTicketId(ticketId);
+        ticket.setBookmaker(1234);
+        ticket.setGame("GTA");
+        ticket.setCurrency("EUR");
+        ticket.setStake(1.0);
+        ticket.setStatus(status);
+        return ticket;
+    }
+}
@@ -1,16 +1,43 @@
 package com.ticket.reporting.consumer;
 
-import com.ticket.reporting.TicketProcessingException;
 import com.ticket.reporting.TicketStatus;
+import com.ticket.reporting.metrics.GameOrder;
+import com.ticket.reporting.metrics.IngestMetrics;
+import com.ticket.reporting.metrics.TimeWindow;
 import com.ticket.reporting.model.CostMetrics;
+import com.ticket.reporting.model.GameRanking;
 import com.ticket.reporting.model.Ticket;
 import com.ticket.reporting.model.TicketData;
+import com.ticket.reporting.shard.ShardKey;
+import com.ticket.reporting.shard.ShardRouting;
+import com.ticket.reporting.store.ColumnarTicketStore;
+import com.ticket.reporting.store.MapTicketStore;
+import com.ticket.reporting.store.StripedTicketStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.reactive.messaging.kafka.DeserializationFailureHandler;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import io.smallrye.reactive.messaging.memory.InMemoryConnector;
+import io.smallrye.reactive.messaging.memory.InMemorySink;
+import jakarta.enterprise.inject.Any;
 import jakarta.inject.Inject;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.eclipse.microprofile.reactive.messaging.Message;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,6 +45,11 @@ import static org.junit.jupiter.api.Assertions.*;
 class TicketConsumerTest {
     @Inject
     TicketConsumer ticketConsumer;
+    @Inject
+    TicketDeadLetters ticketDeadLetters;
+    @Inject
+    @Any
+    InMemoryConnector connector;
 
     private static final String message1 = "{\"bookmaker\": 1234," + "\"currency\": \"EUR\",\"game\": \"Call of Duty\"" +
             ",\"stake\": 123.45,\"status\": \"PLACED\",\"ticket_id\":\"34567\",\"total_return\": 234.56}";
@@ -29,6 +61,14 @@ class TicketConsumerTest {
             ",\"stake\": 234.56,\"status\": \"CANCELLED\",\"ticket_id\":\"89012\"}";
     private static final String message5 = "{\"bookmaker\": 1234," + "\"currency\": \"EUR\",\"game\": \"Call of Duty\"" +
             ",\"stake\": 123.45,\"status\": \"MONETISED\",\"ticket_id\":\"34567\",\"total_return\": 234.56}";
+    private static final String message6 = "{\"bookmaker\": 3456," + "\"currency\": \"EUR\",\"game\": \"GTA\"" +
+            ",\"stake\": 10.00,\"status\": \"PLACED\",\"ticket_id\":\"67890\",\"total_return\": 15.00}";
+    private static final String message7 = "{\"bookmaker\": 3456," + "\"currency\": \"EUR\",\"game\": \"GTA\"" +
+            ",\"stake\": 20.00,\"status\": \"MONETISED\",\"ticket_id\":\"67890\",\"total_return\": 25.50}";
+    private static final String message8 = "{\"bookmaker\": 3456," + "\"currency\": \"EUR\",\"game\": \"NFS\"" +
+            ",\"stake\": 5.00,\"status\": \"PLACED\",\"ticket_id\":\"67891\",\"total_return\": 2.50}";
+    private static final String message9 = "{\"bookmaker\": 3456," + "\"currency\": \"EUR\",\"game\": \"NFS\"" +
+            ",\"stake\": 5.00,\"status\": \"CANCELLED\",\"ticket_id\":\"67891\"}";
     private static final String invalidMessage1 = "{\"bookmaker\": 12345," + "\"currency\": \"EUR\"," +
             "\"game\": \"Call of Duty\",\"stake\": 123.45,\"ticket_id\":\"345678\",\"total_return\": 234.56}";
     private static final String invalidMessage2 = "{\"bookmaker\": 09876," + "\"currency\": EUR," +
@@ -47,11 +87,46 @@ class TicketConsumerTest {
     }
 
     @Test
-    void testIncorrectIncomingMessage_ThrowsException() {
+    void testIncorrectIncomingMessage_IsDeadLettered() {
+        // given
+        InMemorySink<String> deadLetters = connector.sink("tickets-dlq");
+        deadLetters.clear();
+        TopicPartition partition = new TopicPartition("tickets", 3);
         // when
-        TicketProcessingException thrown = assertThrows(TicketProcessingException.class,
-                () -> ticketConsumer.consume(invalidMessage2));
-        assertTrue(thrown.getMessage().contains("Invalid numeric value"));
+        ticketConsumer.consumeRecords(new ConsumerRecords<>(Map.of(partition, List.of(
+                record(partition, 17, invalidMessage2), record(partition, 18, invalidMessage1)))));
+        // then
+        assertEquals(2, deadLetters.received().size());
+        Message<String> malformed = deadLetters.received().get(0);
+        assertEquals(invalidMessage2, malformed.getPayload());
+        assertEquals("malformed", header(malformed, TicketDeadLetters.REASON));
+        assertTrue(header(malformed, TicketDeadLetters.CAUSE).contains("Invalid numeric value"));
+        assertEquals("tickets", header(malformed, TicketDeadLetters.TOPIC));
+        assertEquals("3", header(malformed, TicketDeadLetters.PARTITION));
+        assertEquals("17", header(malformed, TicketDeadLetters.OFFSET));
+        assertEquals("schema", header(deadLetters.received().get(1), TicketDeadLetters.REASON));
+        assertEquals(19, ticketConsumer.getNextOffset(partition));
+    }
+
+    @Test
+    void testTombstoneIsSkippedWithoutDeadLetter() {
+        // given
+        InMemorySink<String> deadLetters = connector.sink("tickets-dlq");
+        deadLetters.clear();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TicketConsumer ticketConsumer = new TicketConsumer(new MapTicketStore(), TicketSnapshots.disabled(), 1,
+                new IngestMetrics(registry), ticketDeadLetters, TicketAuditLog.disabled());
+        TopicPartition partition = new TopicPartition("tickets", 5);
+        // when
+        ticketConsumer.consumeRecords(new ConsumerRecords<>(Map.of(partition, List.of(
+                record(partition, 11, message1),
+                new ConsumerRecord<>(partition.topic(), partition.partition(), 12, "34567", null)))));
+        // then
+        assertEquals(List.of(), deadLetters.received());
+        assertEquals(1, registry.get("tickets.tombstones").counter().count());
+        assertEquals(0, registry.get("tickets.rejected").tag("reason", "malformed").counter().count());
+        assertEquals(1, ticketConsumer.getTickets().size());
+        assertEquals(13, ticketConsumer.getNextOffset(partition));
     }
 
     @Test
@@ -139,4 +214,286 @@ class TicketConsumerTest {
         assertEquals("Call of Duty", ticket.getGame());
         assertEquals(TicketStatus.MONETISED, ticket.getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCostMetricsFollowResentTicket() {
+        // given
+        TicketConsumer ticketConsumer = new TicketConsumer(new MapTicketStore());
+        // when
+        ticketConsumer.consume(message6);
+        ticketConsumer.consume(message7);
+        ticketConsumer.consume(message8);
+        CostMetrics costMetrics = ticketConsumer.getCostMetricsByBookmaker(3456);
+        Map<String, CostMetrics> costMetricsByGame = ticketConsumer.getTicketsByBookmakerIdGroupedByGame(3456);
+        // then
+        assertEquals(new CostMetrics(2, 25.0, 3.0, 12.0), costMetrics);
+        assertEquals(new CostMetrics(1, 20.0, 5.5, 27.5), costMetricsByGame.get("GTA"));
+        assertEquals(new CostMetrics(1, 5.0, -2.5, -50.0), costMetricsByGame.get("NFS"));
+        assertEquals(ticketConsumer.calculateCostMetrics(ticketConsumer.getTicketsByBookmaker(3456)), costMetrics);
+    }
+
+    @Test
+    void testConsumeBatchStoresValidTickets() {
+        // given
+        TicketConsumer ticketConsumer = new TicketConsumer(new MapTicketStore());
+        // when
+        ticketConsumer.consumeBatch(List.of(message6, invalidMessage1, message7, message8));
+        // then
+        assertEquals(2, ticketConsumer.getTickets().size());
+        assertEquals(new CostMetrics(2, 25.0, 3.0, 12.0), ticketConsumer.getCostMetricsByBookmaker(3456));
+    }
+
+    @Test
+    void testPartitionsAreConsumedInParallelInOffsetOrder() {
+        // given
+        TopicPartition partition0 = new TopicPartition("tickets", 0);
+        TopicPartition partition1 = new TopicPartition("tickets", 1);
+        TicketConsumer ticketConsumer = new TicketConsumer(new StripedTicketStore(4, MapTicketStore::new),
+                TicketSnapshots.disabled(), 2);
+        // when
+        ticketConsumer.consumeRecords(new ConsumerRecords<>(Map.of(
+                partition0, List.of(record(partition0, 0, message6), record(partition0, 1, message7)),
+                partition1, List.of(record(partition1, 0, message8)))));
+        // then
+        assertEquals(2, ticketConsumer.getTickets().size());
+        assertEquals(new CostMetrics(2, 25.0, 3.0, 12.0), ticketConsumer.getCostMetricsByBookmaker(3456));
+        assertEquals(2, ticketConsumer.getNextOffset(partition0));
+        assertEquals(1, ticketConsumer.getNextOffset(partition1));
+    }
+
+    @Test
+    void testSettledTicketsAreNotChangedByLaterUpdates() {
+        // given
+        TicketConsumer ticketConsumer = new TicketConsumer(new MapTicketStore());
+        // when
+        ticketConsumer.consumeBatch(List.of(message6, message7, message8, message9, message8, message6));
+        Map<String, CostMetrics> costMetricsByGame = ticketConsumer.getTicketsByBookmakerIdGroupedByGame(3456);
+        // then
+        assertEquals(TicketStatus.CANCELLED, ticketConsumer.getTicketsByBookmaker(3456).get(1).ticket().getStatus());
+        assertEquals(new CostMetrics(1, 20.0, 5.5, 27.5), ticketConsumer.getCostMetricsByBookmaker(3456));
+        assertEquals(Map.of("GTA", new CostMetrics(1, 20.0, 5.5, 27.5)), costMetricsByGame);
+        assertEquals(ticketConsumer.calculateCostMetrics(ticketConsumer.getTicketsByBookmaker(3456)),
+                ticketConsumer.getCostMetricsByBookmaker(3456));
+    }
+
+    @Test
+    void testIngestIsCountedByOutcome() {
+        // given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TicketConsumer ticketConsumer = new TicketConsumer(new MapTicketStore(), TicketSnapshots.disabled(), 1,
+                new IngestMetrics(registry), TicketDeadLetters.disabled(), TicketAuditLog.disabled());
+        // when
+        ticketConsumer.consumeBatch(List.of(message6, invalidMessage1, message7, message9, message8));
+        ticketConsumer.consume(invalidMessage2);
+        // then
+        assertEquals(3, registry.get("tickets.stored").counter().count());
+        assertEquals(1, registry.get("tickets.rejected").tag("reason", "schema").counter().count());
+        assertEquals(1, registry.get("tickets.rejected").tag("reason", "malformed").counter().count());
+        assertEquals(1, registry.get("tickets.rejected").tag("reason", "transition").counter().count());
+        assertEquals(6, registry.get("tickets.parse").timer().count());
+        assertEquals(2, registry.get("tickets.store.size").gauge().value());
+        assertEquals(2, registry.get("tickets.index.size").gauge().value());
+    }
+
+    @Test
+    void testSettledTicketsAreEvictedIntoTotals() {
+        // given
+        TicketRetention retention = new TicketRetention(true, Duration.ZERO, 1, 0.8, Duration.ZERO,
+                Duration.ofMinutes(1), () -> 0);
+        TicketConsumer ticketConsumer = new TicketConsumer(new ColumnarTicketStore(), TicketSnapshots.disabled(), 1,
+                new IngestMetrics(new SimpleMeterRegistry()), TicketDeadLetters.disabled(), TicketAuditLog.disabled(),
+                retention);
+        ticketConsumer.consumeBatch(List.of(
+                ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW0", "GTA", 7.00, "CANCELLED"),
+                ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW1", "GTA", 10.00, "PLACED"),
+                ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW1", "GTA", 10.00, "MONETISED"),
+                ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW2", "NFS", 20.00, "MONETISED"),
+                ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW3", "NFS", 5.00, "PLACED")));
+        CostMetrics costMetrics = ticketConsumer.getCostMetricsByBookmaker(4567);
+        // when
+        long evicted = ticketConsumer.evictSettled();
+        ticketConsumer.consume(ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW1", "GTA", 10.00, "PLACED"));
+        // then
+        assertEquals(2, evicted);
+        assertEquals(List.of("01J9ZQ4Y7V8K3M2N1P0QRSTVW2", "01J9ZQ4Y7V8K3M2N1P0QRSTVW3"),
+                ticketConsumer.getTicketsByBookmaker(4567).stream().map(TicketData::ticketId).toList());
+        assertEquals(costMetrics, ticketConsumer.getCostMetricsByBookmaker(4567));
+        assertEquals(costMetrics, ticketConsumer.calculateCostMetrics(4567));
+        assertEquals(1, retention.settledCount());
+    }
+
+    @Test
+    void testEarlierTicketDeliveredAfterAnEvictionIsStored() {
+        // given
+        TicketRetention retention = new TicketRetention(true, Duration.ZERO, 0, 0.8, Duration.ofDays(1),
+                Duration.ofMinutes(1), () -> 0);
+        TicketConsumer ticketConsumer = new TicketConsumer(new ColumnarTicketStore(), TicketSnapshots.disabled(), 1,
+                new IngestMetrics(new SimpleMeterRegistry()), TicketDeadLetters.disabled(), TicketAuditLog.disabled(),
+                retention);
+        TopicPartition partition = new TopicPartition("tickets", 0);
+        ticketConsumer.consumeRecords(new ConsumerRecords<>(Map.of(partition, List.of(
+                record(partition, 0, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW5", "GTA", 10.00, "MONETISED"))))));
+        assertEquals(1, ticketConsumer.evictSettled());
+        // when
+        ticketConsumer.consumeRecords(new ConsumerRecords<>(Map.of(partition, List.of(
+                record(partition, 1, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW4", "NFS", 20.00, "PLACED")),
+                record(partition, 2, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW5", "GTA", 10.00, "MONETISED")),
+                // Placed 17 minutes later, so the first eviction falls behind by more than the watermark lag
+                record(partition, 3, ulidMessage("01J9ZR4Y7V8K3M2N1P0QRSTVW0", "GTA", 5.00, "MONETISED"))))));
+        long evicted = ticketConsumer.evictSettled();
+        // then
+        assertEquals(1, evicted);
+        assertEquals(List.of("01J9ZQ4Y7V8K3M2N1P0QRSTVW4"),
+                ticketConsumer.getTicketsByBookmaker(4567).stream().map(TicketData::ticketId).toList());
+        assertEquals(3, ticketConsumer.getCostMetricsByBookmaker(4567).numberOfTickets());
+        assertEquals(Map.of(0, "01J9ZQ4Y7V8K3M2N1P0QRSTVW5"), retention.watermarks());
+        assertEquals(Map.of(0, List.of("01J9ZR4Y7V8K3M2N1P0QRSTVW0")), retention.evicted());
+        assertTrue(retention.isExpired("01J9ZQ4Y7V8K3M2N1P0QRSTVW3", partition.partition()));
+        assertFalse(retention.isExpired("01J9ZR4Y7V8K3M2N1P0QRSTVVZ", partition.partition()));
+    }
+
+    @Test
+    void testEvictionOfAPartitionAheadKeepsTicketsOfALaggingPartition() {
+        // given
+        TicketRetention retention = new TicketRetention(true, Duration.ZERO, 1, 0.8, Duration.ofDays(1),
+                Duration.ofMinutes(1), () -> 0);
+        TicketConsumer ticketConsumer = new TicketConsumer(new ColumnarTicketStore(), TicketSnapshots.disabled(), 1,
+                new IngestMetrics(new SimpleMeterRegistry()), TicketDeadLetters.disabled(), TicketAuditLog.disabled(),
+                retention);
+        TopicPartition ahead = new TopicPartition("tickets", 0);
+        TopicPartition lagging = new TopicPartition("tickets", 1);
+        ticketConsumer.consumeRecords(new ConsumerRecords<>(Map.of(ahead, List.of(
+                record(ahead, 0, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW2", "GTA", 10.00, "MONETISED")),
+                record(ahead, 1, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW4", "GTA", 20.00, "MONETISED"))))));
+        ticketConsumer.consumeRecords(new ConsumerRecords<>(Map.of(lagging, List.of(
+                record(lagging, 0, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW0", "NFS", 5.00, "MONETISED"))))));
+        // when
+        long evicted = ticketConsumer.evictSettled();
+        ticketConsumer.consumeRecords(new ConsumerRecords<>(Map.of(lagging, List.of(
+                record(lagging, 1, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW1", "NFS", 7.00, "PLACED"))))));
+        ticketConsumer.consumeRecords(new ConsumerRecords<>(Map.of(ahead, List.of(
+                record(ahead, 2, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW2", "GTA", 10.00, "MONETISED"))))));
+        // then
+        assertEquals(2, evicted);
+        assertEquals(List.of("01J9ZQ4Y7V8K3M2N1P0QRSTVW1", "01J9ZQ4Y7V8K3M2N1P0QRSTVW4"),
+                ticketConsumer.getTicketsByBookmaker(4567).stream().map(TicketData::ticketId).toList());
+        assertFalse(retention.isExpired("01J9ZQ4Y7V8K3M2N1P0QRSTVW1", lagging.partition()));
+        assertTrue(retention.isExpired("01J9ZQ4Y7V8K3M2N1P0QRSTVW2", ahead.partition()));
+        assertFalse(retention.isExpired("01J9ZQ4Y7V8K3M2N1P0QRSTVW1", ahead.partition()));
+        assertEquals(4, ticketConsumer.getCostMetricsByBookmaker(4567).numberOfTickets());
+    }
+
+    @Test
+    void testRevokedPartitionIsNotCountedTwiceWhenReassigned() {
+        // given
+        TopicPartition kept = new TopicPartition("tickets", 0);
+        TopicPartition moved = new TopicPartition("tickets", 1);
+        List<ConsumerRecord<String, Ticket>> keptRecords = List.of(
+                record(kept, 0, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW0", "GTA", 10.00, "MONETISED")));
+        List<ConsumerRecord<String, Ticket>> movedRecords = List.of(
+                record(moved, 0, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW1", "NFS", 20.00, "PLACED")),
+                record(moved, 1, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW1", "NFS", 20.00, "MONETISED")),
+                record(moved, 2, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW2", "NFS", 5.00, "PLACED")));
+        TicketConsumer node0 = retainingConsumer();
+        TicketConsumer node1 = retainingConsumer();
+        MockConsumer<String, Ticket> kafka0 = kafka(kept, moved);
+        MockConsumer<String, Ticket> kafka1 = kafka(kept, moved);
+        TicketRebalanceListener listener0 = new TicketRebalanceListener(node0);
+        TicketRebalanceListener listener1 = new TicketRebalanceListener(node1);
+        listener0.onPartitionsAssigned(kafka0, List.of(kept, moved));
+        node0.consumeRecords(new ConsumerRecords<>(Map.of(kept, keptRecords, moved, movedRecords)));
+        assertEquals(2, node0.evictSettled());
+        // when
+        listener0.onPartitionsRevoked(kafka0, List.of(kept, moved));
+        listener0.onPartitionsAssigned(kafka0, List.of(kept));
+        listener1.onPartitionsAssigned(kafka1, List.of(moved));
+        node1.consumeRecords(new ConsumerRecords<>(Map.of(moved, movedRecords)));
+        // then
+        assertEquals(1, node0.getPartialSums(4567).count());
+        assertEquals(2, node1.getPartialSums(4567).count());
+        assertEquals(node0.getCostMetricsByBookmaker(4567), node0.calculateCostMetrics(4567));
+        assertEquals(1, node0.getCostMetricsByBookmaker(4567, TimeWindow.ONE_DAY).numberOfTickets());
+        assertEquals(List.of("GTA"), node0.getTopGames(4567, GameOrder.TURNOVER, 10).stream()
+                .map(GameRanking::game).toList());
+        assertEquals(1, node0.getNextOffset(kept));
+        assertNull(node0.getNextOffset(moved));
+        assertEquals(0, kafka1.position(moved));
+        // when
+        listener1.onPartitionsRevoked(kafka1, List.of(moved));
+        listener1.onPartitionsAssigned(kafka1, List.of());
+        listener0.onPartitionsAssigned(kafka0, List.of(moved));
+        node0.consumeRecords(new ConsumerRecords<>(Map.of(moved, movedRecords)));
+        // then
+        assertEquals(0, node1.getPartialSums(4567).count());
+        assertEquals(3, node0.getPartialSums(4567).count());
+        assertEquals(node0.getCostMetricsByBookmaker(4567), node0.calculateCostMetrics(4567));
+        assertEquals(0, kafka0.position(moved));
+        assertEquals(1, kafka0.position(kept));
+    }
+
+    @Test
+    void testTicketMovedToBookmakerOfAnotherShardIsDropped() {
+        // given
+        ShardRouting routing = new ShardRouting(Optional.of(List.of("http://node0", "http://node1")), 0,
+                ShardKey.BOOKMAKER);
+        TicketConsumer ticketConsumer = new TicketConsumer(new MapTicketStore(), TicketSnapshots.disabled(), 1,
+                new IngestMetrics(new SimpleMeterRegistry()), TicketDeadLetters.disabled(), TicketAuditLog.disabled(),
+                TicketRetention.disabled(), routing);
+        ticketConsumer.consume(message1);
+        // when
+        ticketConsumer.consume(message1.replace("\"bookmaker\": 1234", "\"bookmaker\": 2345"));
+        // then
+        assertEquals(List.of(), ticketConsumer.getTickets());
+        assertEquals(0, ticketConsumer.getCostMetricsByBookmaker(1234).numberOfTickets());
+        assertEquals(0, ticketConsumer.getCostMetricsByBookmaker(2345).numberOfTickets());
+    }
+
+    private static TicketConsumer retainingConsumer() {
+        TicketRetention retention = new TicketRetention(true, Duration.ZERO, 0, 0.8, Duration.ofDays(1),
+                Duration.ofMinutes(1), () -> 0);
+        return new TicketConsumer(new ColumnarTicketStore(), TicketSnapshots.disabled(), 1,
+                new IngestMetrics(new SimpleMeterRegistry()), TicketDeadLetters.disabled(), TicketAuditLog.disabled(),
+                retention);
+    }
+
+    private static MockConsumer<String, Ticket> kafka(TopicPartition... partitions) {
+        MockConsumer<String, Ticket> kafka = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        kafka.assign(List.of(partitions));
+        Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            beginningOffsets.put(partition, 0L);
+        }
+        kafka.updateBeginningOffsets(beginningOffsets);
+        return kafka;
+    }
+
+    private static String ulidMessage(String ticketId, String game, double stake, String status) {
+        return "{\"bookmaker\": 4567,\"currency\": \"EUR\",\"game\": \"" + game + "\",\"stake\": " + stake
+                + ",\"status\": \"" + status + "\",\"ticket_id\":\"" + ticketId + "\",\"total_return\": 12.50}";
+    }
+
+    private static String header(Message<String> message, String name) {
+        OutgoingKafkaRecordMetadata<?> metadata = message.getMetadata(OutgoingKafkaRecordMetadata.class).orElseThrow();
+        return new String(metadata.getHeaders().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Deserializes the message like the Kafka connector, which passes on a record that could not be deserialized
+     * without a value and with the failure details in its headers
+     */
+    private static ConsumerRecord<String, Ticket> record(TopicPartition partition, long offset, String message) {
+        byte[] data = message.getBytes(StandardCharsets.UTF_8);
+        RecordHeaders headers = new RecordHeaders();
+        Ticket ticket;
+        try {
+            ticket = new TicketDeserializer().deserialize(partition.topic(), headers, data);
+        } catch (SerializationException e) {
+            DeserializationFailureHandler.addFailureDetailsToHeaders(TicketDeserializer.class.getName(),
+                    partition.topic(), false, headers, data, e);
+            ticket = null;
+        }
+        return new ConsumerRecord<>(partition.topic(), partition.partition(), offset, ConsumerRecord.NO_TIMESTAMP,
+                TimestampType.NO_TIMESTAMP_TYPE, ConsumerRecord.NULL_SIZE, data.length, null, ticket, headers,
+                Optional.empty());
+    }
+}
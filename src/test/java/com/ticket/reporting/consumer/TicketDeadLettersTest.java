@@ -0,0 +1,73 @@
+package com.ticket.reporting.consumer;
+
+import com.ticket.reporting.metrics.IngestMetrics;
+import com.ticket.reporting.metrics.IngestMetrics.Rejection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.microprofile.reactive.messaging.Emitter;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketDeadLettersTest {
+
+    @Test
+    void testDeadLettersThatAreNotWrittenAreCountedAsDropped() {
+        // given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RecordingEmitter emitter = new RecordingEmitter();
+        TicketDeadLetters deadLetters = new TicketDeadLetters(emitter, new IngestMetrics(registry));
+        // when
+        deadLetters.send("{\"bookmaker\": 09876}", Rejection.MALFORMED, "Invalid numeric value", null);
+        deadLetters.send("{\"bookmaker\": 1234}", Rejection.SCHEMA, "Missing required property", null);
+        emitter.sent.get(0).nack(new IllegalStateException("Broker not available")).toCompletableFuture().join();
+        emitter.sent.get(1).ack().toCompletableFuture().join();
+        emitter.failing = true;
+        deadLetters.send("{", Rejection.MALFORMED, "Unexpected end-of-input", null);
+        // then
+        assertEquals(2, emitter.sent.size());
+        assertEquals(2, registry.get("tickets.dead.letters.dropped").counter().count());
+    }
+
+    private static class RecordingEmitter implements Emitter<String> {
+        private final List<Message<? extends String>> sent = new ArrayList<>();
+        private boolean failing;
+
+        @Override
+        public CompletionStage<Void> send(String msg) {
+            send(Message.of(msg));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public <M extends Message<? extends String>> void send(M msg) {
+            if (failing) {
+                throw new IllegalStateException("Emitter failed");
+            }
+            sent.add(msg);
+        }
+
+        @Override
+        public void complete() {
+        }
+
+        @Override
+        public void error(Exception e) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean hasRequests() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.ticket.reporting.consumer;
+
+import com.ticket.reporting.metrics.IngestMetrics;
+import com.ticket.reporting.model.Ticket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketDeserializerTest {
+    private final TicketDeserializer ticketDeserializer = new TicketDeserializer();
+
+    @Test
+    void testValidRecordIsDeserialized() {
+        // when
+        Ticket ticket = ticketDeserializer.deserialize("tickets", new RecordHeaders(), bytes("{\"bookmaker\": 1234," +
+                "\"currency\": \"EUR\",\"game\": \"NFS\",\"stake\": 234.56,\"status\": \"PLACED\"," +
+                "\"ticket_id\":\"45678\"}"));
+        // then
+        assertEquals(1234, ticket.getBookmaker());
+        assertEquals("45678", ticket.getTicketId());
+        assertNull(ticketDeserializer.deserialize("tickets", new RecordHeaders(), (byte[]) null));
+    }
+
+    @Test
+    void testInvalidRecordIsRejectedWithReasonHeader() {
+        // given
+        RecordHeaders schema = new RecordHeaders();
+        RecordHeaders malformed = new RecordHeaders();
+        // when
+        assertThrows(SerializationException.class, () -> ticketDeserializer.deserialize("tickets", schema,
+                bytes("{\"bookmaker\": \"1234\"}")));
+        assertThrows(SerializationException.class, () -> ticketDeserializer.deserialize("tickets", malformed,
+                bytes("{\"bookmaker\": 09876}")));
+        // then
+        assertEquals("schema", reason(schema));
+        assertEquals("malformed", reason(malformed));
+    }
+
+    @Test
+    void testParseTimeIsRecorded() {
+        // given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TicketDeserializer timedDeserializer = new TicketDeserializer(new IngestMetrics(registry));
+        // when
+        timedDeserializer.deserialize("tickets", new RecordHeaders(), bytes("{\"bookmaker\": 1234," +
+                "\"currency\": \"EUR\",\"game\": \"NFS\",\"stake\": 234.56,\"status\": \"PLACED\"," +
+                "\"ticket_id\":\"45678\"}"));
+        assertThrows(SerializationException.class, () -> timedDeserializer.deserialize("tickets",
+                new RecordHeaders(), bytes("{\"bookmaker\": 09876}")));
+        // then
+        assertEquals(2, registry.get("tickets.parse").timer().count());
+    }
+
+    private static String reason(RecordHeaders headers) {
+        return new String(headers.lastHeader(TicketDeadLetters.REASON).value(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String message) {
+        return message.getBytes(StandardCharsets.UTF_8);
+    }
+}
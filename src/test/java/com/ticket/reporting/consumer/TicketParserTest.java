@@ -0,0 +1,150 @@
+package com.ticket.reporting.consumer;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.ticket.reporting.TicketStatus;
+import com.ticket.reporting.TicketValidationException;
+import com.ticket.reporting.model.Ticket;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketParserTest {
+    private final TicketParser ticketParser = new TicketParser("ticket.v1.json");
+
+    @Test
+    void testValidMessageIsMapped() throws IOException {
+        // when
+        Ticket ticket = ticketParser.parse("{\"bookmaker\": 1234,\"currency\": \"EUR\",\"game\": \"NFS\"," +
+                "\"stake\": 234.56,\"status\": \"MONETISED\",\"ticket_id\":\"45678\",\"total_return\": 345.67," +
+                "\"channel\": {\"name\": \"web\"}}");
+        // then
+        assertEquals(1234, ticket.getBookmaker());
+        assertEquals("EUR", ticket.getCurrency());
+        assertEquals("NFS", ticket.getGame());
+        assertEquals(234.56, ticket.getStake());
+        assertEquals(TicketStatus.MONETISED, ticket.getStatus());
+        assertEquals("45678", ticket.getTicketId());
+        assertEquals(345.67, ticket.getTotalReturn());
+    }
+
+    @Test
+    void testMissingRequiredPropertyIsRejected() {
+        // when
+        TicketValidationException thrown = assertThrows(TicketValidationException.class,
+                () -> ticketParser.parse("{\"bookmaker\": 1234,\"currency\": \"EUR\",\"game\": \"NFS\"," +
+                        "\"stake\": 234.56,\"ticket_id\":\"45678\"}"));
+        // then
+        assertTrue(thrown.getMessage().contains("status"));
+    }
+
+    @Test
+    void testWrongTypeIsRejected() {
+        assertThrows(TicketValidationException.class,
+                () -> ticketParser.parse("{\"bookmaker\": \"1234\",\"currency\": \"EUR\",\"game\": \"NFS\"," +
+                        "\"stake\": 234.56,\"status\": \"PLACED\",\"ticket_id\":\"45678\"}"));
+        assertThrows(TicketValidationException.class,
+                () -> ticketParser.parse("{\"bookmaker\": 1234.5,\"currency\": \"EUR\",\"game\": \"NFS\"," +
+                        "\"stake\": 234.56,\"status\": \"PLACED\",\"ticket_id\":\"45678\"}"));
+    }
+
+    @Test
+    void testIntegralNumberIsAcceptedForIntegerProperty() throws IOException {
+        for (String bookmaker : List.of("1234.0", "1234.000", "1.234e3", "123400E-2")) {
+            // when
+            Ticket ticket = ticketParser.parse("{\"bookmaker\": " + bookmaker + ",\"currency\": \"EUR\"," +
+                    "\"game\": \"NFS\",\"stake\": 234.56,\"status\": \"PLACED\",\"ticket_id\":\"45678\"}");
+            // then
+            assertEquals(1234, ticket.getBookmaker(), bookmaker);
+        }
+        assertThrows(TicketValidationException.class,
+                () -> ticketParser.parse("{\"bookmaker\": 1.2345e3,\"currency\": \"EUR\",\"game\": \"NFS\"," +
+                        "\"stake\": 234.56,\"status\": \"PLACED\",\"ticket_id\":\"45678\"}"));
+        assertThrows(JsonParseException.class,
+                () -> ticketParser.parse("{\"bookmaker\": 2147483648.0,\"currency\": \"EUR\"}"));
+        assertThrows(JsonParseException.class,
+                () -> ticketParser.parse("{\"bookmaker\": 1e999999999,\"currency\": \"EUR\"}"));
+    }
+
+    @Test
+    void testAmountWithHugeExponentIsRejected() {
+        for (String stake : List.of("1e50000000", "1e-50000000")) {
+            assertTimeoutPreemptively(Duration.ofSeconds(1), () -> assertThrows(ArithmeticException.class,
+                    () -> ticketParser.parse("{\"bookmaker\": 1234,\"currency\": \"EUR\",\"game\": \"NFS\"," +
+                            "\"stake\": " + stake + ",\"status\": \"PLACED\",\"ticket_id\":\"45678\"}")), stake);
+        }
+    }
+
+    @Test
+    void testTrailingContentIsRejected() throws IOException {
+        // given
+        String message = "{\"bookmaker\": 1234,\"currency\": \"EUR\",\"game\": \"NFS\",\"stake\": 234.56," +
+                "\"status\": \"PLACED\",\"ticket_id\":\"45678\"}";
+        // when
+        Ticket ticket = ticketParser.parse(message + " \r\n");
+        // then
+        assertEquals("45678", ticket.getTicketId());
+        for (String trailing : List.of("x", " {}", "}", ",", " \"45678\"", "\n1")) {
+            assertThrows(JsonParseException.class, () -> ticketParser.parse(message + trailing), trailing);
+        }
+    }
+
+    @Test
+    void testUnknownStatusIsRejected() {
+        assertThrows(TicketValidationException.class,
+                () -> ticketParser.parse("{\"bookmaker\": 1234,\"currency\": \"EUR\",\"game\": \"NFS\"," +
+                        "\"stake\": 234.56,\"status\": \"SETTLED\",\"ticket_id\":\"45678\"}"));
+    }
+
+    @Test
+    void testMalformedMessageThrowsParseException() {
+        assertThrows(JsonParseException.class,
+                () -> ticketParser.parse("{\"bookmaker\": 09876,\"currency\": EUR}"));
+    }
+
+    @Test
+    void testBytesAreMappedWithRepeatedValuesInterned() throws IOException {
+        // given
+        String message = "{\"bookmaker\": 1234,\"currency\": \"EUR\",\"game\": \"NFS\",\"stake\": 234.56," +
+                "\"status\": \"PLACED\",\"ticket_id\":\"45678\"}";
+        // when
+        Ticket first = ticketParser.parse(message.getBytes(StandardCharsets.UTF_8));
+        Ticket second = ticketParser.parse(message.getBytes(StandardCharsets.UTF_8));
+        // then
+        assertEquals(ticketParser.parse(message).getStakeUnits(), first.getStakeUnits());
+        assertEquals("NFS", first.getGame());
+        assertSame(first.getGame(), second.getGame());
+        assertSame(first.getCurrency(), second.getCurrency());
+        assertNotSame(first.getTicketId(), second.getTicketId());
+    }
+
+    @Test
+    void testEscapesMultiByteCharactersAndNestedValuesAreRead() throws IOException {
+        // when
+        Ticket ticket = ticketParser.parse(("{\"channel\": {\"tags\": [1, -2.5e3, true, null, {}, []]}," +
+                "\"bookmaker\": -12,\"currency\":\"z\u0142\"," +
+                "\"game\": \"Caf\\u00e9 \\\"\u00e9\u20ac\ud83c\udfb2\\\"\"," +
+                "\"stake\": 1E2,\"status\": \"PLACED\",\"ticket_id\":\"a\\/b\\n\", \"total_return\": 0}")
+                .getBytes(StandardCharsets.UTF_8));
+        // then
+        assertEquals(-12, ticket.getBookmaker());
+        assertEquals("z\u0142", ticket.getCurrency());
+        assertEquals("Caf\u00e9 \"\u00e9\u20ac\ud83c\udfb2\"", ticket.getGame());
+        assertEquals(100.0, ticket.getStake());
+        assertEquals("a/b\n", ticket.getTicketId());
+        assertEquals(0.0, ticket.getTotalReturn());
+    }
+
+    @Test
+    void testMalformedBytesThrowParseException() {
+        for (String message : List.of("{\"bookmaker\": 1234", "{\"bookmaker\": 1234,}", "{bookmaker: 1234}",
+                "{\"game\": \"N\\xS\"}", "{\"bookmaker\": 12a}", "{\"bookmaker\": 2147483648,\"currency\": \"EUR\"}",
+                "{\"channel\": [1 2]}", "{\"game\": \"NFS}")) {
+            assertThrows(JsonParseException.class, () -> ticketParser.parse(message), message);
+        }
+    }
+}
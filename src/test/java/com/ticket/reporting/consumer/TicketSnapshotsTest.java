@@ -0,0 +1,140 @@
+package com.ticket.reporting.consumer;
+
+import com.ticket.reporting.metrics.IngestMetrics;
+import com.ticket.reporting.metrics.TimeWindow;
+import com.ticket.reporting.model.CostMetrics;
+import com.ticket.reporting.model.Ticket;
+import com.ticket.reporting.store.ColumnarTicketStore;
+import com.ticket.reporting.store.MapTicketStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketSnapshotsTest {
+    private static final TopicPartition PARTITION_0 = new TopicPartition("tickets", 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition("tickets", 1);
+    private static final String message1 = "{\"bookmaker\": 1234," + "\"currency\": \"EUR\",\"game\": \"Call of Duty\"" +
+            ",\"stake\": 123.45,\"status\": \"PLACED\",\"ticket_id\":\"01J9ZQ4Y7V8K3M2N1P0QRSTVWX\"," +
+            "\"total_return\": 234.56}";
+    private static final String message2 = "{\"bookmaker\": 1234," + "\"currency\": \"PLN\",\"game\": \"NFS\"" +
+            ",\"stake\": 234.56,\"status\": \"MONETISED\",\"ticket_id\":\"45678\",\"total_return\": 345.67}";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSnapshotIsWrittenAfterBatchAndRestoredOnStartup() {
+        // given
+        TicketSnapshots ticketSnapshots = new TicketSnapshots(true, directory.toString(), Duration.ZERO);
+        TicketConsumer ticketConsumer = new TicketConsumer(new MapTicketStore(), ticketSnapshots);
+        // when
+        ticketConsumer.consumeRecords(new ConsumerRecords<>(Map.of(
+                PARTITION_0, List.of(record(PARTITION_0, 41, message1)),
+                PARTITION_1, List.of(record(PARTITION_1, 7, message2)))));
+        ticketConsumer.awaitSnapshot();
+        TicketConsumer restarted = new TicketConsumer(new ColumnarTicketStore(), ticketSnapshots);
+        restarted.restoreSnapshot();
+        // then
+        assertTrue(Files.exists(directory.resolve("tickets.snapshot")));
+        assertEquals(42, restarted.getNextOffset(PARTITION_0));
+        assertEquals(8, restarted.getNextOffset(PARTITION_1));
+        assertEquals(2, restarted.getTickets().size());
+        assertEquals(List.of("01J9ZQ4Y7V8K3M2N1P0QRSTVWX", "45678"),
+                restarted.getTicketsByBookmaker(1234).stream().map(ticketData -> ticketData.ticketId()).toList());
+        assertEquals(ticketConsumer.getTicketsByBookmakerIdGroupedByGame(1234),
+                restarted.getTicketsByBookmakerIdGroupedByGame(1234));
+        assertEquals(new CostMetrics(2, 358.01, 222.22, 62.07), restarted.getCostMetricsByBookmaker(1234));
+        assertEquals(new CostMetrics(2, 358.01, 222.22, 62.07),
+                restarted.getCostMetricsByBookmaker(1234, TimeWindow.ONE_DAY));
+        assertEquals(ticketConsumer.getTicketsByBookmakerIdGroupedByGame(1234, TimeWindow.ONE_HOUR),
+                restarted.getTicketsByBookmakerIdGroupedByGame(1234, TimeWindow.ONE_HOUR));
+    }
+
+    @Test
+    void testSnapshotIsCopiedBeforeItIsWritten() {
+        // given
+        TicketSnapshots ticketSnapshots = new TicketSnapshots(true, directory.toString(), Duration.ofHours(1));
+        TicketConsumer ticketConsumer = new TicketConsumer(new ColumnarTicketStore(), ticketSnapshots);
+        ticketConsumer.consume(message1);
+        // when
+        CompletableFuture<Void> snapshot = ticketConsumer.writeSnapshot();
+        ticketConsumer.consume(message2);
+        snapshot.join();
+        TicketConsumer restarted = new TicketConsumer(new MapTicketStore(), ticketSnapshots);
+        restarted.restoreSnapshot();
+        // then
+        assertEquals(List.of("01J9ZQ4Y7V8K3M2N1P0QRSTVWX"),
+                restarted.getTickets().stream().map(ticketData -> ticketData.ticketId()).toList());
+        assertEquals(new CostMetrics(1, 123.45, 111.11, 90.0), restarted.getCostMetricsByBookmaker(1234));
+    }
+
+    @Test
+    void testRetentionWatermarksAreRestoredPerPartition() {
+        // given
+        TicketSnapshots ticketSnapshots = new TicketSnapshots(true, directory.toString(), Duration.ofHours(1));
+        TicketConsumer ticketConsumer = consumer(ticketSnapshots, 2);
+        ticketConsumer.consumeRecords(new ConsumerRecords<>(Map.of(
+                PARTITION_0, List.of(
+                        record(PARTITION_0, 0, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW0", "MONETISED")),
+                        record(PARTITION_0, 1, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW3", "MONETISED"))),
+                PARTITION_1, List.of(
+                        record(PARTITION_1, 0, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW2", "MONETISED"))))));
+        assertEquals(1, ticketConsumer.evictSettled());
+        ticketConsumer.writeSnapshot().join();
+        TicketConsumer restarted = consumer(ticketSnapshots, 1);
+        restarted.restoreSnapshot();
+        // when
+        long evicted = restarted.evictSettled();
+        restarted.consumeRecords(new ConsumerRecords<>(Map.of(PARTITION_0, List.of(
+                record(PARTITION_0, 0, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW0", "MONETISED")),
+                record(PARTITION_0, 2, ulidMessage("01J9ZQ4Y7V8K3M2N1P0QRSTVW1", "PLACED"))))));
+        // then
+        assertEquals(1, evicted);
+        assertEquals(List.of("01J9ZQ4Y7V8K3M2N1P0QRSTVW1", "01J9ZQ4Y7V8K3M2N1P0QRSTVW3"),
+                restarted.getTicketsByBookmaker(4567).stream().map(ticketData -> ticketData.ticketId()).toList());
+        assertEquals(4, restarted.getCostMetricsByBookmaker(4567).numberOfTickets());
+        assertEquals(4, restarted.calculateCostMetrics(4567).numberOfTickets());
+    }
+
+    @Test
+    void testNothingIsRestoredWhenDisabled() {
+        // given
+        TicketConsumer ticketConsumer = new TicketConsumer(new MapTicketStore(), TicketSnapshots.disabled());
+        // when
+        ticketConsumer.restoreSnapshot();
+        // then
+        assertEquals(0, ticketConsumer.getTickets().size());
+        assertNull(ticketConsumer.getNextOffset(PARTITION_0));
+    }
+
+    private static TicketConsumer consumer(TicketSnapshots ticketSnapshots, long maxSettled) {
+        TicketRetention retention = new TicketRetention(true, Duration.ZERO, maxSettled, 0.8, Duration.ofDays(1),
+                Duration.ofMinutes(1), () -> 0);
+        return new TicketConsumer(new ColumnarTicketStore(), ticketSnapshots, 1,
+                new IngestMetrics(new SimpleMeterRegistry()), TicketDeadLetters.disabled(), TicketAuditLog.disabled(),
+                retention);
+    }
+
+    private static String ulidMessage(String ticketId, String status) {
+        return "{\"bookmaker\": 4567,\"currency\": \"EUR\",\"game\": \"GTA\",\"stake\": 10.00,\"status\": \""
+                + status + "\",\"ticket_id\":\"" + ticketId + "\",\"total_return\": 12.50}";
+    }
+
+    private static ConsumerRecord<String, Ticket> record(TopicPartition partition, long offset, String message) {
+        return new ConsumerRecord<>(partition.topic(), partition.partition(), offset, null,
+                new TicketDeserializer().deserialize(partition.topic(), message.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,57 @@
+package com.ticket.reporting.metrics;
+
+import com.ticket.reporting.TicketStatus;
+import com.ticket.reporting.model.AmountQuantiles;
+import com.ticket.reporting.model.CostMetrics;
+import com.ticket.reporting.model.StakeDistribution;
+import com.ticket.reporting.model.Ticket;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistributionSketchesTest {
+    private static final CostMetrics COST_METRICS = new CostMetrics(0, 0, 0, 0);
+    private final DistributionSketches sketches = new DistributionSketches();
+
+    @Test
+    void testDistributionFollowsTicketUpdates() {
+        // given
+        sketches.update(null, ticket("1", "GTA", "EUR", TicketStatus.MONETISED, 10.0, 30.0));
+        sketches.update(null, ticket("2", "GTA", "PLN", TicketStatus.MONETISED, 20.0, 0.0));
+        sketches.update(null, ticket("3", "NFS", "EUR", TicketStatus.MONETISED, 50.0, 0.0));
+        Ticket placed = ticket("4", "GTA", "USD", TicketStatus.PLACED, 100.0, 200.0);
+        sketches.update(null, placed);
+        // when
+        sketches.update(placed, ticket("4", "GTA", "USD", TicketStatus.CANCELLED, 100.0, 100.0));
+        // then
+        StakeDistribution gta = sketches.getDistribution(1234, "GTA", COST_METRICS);
+        assertSame(COST_METRICS, gta.costMetrics());
+        assertQuantiles(new AmountQuantiles(10.0, 10.0), gta.stake());
+        assertQuantiles(new AmountQuantiles(0.0, 0.0), gta.totalReturn());
+        // The currency of the cancelled ticket stays counted
+        assertEquals(3, gta.distinctCurrencies());
+        StakeDistribution all = sketches.getDistribution(1234, COST_METRICS);
+        assertQuantiles(new AmountQuantiles(20.0, 20.0), all.stake());
+        assertEquals(3, all.distinctCurrencies());
+        assertEquals(new StakeDistribution(COST_METRICS, new AmountQuantiles(0, 0), new AmountQuantiles(0, 0), 0),
+                sketches.getDistribution(2345, COST_METRICS));
+    }
+
+    private static void assertQuantiles(AmountQuantiles expected, AmountQuantiles actual) {
+        assertEquals(expected.median(), actual.median(), expected.median() * QuantileSketch.RELATIVE_ACCURACY);
+        assertEquals(expected.p95(), actual.p95(), expected.p95() * QuantileSketch.RELATIVE_ACCURACY);
+    }
+
+    private static Ticket ticket(String ticketId, String game, String currency, TicketStatus status, double stake,
+                                 double totalReturn) {
+        Ticket ticket = new Ticket();
+        ticket.setTicketId(ticketId);
+        ticket.setBookmaker(1234);
+        ticket.setGame(game);
+        ticket.setCurrency(currency);
+        ticket.setStake(stake);
+        ticket.setTotalReturn(totalReturn);
+        ticket.setStatus(status);
+        return ticket;
+    }
+}
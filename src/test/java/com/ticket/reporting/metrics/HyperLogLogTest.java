@@ -0,0 +1,35 @@
+package com.ticket.reporting.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void testFewDistinctValuesAreCountedExactly() {
+        // given
+        HyperLogLog currencies = new HyperLogLog();
+        // when
+        for (int i = 0; i < 1_000; i++) {
+            currencies.add(new String[]{"EUR", "PLN", "INR", "USD", "GBP", "BRL"}[i % 6]);
+        }
+        // then
+        assertEquals(6, currencies.estimate());
+    }
+
+    @Test
+    void testMergedEstimateOfManyDistinctValues() {
+        // given
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for (int i = 0; i < 60_000; i++) {
+            first.add("value-" + i);
+            second.add("value-" + (i + 40_000));
+        }
+        // when
+        first.merge(second);
+        // then, within three standard errors of 6.5%
+        assertEquals(100_000, first.estimate(), 100_000 * 0.2);
+    }
+}
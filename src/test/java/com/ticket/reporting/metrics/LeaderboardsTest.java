@@ -0,0 +1,85 @@
+package com.ticket.reporting.metrics;
+
+import com.ticket.reporting.TicketStatus;
+import com.ticket.reporting.model.BookmakerRanking;
+import com.ticket.reporting.model.CostMetrics;
+import com.ticket.reporting.model.GameRanking;
+import com.ticket.reporting.model.Ticket;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardsTest {
+    private final Leaderboards leaderboards = new Leaderboards();
+
+    @Test
+    void testGamesAreRankedByTurnoverAndLoss() {
+        // given
+        leaderboards.update(null, ticket("1", 1234, "GTA", TicketStatus.MONETISED, 10.0, 30.0));
+        leaderboards.update(null, ticket("2", 1234, "NFS", TicketStatus.MONETISED, 50.0, 20.0));
+        leaderboards.update(null, ticket("3", 1234, "FIFA", TicketStatus.MONETISED, 20.0, 5.0));
+        Ticket placed = ticket("4", 1234, "GTA", TicketStatus.PLACED, 100.0, 0.0);
+        leaderboards.update(null, placed);
+        // when
+        leaderboards.update(placed, ticket("4", 1234, "GTA", TicketStatus.CANCELLED, 100.0, 0.0));
+        // then
+        assertEquals(List.of("NFS", "FIFA"), games(leaderboards.getTopGames(1234, GameOrder.TURNOVER, 2)));
+        assertEquals(List.of("NFS", "FIFA"), games(leaderboards.getTopGames(1234, GameOrder.LOSS, 10)));
+        assertEquals(new GameRanking("NFS", new CostMetrics(1, 50.0, -30.0, -60.0)),
+                leaderboards.getTopGames(1234, GameOrder.LOSS, 1).get(0));
+        assertEquals(List.of(), leaderboards.getTopGames(2345, GameOrder.TURNOVER, 10));
+    }
+
+    @Test
+    void testBookmakersAreRankedByMargin() {
+        // given
+        leaderboards.update(null, ticket("1", 1234, "GTA", TicketStatus.MONETISED, 10.0, 30.0));
+        leaderboards.update(null, ticket("2", 2345, "GTA", TicketStatus.MONETISED, 10.0, 5.0));
+        Ticket placed = ticket("3", 3456, "GTA", TicketStatus.PLACED, 10.0, 0.0);
+        leaderboards.update(null, placed);
+        // when
+        leaderboards.update(placed, ticket("3", 3456, "GTA", TicketStatus.MONETISED, 10.0, 40.0));
+        // then
+        List<BookmakerRanking> top = leaderboards.getTopBookmakersByMargin(2);
+        assertEquals(List.of(3456, 1234), top.stream().map(BookmakerRanking::bookmaker).toList());
+        assertEquals(new CostMetrics(1, 10.0, 30.0, 300.0), top.get(0).costMetrics());
+    }
+
+    @Test
+    void testBookmakersAreReRankedOnTheNextRead() {
+        // given
+        leaderboards.update(null, ticket("1", 1234, "GTA", TicketStatus.MONETISED, 10.0, 30.0));
+        leaderboards.update(null, ticket("2", 2345, "GTA", TicketStatus.MONETISED, 10.0, 5.0));
+        assertEquals(List.of(1234, 2345), bookmakers(leaderboards.getTopBookmakersByMargin(2)));
+        // when
+        leaderboards.update(null, ticket("3", 2345, "NFS", TicketStatus.MONETISED, 10.0, 100.0));
+        leaderboards.update(null, ticket("4", 1234, "NFS", TicketStatus.MONETISED, 10.0, 0.0));
+        // then
+        List<BookmakerRanking> top = leaderboards.getTopBookmakersByMargin(2);
+        assertEquals(List.of(2345, 1234), bookmakers(top));
+        assertEquals(new CostMetrics(2, 20.0, 85.0, 425.0), top.get(0).costMetrics());
+    }
+
+    private static List<Integer> bookmakers(List<BookmakerRanking> rankings) {
+        return rankings.stream().map(BookmakerRanking::bookmaker).toList();
+    }
+
+    private static List<String> games(List<GameRanking> rankings) {
+        return rankings.stream().map(GameRanking::game).toList();
+    }
+
+    private static Ticket ticket(String ticketId, int bookmakerId, String game, TicketStatus status, double stake,
+                                 double totalReturn) {
+        Ticket ticket = new Ticket();
+        ticket.setTicketId(ticketId);
+        ticket.setBookmaker(bookmakerId);
+        ticket.setGame(game);
+        ticket.setCurrency("EUR");
+        ticket.setStake(stake);
+        ticket.setTotalReturn(totalReturn);
+        ticket.setStatus(status);
+        return ticket;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ticket.reporting.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    @Test
+    void testQuantilesAreWithinTheRelativeAccuracy() {
+        // given
+        Random random = new Random(42);
+        QuantileSketch sketch = new QuantileSketch();
+        long[] amounts = new long[10_000];
+        for (int i = 0; i < amounts.length; i++) {
+            // Log-normal amounts around 10.00, in Money units
+            amounts[i] = Math.round(Math.exp(random.nextGaussian() * 1.5) * 100_000);
+            sketch.add(amounts[i]);
+        }
+        Arrays.sort(amounts);
+        // when, then
+        for (double quantile : new double[]{0.01, 0.5, 0.95, 0.99}) {
+            long exact = amounts[(int) (quantile * (amounts.length - 1))];
+            assertEquals(exact, sketch.quantile(quantile), exact * QuantileSketch.RELATIVE_ACCURACY, "q" + quantile);
+        }
+    }
+
+    @Test
+    void testRemovedAmountsNoLongerCount() {
+        // given
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 1; i <= 100; i++) {
+            sketch.add(i * 10_000L);
+        }
+        // when
+        for (int i = 51; i <= 100; i++) {
+            sketch.remove(i * 10_000L);
+        }
+        sketch.add(0);
+        // then
+        assertEquals(51, sketch.getCount());
+        assertEquals(0, sketch.quantile(0));
+        assertEquals(250_000, sketch.quantile(0.5), 250_000 * QuantileSketch.RELATIVE_ACCURACY);
+        assertEquals(500_000, sketch.quantile(1), 500_000 * QuantileSketch.RELATIVE_ACCURACY);
+    }
+
+    @Test
+    void testMergedSketchEqualsOneSketchOfAllAmounts() {
+        // given
+        Random random = new Random(42);
+        QuantileSketch all = new QuantileSketch();
+        QuantileSketch low = new QuantileSketch();
+        QuantileSketch high = new QuantileSketch();
+        for (int i = 0; i < 1_000; i++) {
+            long amount = 1 + random.nextInt(1_000_000);
+            all.add(amount);
+            (amount < 500_000 ? low : high).add(amount);
+        }
+        // when
+        high.merge(low);
+        // then
+        for (double quantile : new double[]{0, 0.5, 0.95, 1}) {
+            assertEquals(all.quantile(quantile), high.quantile(quantile));
+        }
+    }
+
+    @Test
+    void testLowestBinsAreFoldedBeyondTheMaximumRange() {
+        // given
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(1);
+        sketch.add(Long.MAX_VALUE / 2);
+        // when
+        sketch.remove(1);
+        // then
+        assertEquals(1, sketch.getCount());
+        assertEquals(Long.MAX_VALUE / 2, sketch.quantile(0), Long.MAX_VALUE / 2 * QuantileSketch.RELATIVE_ACCURACY);
+    }
+}
@@ -0,0 +1,95 @@
+package com.ticket.reporting.metrics;
+
+import com.ticket.reporting.TicketStatus;
+import com.ticket.reporting.model.CostMetrics;
+import com.ticket.reporting.model.Ticket;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindowedCostAggregatesTest {
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final WindowedCostAggregates aggregates = new WindowedCostAggregates();
+
+    @Test
+    void testTicketsFallIntoTheWindowsOfTheirRecordTimestamp() {
+        // when
+        aggregates.update(null, ticket("1", "GTA", TicketStatus.PLACED, 10.0, 15.0), NOW - minutes(2));
+        aggregates.update(null, ticket("2", "NFS", TicketStatus.PLACED, 20.0, 10.0), NOW - minutes(10));
+        aggregates.update(null, ticket("3", "NFS", TicketStatus.PLACED, 40.0, 0.0), NOW - minutes(120));
+        aggregates.update(null, ticket("4", "NFS", TicketStatus.PLACED, 80.0, 0.0), NOW - minutes(2 * 24 * 60));
+        // then
+        assertEquals(new CostMetrics(1, 10.0, 5.0, 50.0),
+                aggregates.getCostMetrics(1234, TimeWindow.FIVE_MINUTES, NOW));
+        assertEquals(new CostMetrics(2, 30.0, -5.0, -16.67), aggregates.getCostMetrics(1234, TimeWindow.ONE_HOUR, NOW));
+        assertEquals(new CostMetrics(3, 70.0, -45.0, -64.29), aggregates.getCostMetrics(1234, TimeWindow.ONE_DAY, NOW));
+        assertEquals(Map.of("GTA", new CostMetrics(1, 10.0, 5.0, 50.0)),
+                aggregates.getCostMetricsByGame(1234, TimeWindow.FIVE_MINUTES, NOW));
+    }
+
+    @Test
+    void testWindowsHoldTheDeltaOfEachTransition() {
+        // given
+        Ticket placed = ticket("1", "GTA", TicketStatus.PLACED, 10.0, 0.0);
+        Ticket monetised = ticket("1", "GTA", TicketStatus.MONETISED, 10.0, 25.0);
+        Ticket placedAndCancelled = ticket("2", "NFS", TicketStatus.PLACED, 20.0, 0.0);
+        // when
+        aggregates.update(null, placed, NOW - minutes(30));
+        aggregates.update(placed, monetised, NOW - minutes(1));
+        aggregates.update(null, placedAndCancelled, NOW - minutes(3));
+        aggregates.update(placedAndCancelled, ticket("2", "NFS", TicketStatus.CANCELLED, 20.0, 0.0), NOW - minutes(1));
+        // then
+        assertEquals(new CostMetrics(0, 0.0, 25.0, 0.0), aggregates.getCostMetrics(1234, TimeWindow.FIVE_MINUTES, NOW));
+        assertEquals(new CostMetrics(1, 10.0, 15.0, 150.0), aggregates.getCostMetrics(1234, TimeWindow.ONE_HOUR, NOW));
+        assertEquals(Map.of("GTA", new CostMetrics(0, 0.0, 25.0, 0.0)),
+                aggregates.getCostMetricsByGame(1234, TimeWindow.FIVE_MINUTES, NOW));
+    }
+
+    @Test
+    void testCancellingTicketsPlacedBeforeTheWindowReportsNoNegativeTurnover() {
+        // given
+        Ticket placed = ticket("1", "GTA", TicketStatus.PLACED, 10.0, 4.0);
+        aggregates.update(null, placed, NOW - minutes(2 * 60));
+        // when
+        aggregates.update(placed, ticket("1", "GTA", TicketStatus.CANCELLED, 10.0, 4.0), NOW - minutes(1));
+        // then
+        assertEquals(new CostMetrics(0, 0.0, 6.0, 0.0), aggregates.getCostMetrics(1234, TimeWindow.FIVE_MINUTES, NOW));
+        assertEquals(Map.of("GTA", new CostMetrics(0, 0.0, 6.0, 0.0)),
+                aggregates.getCostMetricsByGame(1234, TimeWindow.ONE_HOUR, NOW));
+        assertEquals(new CostMetrics(0, 0.0, 0.0, 0.0), aggregates.getCostMetrics(1234, TimeWindow.ONE_DAY, NOW));
+    }
+
+    @Test
+    void testCopyHoldsTheBucketsOfEveryWindow() {
+        // given
+        aggregates.update(null, ticket("1", "GTA", TicketStatus.PLACED, 10.0, 15.0), NOW - minutes(2));
+        aggregates.update(null, ticket("2", "NFS", TicketStatus.PLACED, 20.0, 10.0), NOW - minutes(10 * 60));
+        // when
+        WindowedCostAggregates copy = aggregates.copy();
+        aggregates.update(null, ticket("3", "NFS", TicketStatus.PLACED, 40.0, 0.0), NOW - minutes(1));
+        // then
+        assertEquals(new CostMetrics(1, 10.0, 5.0, 50.0), copy.getCostMetrics(1234, TimeWindow.FIVE_MINUTES, NOW));
+        assertEquals(new CostMetrics(1, 10.0, 5.0, 50.0), copy.getCostMetrics(1234, TimeWindow.ONE_HOUR, NOW));
+        assertEquals(new CostMetrics(2, 30.0, -5.0, -16.67), copy.getCostMetrics(1234, TimeWindow.ONE_DAY, NOW));
+    }
+
+    private static long minutes(long minutes) {
+        return Duration.ofMinutes(minutes).toMillis();
+    }
+
+    private static Ticket ticket(String ticketId, String game, TicketStatus status, double stake, double totalReturn) {
+        Ticket ticket = new Ticket();
+        ticket.setTicketId(ticketId);
+        ticket.setBookmaker(1234);
+        ticket.setGame(game);
+        ticket.setCurrency("EUR");
+        ticket.setStake(stake);
+        ticket.setTotalReturn(totalReturn);
+        ticket.setStatus(status);
+        return ticket;
+    }
+}
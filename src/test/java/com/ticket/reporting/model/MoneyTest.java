@@ -0,0 +1,52 @@
+package com.ticket.reporting.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    @Test
+    void testParseDecimalsIntoUnits() {
+        assertEquals(1_234_500, parse("123.45"));
+        assertEquals(1_230_000, parse("123"));
+        assertEquals(-5_000, parse("-0.5"));
+        assertEquals(1_234_568, parse("123.45675"));
+        assertEquals(1_234_567, parse("123.45674999"));
+        assertEquals(1_500_000, parse("1.5e2"));
+    }
+
+    @Test
+    void testHugeExponentsAreRejectedWithoutExpanding() {
+        assertThrows(ArithmeticException.class, () -> parse("1e50000000"));
+        assertThrows(ArithmeticException.class, () -> parse("1e-50000000"));
+        assertThrows(ArithmeticException.class, () -> parse("1e15"));
+        assertEquals(9_000_000_000_000_000_000L, parse("9e14"));
+        assertEquals(1, Money.of(1e-4));
+        assertEquals(0, Money.of(Double.MIN_VALUE));
+    }
+
+    @Test
+    void testSumsStayExact() {
+        // given
+        long units = 0;
+        // when
+        for (int i = 0; i < 1_000_000; i++) {
+            units += parse("0.1");
+        }
+        // then
+        assertEquals(100_000.0, Money.toDouble(units));
+    }
+
+    @Test
+    void testCentsRoundHalfUp() {
+        assertEquals(12_346, Money.toCents(1_234_550));
+        assertEquals(12_345, Money.toCents(1_234_549));
+        assertEquals(-12_346, Money.toCents(-1_234_550));
+    }
+
+    private static long parse(String amount) {
+        return Money.parse(amount.toCharArray(), 0, amount.length());
+    }
+}
@@ -0,0 +1,91 @@
+package com.ticket.reporting.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticket.reporting.consumer.TicketConsumer;
+import com.ticket.reporting.model.CostMetrics;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CostMetricsEventsTest {
+    private TicketConsumer ticketConsumer;
+    private SseEventSink sink;
+    private OutboundSseEvent.Builder eventBuilder;
+    private CostMetricsEvents costMetricsEvents;
+
+    @BeforeEach
+    void setup() {
+        ticketConsumer = mock(TicketConsumer.class);
+        sink = mock(SseEventSink.class);
+        eventBuilder = mock(OutboundSseEvent.Builder.class, RETURNS_SELF);
+        Sse sse = mock(Sse.class);
+        when(sse.newEventBuilder()).thenReturn(eventBuilder);
+        when(sink.send(any())).thenAnswer(invocation -> CompletableFuture.completedFuture(null));
+        costMetricsEvents = new CostMetricsEvents(ticketConsumer, new ObjectMapper(), Duration.ofSeconds(1));
+        costMetricsEvents.subscribe(1234, sink, sse);
+    }
+
+    @Test
+    void testFirstEventHoldsAllGamesAndLaterEventsOnlyChanges() {
+        // given
+        CostMetrics gta = new CostMetrics(1, 10.0, 5.0, 50.0);
+        CostMetrics fifa = new CostMetrics(1, 20.0, -20.0, -100.0);
+        when(ticketConsumer.getBookmakerVersion(1234)).thenReturn(1L, 1L, 2L);
+        when(ticketConsumer.getTicketsByBookmakerIdGroupedByGame(1234))
+                .thenReturn(Map.of("GTA", gta, "FIFA", fifa))
+                .thenReturn(Map.of("GTA", new CostMetrics(2, 20.0, 10.0, 50.0), "FIFA", fifa));
+        // when
+        costMetricsEvents.tick();
+        costMetricsEvents.tick();
+        costMetricsEvents.tick();
+        // then
+        ArgumentCaptor<Object> data = ArgumentCaptor.forClass(Object.class);
+        verify(eventBuilder, times(2)).data(data.capture());
+        verify(eventBuilder, times(2)).name(CostMetricsEvents.EVENT_NAME);
+        String first = (String) data.getAllValues().get(0);
+        assertEquals(true, first.contains("\"GTA\"") && first.contains("\"FIFA\""));
+        assertEquals("{\"GTA\":{\"numberOfTickets\":2,\"turnover\":20.0,\"profitLoss\":10.0,\"margin\":50.0}}",
+                data.getAllValues().get(1));
+    }
+
+    @Test
+    void testChangesAreCoalescedWhileAnEventIsPending() {
+        // given
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        when(sink.send(any())).thenAnswer(invocation -> pending);
+        when(ticketConsumer.getBookmakerVersion(1234)).thenReturn(1L, 2L, 3L);
+        when(ticketConsumer.getTicketsByBookmakerIdGroupedByGame(1234))
+                .thenReturn(Map.of("GTA", new CostMetrics(1, 10.0, 5.0, 50.0)))
+                .thenReturn(Map.of("GTA", new CostMetrics(3, 30.0, 15.0, 50.0)));
+        // when
+        costMetricsEvents.tick();
+        costMetricsEvents.tick();
+        pending.complete(null);
+        costMetricsEvents.tick();
+        // then
+        verify(sink, times(2)).send(any());
+        verify(ticketConsumer, times(2)).getBookmakerVersion(1234);
+    }
+
+    @Test
+    void testClosedSubscribersAreDropped() {
+        // given
+        when(sink.isClosed()).thenReturn(true);
+        // when
+        costMetricsEvents.tick();
+        // then
+        assertEquals(0, costMetricsEvents.subscriberCount());
+        verify(sink, never()).send(any());
+    }
+}
@@ -0,0 +1,34 @@
+package com.ticket.reporting.resource;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializedResponseCacheTest {
+
+    @Test
+    void testBodyIsOnlyServedAtItsVersion() {
+        // given
+        SerializedResponseCache cache = new SerializedResponseCache(2);
+        // when
+        cache.put("/tickets/bookmaker/1234", 3, new byte[]{1});
+        // then
+        assertArrayEquals(new byte[]{1}, cache.get("/tickets/bookmaker/1234", 3));
+        assertNull(cache.get("/tickets/bookmaker/1234", 4));
+    }
+
+    @Test
+    void testLeastRecentlyUsedPathIsEvicted() {
+        // given
+        SerializedResponseCache cache = new SerializedResponseCache(2);
+        cache.put("/tickets/bookmaker/1", 1, new byte[]{1});
+        cache.put("/tickets/bookmaker/2", 1, new byte[]{2});
+        // when
+        cache.get("/tickets/bookmaker/1", 1);
+        cache.put("/tickets/bookmaker/3", 1, new byte[]{3});
+        // then
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("/tickets/bookmaker/1", 1));
+        assertNull(cache.get("/tickets/bookmaker/2", 1));
+    }
+}
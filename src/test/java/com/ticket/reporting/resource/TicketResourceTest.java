@@ -2,21 +2,36 @@ package com.ticket.reporting.resource;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticket.reporting.metrics.TimeWindow;
+import com.ticket.reporting.model.AmountQuantiles;
 import com.ticket.reporting.model.CostMetrics;
+import com.ticket.reporting.model.StakeDistribution;
 import com.ticket.reporting.model.Ticket;
 import com.ticket.reporting.model.TicketData;
 import com.ticket.reporting.consumer.TicketConsumer;
+import com.ticket.reporting.shard.ShardUnavailableException;
+import com.ticket.reporting.shard.ShardedCostMetrics;
 import io.quarkus.test.junit.QuarkusTest;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.when;
 
 @QuarkusTest
@@ -25,6 +40,12 @@ class TicketResourceTest {
     TicketResource ticketResource;
     @Mock
     TicketConsumer ticketConsumer;
+    @Mock
+    CostMetricsEvents costMetricsEvents;
+    @Mock
+    ShardedCostMetrics shardedCostMetrics;
+    @Spy
+    ObjectMapper applicationObjectMapper = new ObjectMapper();
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -34,31 +55,45 @@ class TicketResourceTest {
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     void testGetAllTickets() throws JsonProcessingException {
         // given
         List<TicketData> ticketsData = List.of(
                 new TicketData("34567", tickets().get(0)),
                 new TicketData("45678", tickets().get(1))
         );
-        when(ticketConsumer.getTickets()).thenReturn(ticketsData);
+        when(ticketConsumer.getTicketsPage(null, 2)).thenReturn(ticketsData);
         // when
-        List<TicketData> tickets = ticketResource.getAllTickets();
+        Response response = ticketResource.getAllTickets(null, 2);
         // then
+        List<TicketData> tickets = (List<TicketData>) response.getEntity();
         assertEquals(2, tickets.size());
         assertEquals(1234, tickets.get(0).ticket().getBookmaker());
         assertEquals("34567", tickets.get(0).ticketId());
+        assertEquals("45678", response.getHeaderString(TicketResource.NEXT_CURSOR));
     }
 
     @Test
-    void testGetTicketsByBookMaker() throws JsonProcessingException {
+    void testStreamTicketsAsNdjson() throws IOException {
         // given
-        List<TicketData> ticketsDataByBookmaker = List.of(
+        when(ticketConsumer.getTicketsPage("23456", TicketStream.PAGE_SIZE)).thenReturn(List.of(
                 new TicketData("34567", tickets().get(0)),
                 new TicketData("45678", tickets().get(1))
-        );
-        when(ticketConsumer.getTicketsByBookmaker(1234)).thenReturn(ticketsDataByBookmaker);
-        when(ticketConsumer.calculateCostMetrics(ticketsDataByBookmaker))
-                .thenReturn(new CostMetrics(3, 592.57, 333.33, 56.25));
+        ));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        // when
+        ((StreamingOutput) ticketResource.streamTickets("23456").getEntity()).write(output);
+        // then
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("34567", objectMapper.readTree(lines[0]).get("ticketId").asText());
+        assertEquals("NFS", objectMapper.readTree(lines[1]).get("ticket").get("game").asText());
+    }
+
+    @Test
+    void testGetTicketsByBookMaker() {
+        // given
+        when(shardedCostMetrics.getCostMetrics(1234)).thenReturn(new CostMetrics(3, 592.57, 333.33, 56.25));
         // when
         CostMetrics costMetrics = ticketResource.getTicketsByBookmaker(1234);
         // then
@@ -68,10 +103,22 @@ class TicketResourceTest {
         assertEquals(56.25, costMetrics.margin());
     }
 
+    @Test
+    void testGetTicketsByBookMakerWithinWindow() {
+        // given
+        when(ticketConsumer.getCostMetricsByBookmaker(1234, TimeWindow.ONE_HOUR))
+                .thenReturn(new CostMetrics(1, 10.0, 5.0, 50.0));
+        // when
+        CostMetrics costMetrics = ticketResource.getTicketsByBookmakerWithinWindow(1234, "1h");
+        // then
+        assertEquals(new CostMetrics(1, 10.0, 5.0, 50.0), costMetrics);
+        assertThrows(BadRequestException.class, () -> ticketResource.getTicketsByBookmakerWithinWindow(1234, "2h"));
+    }
+
     @Test
     void testGetTicketsByBookMakerGroupedByGame() {
         // given
-        when(ticketConsumer.getTicketsByBookmakerIdGroupedByGame(1234)).thenReturn(costMetricsByGame());
+        when(shardedCostMetrics.getCostMetricsByGame(1234)).thenReturn(costMetricsByGame());
         // when
         Map<String, CostMetrics> costMetricsByGame = ticketResource.getTicketsByBookmakerIdGroupedByGame(1234);
         // then
@@ -81,6 +128,44 @@ class TicketResourceTest {
         assertEquals(2, costMetricsByGame().get("NFS").numberOfTickets());
     }
 
+    @Test
+    void testGetTicketsByBookMakersGroupedByGame() {
+        // given
+        when(shardedCostMetrics.getCostMetricsByGame(Set.of(1234, 2345), "NFS"))
+                .thenReturn(Map.of(1234, Map.of("NFS", costMetricsByGame().get("NFS")), 2345, Map.of()));
+        // when
+        Map<Integer, Map<String, CostMetrics>> costMetrics =
+                ticketResource.getTicketsByBookmakerIdsGroupedByGame(Set.of(1234, 2345), "NFS");
+        // then
+        assertEquals(2, costMetrics.get(1234).get("NFS").numberOfTickets());
+        assertEquals(Map.of(), costMetrics.get(2345));
+        assertThrows(BadRequestException.class, () -> ticketResource.getTicketsByBookmakerIdsGroupedByGame(
+                Set.of(), null));
+    }
+
+    @Test
+    void testGetDistributionsByBookmakerIdGroupedByGame() {
+        // given
+        StakeDistribution nfs = new StakeDistribution(costMetricsByGame().get("NFS"),
+                new AmountQuantiles(234.56, 234.56), new AmountQuantiles(345.67, 345.67), 2);
+        when(ticketConsumer.getDistributionsByBookmakerIdGroupedByGame(1234)).thenReturn(Map.of("NFS", nfs));
+        // when
+        Map<String, StakeDistribution> distributions = ticketResource.getDistributionsByBookmakerIdGroupedByGame(1234);
+        // then
+        assertEquals(2, distributions.get("NFS").costMetrics().numberOfTickets());
+        assertEquals(234.56, distributions.get("NFS").stake().median());
+        assertEquals(2, distributions.get("NFS").distinctCurrencies());
+    }
+
+    @Test
+    void testUnavailableShardIsServiceUnavailable() {
+        // given
+        when(shardedCostMetrics.getCostMetrics(1234))
+                .thenThrow(new ShardUnavailableException("Shard http://localhost:8081 did not answer within PT2S"));
+        // when / then
+        assertThrows(ServiceUnavailableException.class, () -> ticketResource.getTicketsByBookmaker(1234));
+    }
+
     private Map<String, CostMetrics> costMetricsByGame() {
         return Map.of("Call of Duty", new CostMetrics(1, 123.45, 111.11, 90.04),
                 "NFS", new CostMetrics(2, 469.12, 222.22, 47.37));
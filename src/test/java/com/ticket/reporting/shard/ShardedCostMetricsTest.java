@@ -0,0 +1,205 @@
+package com.ticket.reporting.shard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.ticket.reporting.consumer.TicketConsumer;
+import com.ticket.reporting.model.CostMetrics;
+import com.ticket.reporting.store.MapTicketStore;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedCostMetricsTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final List<URI> requests = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void stopServers() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void testPartialSumsOfAllShardsAreMerged() throws IOException {
+        // given
+        TicketConsumer local = new TicketConsumer(new MapTicketStore());
+        TicketConsumer remote = new TicketConsumer(new MapTicketStore());
+        TicketConsumer single = new TicketConsumer(new MapTicketStore());
+        List<String> messages = List.of(
+                message("34567", "Call of Duty", 123.45, 234.56),
+                message("45678", "NFS", 234.56, 345.67),
+                message("56789", "NFS", 234.56, 345.67));
+        local.consume(messages.get(0));
+        local.consume(messages.get(1));
+        remote.consume(messages.get(2));
+        messages.forEach(single::consume);
+        ShardRouting routing = routing("http://localhost:1", serve(remote, Duration.ZERO));
+        ShardedCostMetrics sharded = new ShardedCostMetrics(local, routing, OBJECT_MAPPER, Duration.ofSeconds(2));
+        // when
+        CostMetrics costMetrics = sharded.getCostMetrics(1234);
+        Map<String, CostMetrics> costMetricsByGame = sharded.getCostMetricsByGame(1234);
+        // then
+        assertEquals(single.getCostMetricsByBookmaker(1234), costMetrics);
+        assertEquals(single.getTicketsByBookmakerIdGroupedByGame(1234), costMetricsByGame);
+        assertEquals(new CostMetrics(3, 592.57, 333.33, 56.25), costMetrics);
+    }
+
+    @Test
+    void testBookmakersAreQueriedInOneBatch() throws IOException {
+        // given
+        TicketConsumer local = new TicketConsumer(new MapTicketStore());
+        TicketConsumer remote = new TicketConsumer(new MapTicketStore());
+        local.consume(message("34567", "Call of Duty", 123.45, 234.56));
+        remote.consume(message("45678", "NFS", 234.56, 345.67));
+        ShardedCostMetrics sharded = new ShardedCostMetrics(local,
+                routing("http://localhost:1", serve(remote, Duration.ZERO)), OBJECT_MAPPER, Duration.ofSeconds(2));
+        List<Integer> bookmakerIds = IntStream.range(1200, 2400).boxed().toList();
+        // when
+        Map<Integer, Map<String, CostMetrics>> costMetrics = sharded.getCostMetricsByGame(bookmakerIds, null);
+        Map<Integer, Map<String, CostMetrics>> nfs = sharded.getCostMetricsByGame(List.of(1234, 2345), "NFS");
+        // then
+        assertEquals(bookmakerIds, List.copyOf(costMetrics.keySet()));
+        assertEquals(Set.of("Call of Duty", "NFS"), costMetrics.get(1234).keySet());
+        assertEquals(Map.of(), costMetrics.get(2345));
+        assertEquals(Map.of(1234, Map.of("NFS", new CostMetrics(1, 234.56, 111.11, 47.37)), 2345, Map.of()), nfs);
+        assertEquals(List.of("/internal/shard/bookmakers/product", "/internal/shard/bookmakers/product?game=NFS"),
+                requests.stream().map(URI::toString).toList());
+    }
+
+    @Test
+    void testManyLocalBookmakersAreAnsweredFromTheRunningTotals() {
+        // given
+        TicketConsumer ticketConsumer = new TicketConsumer(new MapTicketStore());
+        ticketConsumer.consume(message("34567", "Call of Duty", 123.45, 234.56));
+        ShardedCostMetrics single = new ShardedCostMetrics(ticketConsumer, ShardRouting.single(), OBJECT_MAPPER,
+                Duration.ofSeconds(2));
+        List<Integer> bookmakerIds = IntStream.range(1200, 1300).boxed().toList();
+        // when
+        Map<Integer, Map<String, CostMetrics>> costMetrics = single.getCostMetricsByGame(bookmakerIds, null);
+        // then
+        assertEquals(bookmakerIds, List.copyOf(costMetrics.keySet()));
+        assertEquals(ticketConsumer.getTicketsByBookmakerIdGroupedByGame(1234), costMetrics.get(1234));
+        assertEquals(Map.of(), costMetrics.get(1299));
+    }
+
+    @Test
+    void testShardNotAnsweringInTimeFailsTheQuery() throws IOException {
+        // given
+        TicketConsumer remote = new TicketConsumer(new MapTicketStore());
+        ShardRouting routing = routing("http://localhost:1", serve(remote, Duration.ofSeconds(2)));
+        ShardedCostMetrics sharded = new ShardedCostMetrics(new TicketConsumer(new MapTicketStore()), routing,
+                OBJECT_MAPPER, Duration.ofMillis(200));
+        // when
+        ShardUnavailableException e = assertThrows(ShardUnavailableException.class,
+                () -> sharded.getCostMetrics(1234));
+        // then
+        assertTrue(e.getMessage().contains("did not answer within PT0.2S"), e.getMessage());
+    }
+
+    @Test
+    void testBookmakersAreRoutedToTheirOwner() {
+        // given
+        ShardRouting routing = new ShardRouting(Optional.of(List.of("http://node0", "http://node1")), 1,
+                ShardKey.BOOKMAKER);
+        // then
+        assertTrue(routing.owns(1235));
+        assertFalse(routing.owns(1234));
+        assertTrue(routing.isLocal(1235));
+        assertEquals("http://node0", routing.remoteNodes(1234).get(0).toString());
+        assertTrue(ShardRouting.single().isLocal(1234));
+    }
+
+    @Test
+    void testNodesShardedByBookmakerConsumeInAGroupOfTheirOwn() {
+        // given
+        String nodes = "http://localhost:8080,http://localhost:8081";
+        // when
+        Optional<String> first = groupId(Map.of("ticket.shard.nodes", nodes, "ticket.shard.by", "bookmaker",
+                "ticket.shard.index", "0"));
+        Optional<String> second = groupId(Map.of("ticket.shard.nodes", nodes, "ticket.shard.by", "bookmaker",
+                "ticket.shard.index", "1"));
+        Optional<String> explicit = groupId(Map.of("ticket.shard.nodes", nodes, "ticket.shard.by", "bookmaker",
+                "ticket.shard.index", "1", ShardConsumerGroup.GROUP_ID, "reporting-east"));
+        Optional<String> byPartition = groupId(Map.of("ticket.shard.nodes", nodes, "ticket.shard.by", "partition",
+                "ticket.shard.index", "1"));
+        // then
+        assertEquals(Optional.of("ticket-service-shard-0"), first);
+        assertEquals(Optional.of("ticket-service-shard-1"), second);
+        assertEquals(Optional.of("reporting-east"), explicit);
+        assertEquals(Optional.empty(), byPartition);
+    }
+
+    private static Optional<String> groupId(Map<String, String> properties) {
+        SmallRyeConfig config = new SmallRyeConfigBuilder()
+                .withSources(new PropertiesConfigSource(properties, "application.properties", 250))
+                .withSources(new ShardConsumerGroup())
+                .build();
+        return config.getOptionalValue(ShardConsumerGroup.GROUP_ID, String.class);
+    }
+
+    private static ShardRouting routing(String self, String remote) {
+        return new ShardRouting(Optional.of(List.of(self, remote)), 0, ShardKey.PARTITION);
+    }
+
+    /**
+     * Serves the partial sums of the consumer like the ShardResource of another node
+     */
+    private String serve(TicketConsumer consumer, Duration delay) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/internal/shard/", exchange -> {
+            requests.add(exchange.getRequestURI());
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            Object body;
+            if (path[3].equals("bookmakers")) {
+                String query = exchange.getRequestURI().getRawQuery();
+                String game = query == null ? null
+                        : URLDecoder.decode(query.substring("game=".length()), StandardCharsets.UTF_8);
+                List<Integer> bookmakerIds = List.of(OBJECT_MAPPER.readValue(exchange.getRequestBody(),
+                        Integer[].class));
+                body = consumer.getPartialSumsByGame(bookmakerIds, game);
+            } else {
+                int bookmakerId = Integer.parseInt(path[4]);
+                body = path.length > 5 ? consumer.getPartialSumsByGame(bookmakerId)
+                        : consumer.getPartialSums(bookmakerId);
+            }
+            try {
+                Thread.sleep(delay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = OBJECT_MAPPER.writeValueAsBytes(body);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        servers.add(server);
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private static String message(String ticketId, String game, double stake, double totalReturn) {
+        return "{\"bookmaker\": 1234,\"currency\": \"EUR\",\"game\": \"" + game + "\",\"stake\": " + stake
+                + ",\"status\": \"MONETISED\",\"ticket_id\":\"" + ticketId + "\",\"total_return\": " + totalReturn + "}";
+    }
+}
@@ -0,0 +1,127 @@
+package com.ticket.reporting.store;
+
+import com.ticket.reporting.TicketStatus;
+import com.ticket.reporting.model.Ticket;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarTicketStoreTest {
+    private final ColumnarTicketStore ticketStore = new ColumnarTicketStore();
+
+    @Test
+    void testTicketsAreReadBackFromColumns() {
+        // given
+        Ticket ticket = ticket("01J9ZQ4Y7V8K3M2N1P0QRSTVWX", TicketStatus.PLACED, 123.45, null);
+        // when
+        Ticket previous = ticketStore.put(ticket);
+        Ticket stored = ticketStore.get("01J9ZQ4Y7V8K3M2N1P0QRSTVWX");
+        // then
+        assertNull(previous);
+        assertEquals("01J9ZQ4Y7V8K3M2N1P0QRSTVWX", stored.getTicketId());
+        assertEquals(1234, stored.getBookmaker());
+        assertEquals("Call of Duty", stored.getGame());
+        assertEquals("EUR", stored.getCurrency());
+        assertEquals(123.45, stored.getStake());
+        assertNull(stored.getTotalReturn());
+        assertEquals(TicketStatus.PLACED, stored.getStatus());
+    }
+
+    @Test
+    void testUpsertReturnsPreviousVersion() {
+        // when
+        ticketStore.put(ticket("01J9ZQ4Y7V8K3M2N1P0QRSTVWX", TicketStatus.PLACED, 123.45, 234.56));
+        Ticket previous = ticketStore.put(ticket("01J9ZQ4Y7V8K3M2N1P0QRSTVWX", TicketStatus.MONETISED, 123.45, 0.0));
+        // then
+        assertEquals(TicketStatus.PLACED, previous.getStatus());
+        assertEquals(234.56, previous.getTotalReturn());
+        assertEquals(TicketStatus.MONETISED, ticketStore.get("01J9ZQ4Y7V8K3M2N1P0QRSTVWX").getStatus());
+        assertEquals(1, ticketStore.size());
+    }
+
+    @Test
+    void testManyUlidAndOtherTicketIds() {
+        // given
+        List<String> ticketIds = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            ticketIds.add(i % 10 == 0 ? "ticket-" + i : Ulid.toString(i * 31L, i * 0x9E3779B97F4A7C15L));
+        }
+        // when
+        ticketIds.forEach(ticketId -> ticketStore.put(ticket(ticketId, TicketStatus.PLACED, 1.0, 2.0)));
+        // then
+        assertEquals(5_000, ticketStore.size());
+        ticketIds.forEach(ticketId -> assertEquals(ticketId, ticketStore.get(ticketId).getTicketId()));
+        assertNull(ticketStore.get("01J9ZQ4Y7V8K3M2N1P0QRSTVWX"));
+        assertEquals(5_000, ticketStore.tickets().count());
+    }
+
+    @Test
+    void testRemovedTicketsLeaveOtherTicketsReachable() {
+        // given
+        List<String> ticketIds = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            ticketIds.add(i % 10 == 0 ? "ticket-" + i : Ulid.toString(i * 31L, i * 0x9E3779B97F4A7C15L));
+        }
+        ticketIds.forEach(ticketId -> ticketStore.put(ticket(ticketId, TicketStatus.MONETISED, 1.0, 2.0)));
+        // when
+        for (int i = 0; i < ticketIds.size(); i += 3) {
+            assertEquals(ticketIds.get(i), ticketStore.remove(ticketIds.get(i)).getTicketId());
+        }
+        // then
+        assertEquals(3_333, ticketStore.size());
+        assertEquals(3_333, ticketStore.tickets().count());
+        for (int i = 0; i < ticketIds.size(); i++) {
+            Ticket stored = ticketStore.get(ticketIds.get(i));
+            if (i % 3 == 0) {
+                assertNull(stored);
+            } else {
+                assertEquals(ticketIds.get(i), stored.getTicketId());
+            }
+        }
+        assertNull(ticketStore.remove(ticketIds.get(0)));
+    }
+
+    @Test
+    void testPagesFollowTicketIdOrderAfterRemovals() {
+        // given
+        List<String> ticketIds = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            ticketIds.add(i % 10 == 0 ? "ticket-" + i : Ulid.toString(i * 31L, i * 0x9E3779B97F4A7C15L));
+        }
+        ticketIds.forEach(ticketId -> ticketStore.put(ticket(ticketId, TicketStatus.PLACED, 1.0, 2.0)));
+        for (int i = 0; i < ticketIds.size(); i += 3) {
+            ticketStore.remove(ticketIds.get(i));
+        }
+        // when
+        List<String> paged = new ArrayList<>();
+        List<Ticket> page = ticketStore.page(null, 100);
+        while (!page.isEmpty()) {
+            page.forEach(ticket -> paged.add(ticket.getTicketId()));
+            page = ticketStore.page(paged.get(paged.size() - 1), 100);
+        }
+        // then
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < ticketIds.size(); i++) {
+            if (i % 3 != 0) {
+                expected.add(ticketIds.get(i));
+            }
+        }
+        expected.sort(null);
+        assertEquals(expected, paged);
+    }
+
+    private static Ticket ticket(String ticketId, TicketStatus status, double stake, Double totalReturn) {
+        Ticket ticket = new Ticket();
+        ticket.setTicketId(ticketId);
+        ticket.setBookmaker(1234);
+        ticket.setGame("Call of Duty");
+        ticket.setCurrency("EUR");
+        ticket.setStake(stake);
+        ticket.setTotalReturn(totalReturn);
+        ticket.setStatus(status);
+        return ticket;
+    }
+}
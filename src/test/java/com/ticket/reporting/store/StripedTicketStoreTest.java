@@ -0,0 +1,68 @@
+package com.ticket.reporting.store;
+
+import com.ticket.reporting.TicketStatus;
+import com.ticket.reporting.model.Ticket;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedTicketStoreTest {
+    private final StripedTicketStore ticketStore = new StripedTicketStore(4, ColumnarTicketStore::new);
+
+    @Test
+    void testUpsertReturnsPreviousVersionFromItsStripe() {
+        // when
+        ticketStore.put(ticket("01J9ZQ4Y7V8K3M2N1P0QRSTVWX", TicketStatus.PLACED));
+        Ticket previous = ticketStore.put(ticket("01J9ZQ4Y7V8K3M2N1P0QRSTVWX", TicketStatus.MONETISED));
+        // then
+        assertEquals(TicketStatus.PLACED, previous.getStatus());
+        assertEquals(TicketStatus.MONETISED, ticketStore.get("01J9ZQ4Y7V8K3M2N1P0QRSTVWX").getStatus());
+        assertEquals(1, ticketStore.size());
+    }
+
+    @Test
+    void testPagesAreMergedAcrossStripesInTicketIdOrder() {
+        // given
+        List<String> ticketIds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ticketIds.add(Ulid.toString(i, i * 0x9E3779B97F4A7C15L));
+        }
+        ticketIds.forEach(ticketId -> ticketStore.put(ticket(ticketId, TicketStatus.PLACED)));
+        // when
+        List<Ticket> first = ticketStore.page(null, 30);
+        List<Ticket> second = ticketStore.page(first.get(first.size() - 1).getTicketId(), 30);
+        // then
+        assertEquals(ticketIds.subList(0, 30), first.stream().map(Ticket::getTicketId).toList());
+        assertEquals(ticketIds.subList(30, 60), second.stream().map(Ticket::getTicketId).toList());
+        assertEquals(100, ticketStore.tickets().count());
+    }
+
+    @Test
+    void testColumnarStoreIsStripedForIngestWorkers() {
+        // given
+        TicketStoreProducer producer = new TicketStoreProducer();
+        // when
+        TicketStore single = producer.ticketStore(TicketStoreType.COLUMNAR, 1, 1);
+        TicketStore striped = producer.ticketStore(TicketStoreType.COLUMNAR, 1, 4);
+        TicketStore map = producer.ticketStore(TicketStoreType.MAP, 1, 4);
+        // then
+        assertInstanceOf(ColumnarTicketStore.class, single);
+        assertEquals(4 * TicketStoreProducer.STRIPES_PER_WORKER, ((StripedTicketStore) striped).stripeCount());
+        assertInstanceOf(MapTicketStore.class, map);
+    }
+
+    private static Ticket ticket(String ticketId, TicketStatus status) {
+        Ticket ticket = new Ticket();
+        ticket.setTicketId(ticketId);
+        ticket.setBookmaker(1234);
+        ticket.setGame("Call of Duty");
+        ticket.setCurrency("EUR");
+        ticket.setStake(1.0);
+        ticket.setTotalReturn(2.0);
+        ticket.setStatus(status);
+        return ticket;
+    }
+}
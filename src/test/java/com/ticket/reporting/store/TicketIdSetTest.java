@@ -0,0 +1,85 @@
+package com.ticket.reporting.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketIdSetTest {
+    private final TicketIdSet ticketIds = new TicketIdSet();
+    private long millis;
+
+    @Test
+    void testIdsAreKeptInTicketIdOrder() {
+        // given
+        TreeSet<String> expected = new TreeSet<>();
+        Random random = new Random(42);
+        // when
+        for (int i = 0; i < 20_000; i++) {
+            String ticketId = ticketId(random);
+            assertEquals(expected.add(ticketId), ticketIds.add(ticketId));
+            if (i % 3 == 0) {
+                String removed = expected.first();
+                assertEquals(expected.remove(removed), ticketIds.remove(removed));
+            }
+        }
+        // then
+        assertEquals(expected.size(), ticketIds.size());
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(ticketIds));
+        expected.forEach(ticketId -> assertTrue(ticketIds.contains(ticketId)));
+        assertFalse(ticketIds.contains("01J9ZQ4Y7V8K3M2N1P0QRSTVWX"));
+    }
+
+    @Test
+    void testPagesSeekPastTheCursor() {
+        // given
+        TreeSet<String> expected = new TreeSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5_000; i++) {
+            String ticketId = ticketId(random);
+            expected.add(ticketId);
+            ticketIds.add(ticketId);
+        }
+        // when
+        List<String> pages = new ArrayList<>();
+        List<String> page = ticketIds.after(null, 100);
+        while (!page.isEmpty()) {
+            pages.addAll(page);
+            page = ticketIds.after(page.get(page.size() - 1), 100);
+        }
+        // then
+        assertEquals(new ArrayList<>(expected), pages);
+        assertEquals(new ArrayList<>(expected.tailSet("1", false)).subList(0, 10), ticketIds.after("1", 10));
+        assertEquals(List.of(), ticketIds.after("zzz", 10));
+    }
+
+    @Test
+    void testEmptiedSetHoldsNoChunks() {
+        // given
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            added.add(Ulid.toString(i, i));
+            ticketIds.add(added.get(i));
+        }
+        // when
+        added.forEach(ticketIds::remove);
+        // then
+        assertTrue(ticketIds.isEmpty());
+        assertEquals(List.of(), ticketIds.after(null, 10));
+        assertTrue(ticketIds.add(added.get(0)));
+        assertEquals(List.of(added.get(0)), ticketIds.after(null, 10));
+    }
+
+    private String ticketId(Random random) {
+        // Mostly ascending ULIDs like freshly created tickets, some out of order and some that are not ULIDs
+        return switch (random.nextInt(10)) {
+            case 0 -> "ticket-" + random.nextInt(100_000);
+            case 1 -> Ulid.toString(random.nextLong(), random.nextLong());
+            default -> Ulid.toString(++millis << 16 | random.nextInt(1 << 16), random.nextLong());
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package com.ticket.reporting.store;
+
+import com.ticket.reporting.TicketStatus;
+import com.ticket.reporting.model.Ticket;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TicketIndexTest {
+    private final TicketIndex ticketIndex = new TicketIndex();
+
+    @Test
+    void testTicketIdsAreIndexedByBookmakerAndGame() {
+        // when
+        ticketIndex.update(null, ticket("34567", 1234, "NFS"));
+        ticketIndex.update(null, ticket("12345", 1234, "GTA"));
+        ticketIndex.update(null, ticket("23456", 2345, "NFS"));
+        // then
+        assertEquals(List.of("12345", "34567"), ticketIndex.getTicketIds(1234).toList());
+        assertEquals(Set.of("34567"), ticketIndex.getTicketIds(1234, "NFS"));
+        assertEquals(List.of("23456"), ticketIndex.getTicketIds(2345).toList());
+    }
+
+    @Test
+    void testUpsertMovesTicketToNewBookmakerAndGame() {
+        // given
+        Ticket placed = ticket("34567", 1234, "NFS");
+        Ticket movedGame = ticket("34567", 1234, "GTA");
+        Ticket movedBookmaker = ticket("34567", 2345, "GTA");
+        // when
+        ticketIndex.update(null, placed);
+        ticketIndex.update(placed, movedGame);
+        ticketIndex.update(movedGame, movedBookmaker);
+        // then
+        assertEquals(Set.of(), ticketIndex.getTicketIds(1234, "NFS"));
+        assertEquals(List.of(), ticketIndex.getTicketIds(1234).toList());
+        assertEquals(Set.of("34567"), ticketIndex.getTicketIds(2345, "GTA"));
+    }
+
+    @Test
+    void testIdsOfGamesAreMergedInOrderAndEmptySetsArePruned() {
+        // given
+        Ticket evicted = ticket("45678", 1234, "FIFA");
+        ticketIndex.update(null, ticket("56789", 1234, "NFS"));
+        ticketIndex.update(null, ticket("12345", 1234, "NFS"));
+        ticketIndex.update(null, ticket("34567", 1234, "GTA"));
+        ticketIndex.update(null, ticket("23456", 1234, "GTA"));
+        ticketIndex.update(null, evicted);
+        // when
+        ticketIndex.remove(evicted);
+        // then
+        assertEquals(List.of("12345", "23456", "34567", "56789"), ticketIndex.getTicketIds(1234).toList());
+        assertSame(Collections.emptyNavigableSet(), ticketIndex.getTicketIds(1234, "FIFA"));
+        assertEquals(4, ticketIndex.size());
+    }
+
+    private static Ticket ticket(String ticketId, int bookmakerId, String game) {
+        Ticket ticket = new Ticket();
+        ticket.setTicketId(ticketId);
+        ticket.setBookmaker(bookmakerId);
+        ticket.setGame(game);
+        ticket.setCurrency("EUR");
+        ticket.setStake(10.0);
+        ticket.setStatus(TicketStatus.PLACED);
+        return ticket;
+    }
+}